@@ -10,6 +10,7 @@ import org.mindera.fur.code.exceptions.donation.InvalidDonationDateException;
 import org.mindera.fur.code.exceptions.external_apis.DogApiException;
 import org.mindera.fur.code.exceptions.file.FileException;
 import org.mindera.fur.code.exceptions.person.PersonException;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
 import org.mindera.fur.code.exceptions.token.TokenException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -384,4 +385,22 @@ public class ExceptionAspect extends ResponseEntityExceptionHandler {
 
         return new ResponseEntity<>(response, CONFLICT);
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<String> handleTooManyRequestsException(TooManyRequestsException ex, HttpServletRequest request) {
+        logger.warn("Too many requests: {}", ex.getMessage());
+
+        String response = response(
+                TOO_MANY_REQUESTS.value(),
+                TOO_MANY_REQUESTS.getReasonPhrase(),
+                request.getRequestURI(),
+                ex.getMessage(),
+                "Retry after " + ex.getRetryAfter().toSeconds() + " seconds.",
+                new Date()
+        );
+
+        return ResponseEntity.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(response);
+    }
 }
@@ -0,0 +1,159 @@
+package org.mindera.fur.code.aspect.roleauth;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves how each {@link RequiresRole} method gets the ID it is authorized against.
+ * <p>
+ * Every annotated method of the application beans is resolved once at startup into an {@link IdExtractor}:
+ * a read of a method parameter, or a {@link MethodHandle} getter of a field of the request body.
+ * A misconfigured annotation, such as an index out of range, a parameter that is not a {@code Long}
+ * or a field no parameter declares, fails the startup instead of the first request.
+ * </p>
+ */
+@Component
+public class RequiresRoleRegistry implements SmartInitializingSingleton {
+
+    private final ApplicationContext applicationContext;
+
+    private final Map<Method, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequiresRoleRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Resolves the annotated methods of every bean, once all singletons are created.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> beanType = applicationContext.getType(beanName, false);
+            if (beanType == null) {
+                continue;
+            }
+            ReflectionUtils.doWithMethods(ClassUtils.getUserClass(beanType), this::get,
+                    method -> AnnotatedElementUtils.hasAnnotation(method, RequiresRole.class));
+        }
+    }
+
+    /**
+     * Gets the resolved annotation of a method, resolving it on first use if the method was not found at startup.
+     *
+     * @param method The annotated method.
+     * @return The resolved annotation.
+     * @throws IllegalStateException if the annotation is misconfigured.
+     */
+    public Entry get(Method method) {
+        return entries.computeIfAbsent(method, RequiresRoleRegistry::compile);
+    }
+
+    /**
+     * Resolves the annotation of a method.
+     *
+     * @param method The annotated method.
+     * @return The resolved annotation.
+     * @throws IllegalStateException if the annotation is misconfigured.
+     */
+    static Entry compile(Method method) {
+        RequiresRole requiresRole = AnnotatedElementUtils.findMergedAnnotation(method, RequiresRole.class);
+        if (requiresRole == null) {
+            throw new IllegalStateException("Method is not annotated with @RequiresRole: " + method);
+        }
+        if (requiresRole.isPetOperation()) {
+            return new Entry(requiresRole, parameter(method, requiresRole.petIdParam(), "pet ID"));
+        }
+        if (!requiresRole.shelterIdField().isEmpty()) {
+            return new Entry(requiresRole, field(method, requiresRole.shelterIdField()));
+        }
+        if (requiresRole.shelterIdParam() >= 0) {
+            return new Entry(requiresRole, parameter(method, requiresRole.shelterIdParam(), "shelter ID"));
+        }
+        throw new IllegalStateException("No shelter ID source specified on " + method);
+    }
+
+    private static IdExtractor parameter(Method method, int index, String name) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (index < 0 || index >= parameterTypes.length) {
+            throw new IllegalStateException("Invalid " + name + " parameter index " + index + " on " + method);
+        }
+        if (parameterTypes[index] != Long.class && parameterTypes[index] != long.class) {
+            throw new IllegalStateException("The " + name + " parameter " + index + " is not a Long on " + method);
+        }
+        return args -> (Long) args[index];
+    }
+
+    private static IdExtractor field(Method method, String fieldName) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int index = 0; index < parameterTypes.length; index++) {
+            Field field = ReflectionUtils.findField(parameterTypes[index], fieldName);
+            if (field == null) {
+                continue;
+            }
+            if (field.getType() != Long.class) {
+                throw new IllegalStateException("Field " + fieldName + " is not a Long on " + method);
+            }
+            MethodHandle getter = getter(field).asType(MethodType.methodType(Long.class, Object.class));
+            int bodyIndex = index;
+            return args -> {
+                Object body = args[bodyIndex];
+                if (body == null) {
+                    throw new IllegalArgumentException("Request body not found");
+                }
+                try {
+                    return (Long) getter.invokeExact(body);
+                } catch (Throwable e) {
+                    throw new IllegalArgumentException("Unable to extract shelterId from request body", e);
+                }
+            };
+        }
+        throw new IllegalStateException("No parameter declares the field " + fieldName + " on " + method);
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Field " + field.getName() + " is not accessible", e);
+        }
+    }
+
+    /**
+     * Reads the ID a call is authorized against from its arguments.
+     */
+    @FunctionalInterface
+    public interface IdExtractor {
+
+        /**
+         * Reads the ID.
+         *
+         * @param args The arguments of the call.
+         * @return The ID, a pet ID for pet operations and a shelter ID otherwise.
+         */
+        Long extract(Object[] args);
+    }
+
+    /**
+     * A resolved {@link RequiresRole} annotation.
+     *
+     * @param requiresRole The annotation.
+     * @param idExtractor  Reads the ID the call is authorized against.
+     */
+    public record Entry(RequiresRole requiresRole, IdExtractor idExtractor) {
+    }
+}
@@ -6,42 +6,48 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.mindera.fur.code.exceptions.person.PersonException;
+import org.mindera.fur.code.exceptions.token.TokenException;
+import org.mindera.fur.code.infra.security.AuthenticatedPrincipal;
+import org.mindera.fur.code.infra.security.PrincipalService;
+import org.mindera.fur.code.infra.security.TokenClaims;
 import org.mindera.fur.code.infra.security.TokenService;
 import org.mindera.fur.code.messages.pet.PetMessages;
-import org.mindera.fur.code.model.Person;
-import org.mindera.fur.code.model.ShelterPersonRoles;
-import org.mindera.fur.code.model.pet.Pet;
-import org.mindera.fur.code.repository.PersonRepository;
-import org.mindera.fur.code.repository.ShelterPersonRolesRepository;
-import org.mindera.fur.code.repository.pet.PetRepository;
+import org.mindera.fur.code.messages.token.TokenMessage;
+import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.service.pet.PetOwnershipIndex;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Parameter;
+import java.lang.reflect.Method;
+import java.util.Optional;
 
 @Aspect
 @Component
 public class RoleAuthAspect {
 
     private final TokenService tokenService;
-    private final PersonRepository personRepository;
-    private final ShelterPersonRolesRepository shelterPersonRolesRepository;
-    private final PetRepository petRepository;
+    private final PrincipalService principalService;
+    private final PetOwnershipIndex petOwnershipIndex;
+    private final RequiresRoleRegistry requiresRoleRegistry;
 
     public RoleAuthAspect(TokenService tokenService,
-                          PersonRepository personRepository,
-                          ShelterPersonRolesRepository shelterPersonRolesRepository,
-                          PetRepository petRepository) {
+                          PrincipalService principalService,
+                          PetOwnershipIndex petOwnershipIndex,
+                          RequiresRoleRegistry requiresRoleRegistry) {
         this.tokenService = tokenService;
-        this.personRepository = personRepository;
-        this.shelterPersonRolesRepository = shelterPersonRolesRepository;
-        this.petRepository = petRepository;
+        this.principalService = principalService;
+        this.petOwnershipIndex = petOwnershipIndex;
+        this.requiresRoleRegistry = requiresRoleRegistry;
     }
 
     /**
      * Authorize role.
+     * <p>
+     * The shelter roles are read from the claims of the token, verified by the security filter for this request.
+     * A shelter the token does not claim, such as one joined after the token was issued, is looked up in the
+     * principal of the request instead.
+     * </p>
      *
      * @param joinPoint The join point.
      * @param requiresRole The requires role.
@@ -60,26 +66,23 @@ public class RoleAuthAspect {
             throw new PersonException("UNAUTHORIZED");
         }
 
-        String jwtToken = authHeader.substring(7);
-        String email = tokenService.validateToken(jwtToken);
-
-        Person person = personRepository.findByEmail(email);
-        if (person == null) {
-            throw new PersonException("PERSON_NOT_FOUND");
+        // Verified by the security filter for this request; verified here only when the filter did not run
+        TokenClaims claims = (TokenClaims) attributes.getRequest().getAttribute(TokenClaims.REQUEST_ATTRIBUTE);
+        if (claims == null) {
+            claims = tokenService.verify(authHeader.substring(7));
         }
 
-        Long shelterId;
-        if (requiresRole.isPetOperation()) {
-            shelterId = extractShelterIdFromPet(joinPoint, requiresRole);
-        } else {
-            shelterId = extractShelterId(joinPoint, requiresRole);
-        }
+        Long shelterId = extractShelterId(joinPoint, requiresRole);
 
-        ShelterPersonRoles personRole = shelterPersonRolesRepository
-                .findByPersonIdAndShelterId(person.getId(), shelterId)
-                .orElseThrow(() -> new PersonException("PERSON_NOT_ASSOCIATED_WITH_SHELTER"));
+        Role shelterRole = claims.shelterRole(shelterId);
+        if (shelterRole == null) {
+            shelterRole = currentPrincipal(claims).shelterRole(shelterId);
+        }
+        if (shelterRole == null) {
+            throw new PersonException("PERSON_NOT_ASSOCIATED_WITH_SHELTER");
+        }
 
-        if (personRole.getRole().ordinal() > requiresRole.value().ordinal()) {
+        if (shelterRole.ordinal() > requiresRole.value().ordinal()) {
             throw new PersonException("INSUFFICIENT_PERMISSIONS");
         }
 
@@ -87,72 +90,49 @@ public class RoleAuthAspect {
     }
 
     /**
-     * Extract shelter id.
+     * Get the principal of the request, checking its token version when the security filter did not run.
      *
-     * @param joinPoint The join point.
-     * @param requiresRole The requires role.
-     * @return The shelter id.
+     * @param claims The claims of the token.
+     * @return The principal.
      */
-    private Long extractShelterId(ProceedingJoinPoint joinPoint, RequiresRole requiresRole) {
-        if (!requiresRole.shelterIdField().isEmpty()) {
-            // Extract from request body
-            Object requestBody = findRequestBody(joinPoint.getArgs());
-            if (requestBody == null) {
-                throw new IllegalArgumentException("Request body not found");
-            }
-            return extractShelterIdFromField(requestBody, requiresRole.shelterIdField());
-        } else if (requiresRole.shelterIdParam() >= 0) {
-            // Extract from method parameter
-            Object[] args = joinPoint.getArgs();
-            if (requiresRole.shelterIdParam() >= args.length) {
-                throw new IllegalArgumentException("Invalid shelter ID parameter index");
-            }
-            return (Long) args[requiresRole.shelterIdParam()];
-        } else {
-            throw new IllegalArgumentException("No shelter ID source specified");
+    private AuthenticatedPrincipal currentPrincipal(TokenClaims claims) {
+        Optional<AuthenticatedPrincipal> current = principalService.current();
+        if (current.isPresent()) {
+            return current.get();
         }
-    }
-
-    private Long extractShelterIdFromPet(ProceedingJoinPoint joinPoint, RequiresRole requiresRole) {
-        Object[] args = joinPoint.getArgs();
-        if (requiresRole.petIdParam() >= args.length) {
-            throw new IllegalArgumentException("Invalid pet ID parameter index");
+        AuthenticatedPrincipal principal = principalService.loadByEmail(claims.subject());
+        if (principal == null) {
+            throw new PersonException("PERSON_NOT_FOUND");
         }
-        Long petId = (Long) args[requiresRole.petIdParam()];
-        Pet pet = petRepository.findById(petId)
-                .orElseThrow(() -> new EntityNotFoundException(PetMessages.PET_NOT_FOUND + petId));
-        return pet.getShelter().getId();
-    }
-
-    /**
-     * Find request body.
-     *
-     * @param args The args.
-     * @return The request body.
-     */
-    private Object findRequestBody(Object[] args) {
-        for (Object arg : args) {
-            if (arg != null && !(arg instanceof String)) {
-                return arg;
-            }
+        if (principal.tokenVersion() != claims.tokenVersion()) {
+            throw new TokenException(TokenMessage.TOKEN_REVOKED);
         }
-        return null;
+        return principal;
     }
 
     /**
-     * Extract shelter id from field.
+     * Extract shelter id, with the extractor resolved at startup for the annotated method.
      *
-     * @param requestBody The request body.
-     * @param fieldName The field name.
+     * @param joinPoint The join point.
+     * @param requiresRole The requires role.
      * @return The shelter id.
      */
-    private Long extractShelterIdFromField(Object requestBody, String fieldName) {
-        try {
-            Field field = requestBody.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return (Long) field.get(requestBody);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new IllegalArgumentException("Unable to extract shelterId from request body", e);
+    private Long extractShelterId(ProceedingJoinPoint joinPoint, RequiresRole requiresRole) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Long id = requiresRoleRegistry.get(method).idExtractor().extract(joinPoint.getArgs());
+        if (!requiresRole.isPetOperation()) {
+            if (id == null) {
+                throw new IllegalArgumentException("Shelter ID must be provided");
+            }
+            return id;
+        }
+        if (id == null) {
+            throw new IllegalArgumentException("Pet ID must be provided");
+        }
+        Long shelterId = petOwnershipIndex.shelterIdOf(id);
+        if (shelterId == null) {
+            throw new EntityNotFoundException(PetMessages.PET_NOT_FOUND + id);
         }
+        return shelterId;
     }
-}
\ No newline at end of file
+}
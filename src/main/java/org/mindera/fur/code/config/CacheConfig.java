@@ -0,0 +1,146 @@
+package org.mindera.fur.code.config;
+
+import org.mindera.fur.code.infra.cache.CompactRedisSerializer;
+import org.mindera.fur.code.infra.cache.LocalObjectCache;
+import org.mindera.fur.code.infra.cache.PetCacheGenerations;
+import org.mindera.fur.code.infra.cache.TwoTierCacheManager;
+import org.mindera.fur.code.infra.security.PrincipalService;
+import org.mindera.fur.code.service.file.ImageDerivativeService;
+import org.mindera.fur.code.service.file.ImageMetadataService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Cache configuration.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${cache.pet-lists.ttl:PT10M}")
+    private Duration petListsTtl;
+
+    @Value("${cache.image-metadata.ttl:PT1H}")
+    private Duration imageMetadataTtl;
+
+    @Value("${cache.principals.ttl:PT1M}")
+    private Duration principalsTtl;
+
+    @Value("${cache.serializer.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${cache.l1.maximum-weight:10000}")
+    private long l1MaximumWeight;
+
+    @Value("${cache.l1.ttl:PT5M}")
+    private Duration l1Ttl;
+
+    @Value("${cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${cache.load-lock.ttl:PT5S}")
+    private Duration loadLockTtl;
+
+    @Value("${file.local-cache.directory:${java.io.tmpdir}/furcode-object-cache}")
+    private Path objectCacheDirectory;
+
+    @Value("${file.local-cache.max-size:512MB}")
+    private DataSize objectCacheMaxSize;
+
+    @Value("${file.local-cache.max-entry-size:10MB}")
+    private DataSize objectCacheMaxEntrySize;
+
+    /**
+     * Two-tier cache manager: an in-process cache per cache name in front of Redis.
+     * <p>
+     * The pet list regions are keyed by generation, so stale entries are never evicted explicitly.
+     * A TTL lets Redis reclaim them. The image metadata and derivative regions are evicted on upload and delete,
+     * its TTL only bounds the lifetime of entries for images that are never touched again.
+     * The principal region is evicted when a person changes, and kept short-lived since it backs authorization.
+     * </p>
+     * <p>
+     * Values are stored in Redis with {@link CompactRedisSerializer}.
+     * </p>
+     *
+     * @param connectionFactory the Redis connection factory
+     * @param redisTemplate     the template used to publish invalidations
+     * @return The cache manager.
+     */
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate redisTemplate) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new CompactRedisSerializer(compressionThreshold)));
+        RedisCacheConfiguration petLists = defaults.entryTtl(petListsTtl);
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withCacheConfiguration("pets", petLists)
+                .withCacheConfiguration("shelterPets", petLists)
+                .withCacheConfiguration("petPages", petLists)
+                .withCacheConfiguration(ImageMetadataService.CACHE_NAME, defaults.entryTtl(imageMetadataTtl))
+                .withCacheConfiguration(ImageDerivativeService.CACHE_NAME, defaults.entryTtl(imageMetadataTtl))
+                .withCacheConfiguration(PrincipalService.CACHE_NAME, defaults.entryTtl(principalsTtl))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        Map<String, Duration> remoteTtls = Map.of(
+                "pets", petListsTtl,
+                "shelterPets", petListsTtl,
+                "petPages", petListsTtl,
+                ImageMetadataService.CACHE_NAME, imageMetadataTtl,
+                ImageDerivativeService.CACHE_NAME, imageMetadataTtl,
+                PrincipalService.CACHE_NAME, principalsTtl);
+
+        return new TwoTierCacheManager(redisCacheManager, redisTemplate, l1MaximumWeight, l1Ttl,
+                remoteTtls, earlyRefreshBeta, loadLockTtl);
+    }
+
+    /**
+     * Local disk cache of the stored objects, so hot images are not fetched from Minio on every download.
+     * <p>
+     * The cache is per node and emptied on startup. Entries are versioned by entity tag,
+     * so a node that missed an invalidation still never serves stale content.
+     * </p>
+     *
+     * @return The local object cache.
+     * @throws IOException if the cache directory cannot be prepared
+     */
+    @Bean
+    public LocalObjectCache localObjectCache() throws IOException {
+        return new LocalObjectCache(objectCacheDirectory, objectCacheMaxSize.toBytes(), objectCacheMaxEntrySize.toBytes());
+    }
+
+    /**
+     * Listens to the invalidations published by the other nodes.
+     *
+     * @param connectionFactory   the Redis connection factory
+     * @param cacheManager        the two-tier cache manager
+     * @param petCacheGenerations the in-memory pet cache generations
+     * @return The listener container.
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoTierCacheManager cacheManager,
+                                                                            PetCacheGenerations petCacheGenerations) {
+        ChannelTopic topic = new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL);
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, topic);
+        container.addMessageListener(petCacheGenerations, topic);
+        return container;
+    }
+}
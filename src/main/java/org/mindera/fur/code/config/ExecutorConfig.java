@@ -0,0 +1,120 @@
+package org.mindera.fur.code.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor configuration: dedicated, bounded pools for work that must not run on the request threads.
+ * <p>
+ * Declaring any executor bean turns off the executor Spring Boot would otherwise auto-configure,
+ * so the bounded executor of the asynchronous MVC requests is declared here as well.
+ * </p>
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${mvc.async.executor.pool-size:16}")
+    private int mvcAsyncPoolSize;
+
+    @Value("${mvc.async.executor.queue-capacity:100}")
+    private int mvcAsyncQueueCapacity;
+
+    @Value("${gallery.executor.pool-size:8}")
+    private int galleryPoolSize;
+
+    @Value("${gallery.executor.queue-capacity:64}")
+    private int galleryQueueCapacity;
+
+    @Value("${image.derivatives.executor.pool-size:2}")
+    private int derivativePoolSize;
+
+    @Value("${image.derivatives.executor.queue-capacity:100}")
+    private int derivativeQueueCapacity;
+
+    @Value("${security.password.executor.pool-size:4}")
+    private int passwordPoolSize;
+
+    @Value("${security.password.executor.queue-capacity:32}")
+    private int passwordQueueCapacity;
+
+    /**
+     * Runs the asynchronous MVC requests: streamed downloads, range responses and gallery streams.
+     * Spring MVC picks it up by its name; without it, it falls back to a new thread per request.
+     * When the queue is full, the request thread writes the response itself, which slows the requests down
+     * instead of failing them.
+     *
+     * @return The MVC async executor.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor applicationTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mvcAsyncPoolSize);
+        executor.setMaxPoolSize(mvcAsyncPoolSize);
+        executor.setQueueCapacity(mvcAsyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fetches the images of a gallery from Minio.
+     * When the queue is full, the request thread fetches the image itself, which slows the requests down
+     * instead of failing them.
+     *
+     * @return The gallery executor.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor galleryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(galleryPoolSize);
+        executor.setMaxPoolSize(galleryPoolSize);
+        executor.setQueueCapacity(galleryQueueCapacity);
+        executor.setThreadNamePrefix("gallery-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Generates the derivatives of uploaded images. Decoding and encoding images is CPU heavy,
+     * so the pool is kept small and separate from the request threads.
+     * When the queue is full, tasks are rejected: the jobs stay pending and are picked up by the poller.
+     *
+     * @return The derivative executor.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor derivativeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(derivativePoolSize);
+        executor.setMaxPoolSize(derivativePoolSize);
+        executor.setQueueCapacity(derivativeQueueCapacity);
+        executor.setThreadNamePrefix("derivative-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Hashes and verifies passwords. BCrypt is CPU heavy by design, so a burst of logins is limited to this pool
+     * instead of taking every request thread. When the queue is full, tasks are rejected and the request gets a 429.
+     *
+     * @return The password executor.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(passwordPoolSize);
+        executor.setMaxPoolSize(passwordPoolSize);
+        executor.setQueueCapacity(passwordQueueCapacity);
+        executor.setThreadNamePrefix("password-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
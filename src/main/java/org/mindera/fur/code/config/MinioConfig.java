@@ -1,6 +1,8 @@
 package org.mindera.fur.code.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import org.mindera.fur.code.infra.minio.MultipartMinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,4 +30,12 @@ public class MinioConfig {
 
         return minioClient;
     }
+
+    @Bean
+    public MultipartMinioClient multipartMinioClient() {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(minioEndpoint)
+                .credentials(minioAccessKey, minioSecretKey)
+                .build());
+    }
 }
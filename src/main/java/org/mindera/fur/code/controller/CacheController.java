@@ -0,0 +1,54 @@
+package org.mindera.fur.code.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.mindera.fur.code.dto.cache.CacheStatsDTO;
+import org.mindera.fur.code.dto.cache.ObjectCacheStatsDTO;
+import org.mindera.fur.code.service.CacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Cache Controller for inspecting the application caches.
+ */
+@Tag(name = "Cache Controller", description = "Operations for the application caches")
+@RestController
+@RequestMapping(path = "/api/v1/cache")
+public class CacheController {
+
+    private final CacheService cacheService;
+
+    @Autowired
+    public CacheController(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+
+    /**
+     * Get the statistics of every cache.
+     *
+     * @return the hit, miss and eviction counters of every cache, per tier
+     */
+    @Operation(summary = "Get the statistics of every cache")
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return new ResponseEntity<>(cacheService.getCacheStats(), HttpStatus.OK);
+    }
+
+    /**
+     * Get the statistics of the local object cache.
+     *
+     * @return the size, hit ratio and bytes served of the local object cache
+     */
+    @Operation(summary = "Get the statistics of the local object cache")
+    @GetMapping(value = "/objects/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ObjectCacheStatsDTO> getObjectCacheStats() {
+        return new ResponseEntity<>(cacheService.getObjectCacheStats(), HttpStatus.OK);
+    }
+}
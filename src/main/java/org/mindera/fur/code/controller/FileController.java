@@ -8,16 +8,33 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.mindera.fur.code.dto.file.FileUploadDTO;
+import org.mindera.fur.code.dto.file.FileUploadResultDTO;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
 import org.mindera.fur.code.service.FileService;
+import org.mindera.fur.code.service.file.GalleryService;
+import org.mindera.fur.code.service.file.ImageDerivativeService;
+import org.mindera.fur.code.service.file.PresignedUrlService;
+import org.mindera.fur.code.service.file.PresignedUrlService.PresignedUrl;
+import org.mindera.fur.code.service.file.StoredFile;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -28,15 +45,25 @@ import java.util.Map;
 public class FileController {
 
     private final FileService fileService;
+    private final GalleryService galleryService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final PresignedUrlService presignedUrlService;
 
     /**
      * Constructor for FileController
      *
      * @param fileService
+     * @param galleryService
+     * @param imageDerivativeService
+     * @param presignedUrlService
      */
     @Autowired
-    public FileController(FileService fileService) {
+    public FileController(FileService fileService, GalleryService galleryService,
+                          ImageDerivativeService imageDerivativeService, PresignedUrlService presignedUrlService) {
         this.fileService = fileService;
+        this.galleryService = galleryService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.presignedUrlService = presignedUrlService;
     }
 
     /**
@@ -84,10 +111,88 @@ public class FileController {
     }
 
     /**
-     * Downloads a pet image
+     * Streams a shelter image from the raw request body, without Base64 or temporary files
      *
      * @param id
      * @param fileName
+     * @param contentLength
+     * @param sha256
+     * @param content
+     * @return
+     */
+    @Operation(summary = "Stream a shelter image")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "File uploaded successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid file, checksum mismatch or file too large"),
+    })
+    @PostMapping(value = "api/v1/upload/shelter/{id}/image/{fileName}",
+            consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, "image/webp"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FileUploadResultDTO> streamImageShelter(
+            @Parameter(description = "Shelter ID", required = true)
+            @PathVariable("id") Long id,
+
+            @Parameter(description = "File name", required = true)
+            @PathVariable("fileName") String fileName,
+
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+
+            @Parameter(description = "Expected SHA-256 checksum of the file, as hex")
+            @RequestHeader(value = "X-Checksum-SHA256", required = false) String sha256,
+
+            InputStream content) {
+        String filePath = String.format("/shelter/%s/image/", id);
+        FileUploadResultDTO result = fileService.streamImageShelter(filePath, fileName, content,
+                contentLength != null ? contentLength : -1, sha256, id);
+        return new ResponseEntity<>(result, HttpStatus.CREATED);
+    }
+
+    /**
+     * Streams a pet image from the raw request body, without Base64 or temporary files
+     *
+     * @param id
+     * @param fileName
+     * @param contentLength
+     * @param sha256
+     * @param content
+     * @return
+     */
+    @Operation(summary = "Stream a pet image")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "File uploaded successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid file, checksum mismatch or file too large"),
+    })
+    @PostMapping(value = "api/v1/upload/pet/{id}/image/{fileName}",
+            consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, "image/webp"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FileUploadResultDTO> streamImagePet(
+            @Parameter(description = "Pet ID", required = true)
+            @PathVariable("id") Long id,
+
+            @Parameter(description = "File name", required = true)
+            @PathVariable("fileName") String fileName,
+
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+
+            @Parameter(description = "Expected SHA-256 checksum of the file, as hex")
+            @RequestHeader(value = "X-Checksum-SHA256", required = false) String sha256,
+
+            InputStream content) {
+        String filePath = String.format("/pet/%s/image/", id);
+        FileUploadResultDTO result = fileService.streamImagePet(filePath, fileName, content,
+                contentLength != null ? contentLength : -1, sha256, id);
+        return new ResponseEntity<>(result, HttpStatus.CREATED);
+    }
+
+    /**
+     * Downloads a pet image, or its smallest variant at least as large as the requested size.
+     * In presigned mode, redirects to a presigned Minio URL instead
+     *
+     * @param id
+     * @param fileName
+     * @param size
+     * @param range
+     * @param ifRange
      * @return
      */
     @Schema(name = "Download a pet image", description = "Downloads a pet image")
@@ -100,35 +205,43 @@ public class FileController {
                             @Content(mediaType = "image/webp")
                     },
                     description = "File downloaded successfully"),
+            @ApiResponse(responseCode = "206", description = "Requested range of the file downloaded successfully"),
+            @ApiResponse(responseCode = "302", description = "Redirect to a presigned URL of the file, in presigned mode"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
             @ApiResponse(responseCode = "400",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE),
                     description = "File not found")
     })
     @GetMapping("api/v1/download/pet/{id}/image/{fileName}")
-    public ResponseEntity<Resource> downloadImagePet(
+    public ResponseEntity<StreamingResponseBody> downloadImagePet(
             @Parameter(description = "Pet ID", required = true)
             @PathVariable("id") Long id,
 
             @Parameter(description = "File name", required = true)
-            @PathVariable("fileName") String fileName) {
-        String filePath = String.format("/pet/%s/image/%s", id, fileName);
-        byte[] file = fileService.downloadImagePet(filePath, id);
+            @PathVariable("fileName") String fileName,
 
-        Resource resource = new ByteArrayResource(file);
-        String mimeType = fileService.getMimeTypeFromBytes(file);
+            @Parameter(description = "Size in pixels of the longest side: the smallest variant at least this large is sent")
+            @RequestParam(value = "size", required = false) Integer size,
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, mimeType)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"") // "inline" to display in browser
-                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(file.length))
-                .body(resource);
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        String filePath = String.format("/pet/%s/image/%s", id, fileName);
+        StoredFile file = imageDerivativeService.selectVariant(fileService.statImagePet(filePath, id), size);
+        if (presignedUrlService.isEnabled()) {
+            return redirectTo(presignedUrlService.sign(ImageOwnerType.PET, id, file));
+        }
+        return serveFile(file, fileName, range, ifRange);
     }
 
     /**
-     * Downloads a shelter image
+     * Downloads a shelter image, or its smallest variant at least as large as the requested size.
+     * In presigned mode, redirects to a presigned Minio URL instead
      *
      * @param id
      * @param fileName
+     * @param size
+     * @param range
+     * @param ifRange
      * @return
      */
     @Schema(name = "Download a shelter image", description = "Downloads a shelter image")
@@ -141,35 +254,93 @@ public class FileController {
                             @Content(mediaType = "image/webp")
                     },
                     description = "File downloaded successfully"),
+            @ApiResponse(responseCode = "206", description = "Requested range of the file downloaded successfully"),
+            @ApiResponse(responseCode = "302", description = "Redirect to a presigned URL of the file, in presigned mode"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
             @ApiResponse(responseCode = "400",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE),
                     description = "File not found")
     })
     @GetMapping("api/v1/download/shelter/{id}/image/{fileName}")
-    public ResponseEntity<Resource> downloadImageShelter(
+    public ResponseEntity<StreamingResponseBody> downloadImageShelter(
             @Parameter(description = "Shelter ID", required = true)
             @PathVariable("id") Long id,
 
             @Parameter(description = "File name", required = true)
-            @PathVariable("fileName") String fileName) {
-        String filePath = String.format("/pet/%s/image/%s", id, fileName);
-        byte[] file = fileService.downloadImageShelter(filePath, id);
+            @PathVariable("fileName") String fileName,
 
-        Resource resource = new ByteArrayResource(file);
-        String mimeType = fileService.getMimeTypeFromBytes(file);
+            @Parameter(description = "Size in pixels of the longest side: the smallest variant at least this large is sent")
+            @RequestParam(value = "size", required = false) Integer size,
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, mimeType)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"") // "inline" to display in browser
-                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(file.length))
-                .body(resource);
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        String filePath = String.format("/shelter/%s/image/%s", id, fileName);
+        StoredFile file = imageDerivativeService.selectVariant(fileService.statImageShelter(filePath, id), size);
+        if (presignedUrlService.isEnabled()) {
+            return redirectTo(presignedUrlService.sign(ImageOwnerType.SHELTER, id, file));
+        }
+        return serveFile(file, fileName, range, ifRange);
+    }
+
+    /**
+     * Downloads an image by the SHA-256 of its content, or its smallest variant at least as large as the requested size.
+     * The content behind the URL never changes, so it can be cached forever
+     *
+     * @param sha256
+     * @param size
+     * @param range
+     * @param ifRange
+     * @return
+     */
+    @Schema(name = "Download an image by content hash", description = "Downloads an image by the SHA-256 of its content")
+    @Operation(summary = "Download an image by content hash")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    content = {
+                            @Content(mediaType = MediaType.IMAGE_JPEG_VALUE),
+                            @Content(mediaType = MediaType.IMAGE_PNG_VALUE),
+                            @Content(mediaType = "image/webp")
+                    },
+                    description = "File downloaded successfully"),
+            @ApiResponse(responseCode = "206", description = "Requested range of the file downloaded successfully"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
+            @ApiResponse(responseCode = "400",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE),
+                    description = "File not found")
+    })
+    @GetMapping("api/v1/blob/{sha256}")
+    public ResponseEntity<StreamingResponseBody> downloadBlob(
+            @Parameter(description = "SHA-256 of the image, as lowercase hex", required = true)
+            @PathVariable("sha256") String sha256,
+
+            @Parameter(description = "Size in pixels of the longest side: the smallest variant at least this large is sent")
+            @RequestParam(value = "size", required = false) Integer size,
+
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new FileException("Invalid SHA-256: " + sha256);
+        }
+        StoredFile original = fileService.statBlob(sha256);
+        StoredFile file = imageDerivativeService.selectVariant(original, size);
+        // Until its derivatives are generated, a resized request gets the original: that answer must not stick
+        CacheControl cacheControl = size == null || !file.objectName().equals(original.objectName())
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                : CacheControl.noCache();
+        ResponseEntity<StreamingResponseBody> response = serveFile(file, sha256, range, ifRange);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .cacheControl(cacheControl)
+                .body(response.getBody());
     }
 
     @GetMapping("api/v1/download/pet/{id}/image/")
     public ResponseEntity<List<Map<String, String>>> getAllImagesFromPet(
             @Parameter(description = "Pet ID", required = true)
             @PathVariable("id") Long id) {
-        List<Map<String, String>> imageUrls = fileService.getAllImagesFromPetAsBase64(id);
+        List<Map<String, String>> imageUrls = presignedUrlService.isEnabled()
+                ? presignedUrlService.signAll(ImageOwnerType.PET, id)
+                : fileService.getAllImagesFromPetAsBase64(id);
 
         return ResponseEntity.ok(imageUrls);
     }
@@ -178,11 +349,53 @@ public class FileController {
     public ResponseEntity<List<Map<String, String>>> getAllImagesFromShelter(
             @Parameter(description = "Shelter ID", required = true)
             @PathVariable("id") Long id) {
-        List<Map<String, String>> imageUrls = fileService.getAllImagesFromShelterAsBase64(id);
+        List<Map<String, String>> imageUrls = presignedUrlService.isEnabled()
+                ? presignedUrlService.signAll(ImageOwnerType.SHELTER, id)
+                : fileService.getAllImagesFromShelterAsBase64(id);
 
         return ResponseEntity.ok(imageUrls);
     }
 
+    /**
+     * Streams the gallery of a pet, one JSON element per image as soon as it is fetched
+     *
+     * @param id
+     * @param thumbnails
+     * @return
+     */
+    @Operation(summary = "Stream the image gallery of a pet")
+    @GetMapping(value = "api/v1/download/pet/{id}/gallery", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPetGallery(
+            @Parameter(description = "Pet ID", required = true)
+            @PathVariable("id") Long id,
+
+            @Parameter(description = "Send thumbnails instead of the full images")
+            @RequestParam(value = "thumbnails", defaultValue = "false") boolean thumbnails) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> galleryService.writeGallery(ImageOwnerType.PET, id, thumbnails, output));
+    }
+
+    /**
+     * Streams the gallery of a shelter, one JSON element per image as soon as it is fetched
+     *
+     * @param id
+     * @param thumbnails
+     * @return
+     */
+    @Operation(summary = "Stream the image gallery of a shelter")
+    @GetMapping(value = "api/v1/download/shelter/{id}/gallery", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getShelterGallery(
+            @Parameter(description = "Shelter ID", required = true)
+            @PathVariable("id") Long id,
+
+            @Parameter(description = "Send thumbnails instead of the full images")
+            @RequestParam(value = "thumbnails", defaultValue = "false") boolean thumbnails) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> galleryService.writeGallery(ImageOwnerType.SHELTER, id, thumbnails, output));
+    }
+
     @GetMapping("api/v1/download/pet/{id}/image/{fileName}/base64")
     public ResponseEntity<String> downloadImagePetAsBase64(
             @Parameter(description = "Pet ID", required = true)
@@ -210,7 +423,7 @@ public class FileController {
 
             @Parameter(description = "File name", required = true)
             @PathVariable("fileName") String fileName) {
-        String filePath = String.format("/pet/%s/image/%s", id, fileName);
+        String filePath = String.format("/shelter/%s/image/%s", id, fileName);
         byte[] file = fileService.downloadImageShelter(filePath, id);
 
         String mimeType = fileService.getMimeTypeFromBytes(file);
@@ -241,4 +454,111 @@ public class FileController {
         }
     }
 
+
+    /**
+     * Redirects to a presigned URL. The redirect can be cached by the client while the URL stays valid,
+     * with a minute of margin for the time it takes to follow it.
+     *
+     * @param url
+     * @return
+     */
+    private ResponseEntity<StreamingResponseBody> redirectTo(PresignedUrl url) {
+        Duration maxAge = url.remaining().minusMinutes(1);
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(url.url()))
+                .cacheControl(CacheControl.maxAge(maxAge.isNegative() ? Duration.ZERO : maxAge).cachePrivate())
+                .build();
+    }
+
+    /**
+     * Streams a stored file to the response, straight from Minio.
+     * A single byte range is served as 206 Partial Content, unless If-Range shows the file has changed.
+     * Multiple ranges are not supported and get the whole file.
+     *
+     * @param file
+     * @param fileName
+     * @param range
+     * @param ifRange
+     * @return
+     */
+    private ResponseEntity<StreamingResponseBody> serveFile(StoredFile file, String fileName, String range, String ifRange) {
+        long size = file.size();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, file.contentType());
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\""); // "inline" to display in browser
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (file.etag() != null) {
+            headers.setETag("\"" + file.etag() + "\"");
+        }
+        if (file.lastModified() != null) {
+            headers.setLastModified(file.lastModified());
+        }
+
+        List<HttpRange> ranges = List.of();
+        if (range != null && isIfRangeSatisfied(file, ifRange)) {
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+        }
+
+        if (ranges.size() != 1) {
+            headers.setContentLength(size);
+            return new ResponseEntity<>(output -> copy(file, 0, size, output), headers, HttpStatus.OK);
+        }
+
+        long start;
+        long end;
+        try {
+            start = ranges.get(0).getRangeStart(size);
+            end = ranges.get(0).getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            start = size;
+            end = size - 1;
+        }
+        if (start >= size || start > end) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+
+        long offset = start;
+        long length = end - start + 1;
+        headers.setContentLength(length);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        return new ResponseEntity<>(output -> copy(file, offset, length, output), headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * Checks an If-Range header: the range applies only if the entity tag or date still matches the file.
+     *
+     * @param file
+     * @param ifRange
+     * @return
+     */
+    private boolean isIfRangeSatisfied(StoredFile file, String ifRange) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return file.etag() != null && ifRange.equals("\"" + file.etag() + "\"");
+        }
+        if (ifRange.startsWith("W/")) {
+            return false; // weak entity tags never match for ranges
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return file.lastModified() != null
+                    && file.lastModified().toEpochSecond() == date.toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private void copy(StoredFile file, long offset, long length, OutputStream output) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        fileService.transferFile(file, offset, length, output);
+    }
 }
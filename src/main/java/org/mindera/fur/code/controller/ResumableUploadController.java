@@ -0,0 +1,201 @@
+package org.mindera.fur.code.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.mindera.fur.code.dto.file.FileUploadResultDTO;
+import org.mindera.fur.code.dto.file.UploadPartDTO;
+import org.mindera.fur.code.dto.file.UploadSessionCreateDTO;
+import org.mindera.fur.code.dto.file.UploadSessionDTO;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.service.file.ResumableUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+/**
+ * Resumable upload controller: images sent in parts, so a dropped connection only costs the part being sent.
+ * <p>
+ * Start a session with the size of the file, upload its parts with {@code PUT .../parts/{partNumber}},
+ * in any order and in parallel, then complete the session. After a failure, get the session to see
+ * which parts were received.
+ * </p>
+ */
+@Tag(name = "Resumable Uploads", description = "Uploads images in parts, resumable after a failure.")
+@RestController
+@Schema(name = "Resumable Uploads", description = "Uploads images in parts, resumable after a failure.")
+public class ResumableUploadController {
+
+    private final ResumableUploadService resumableUploadService;
+
+    @Autowired
+    public ResumableUploadController(ResumableUploadService resumableUploadService) {
+        this.resumableUploadService = resumableUploadService;
+    }
+
+    /**
+     * Starts a resumable upload of a pet image
+     *
+     * @param id
+     * @param create
+     * @return
+     */
+    @Operation(summary = "Start a resumable upload of a pet image")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Upload session started"),
+            @ApiResponse(responseCode = "400", description = "Invalid file name or file too large"),
+    })
+    @PostMapping(value = "api/v1/upload/pet/{id}/sessions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadSessionDTO> createPetSession(
+            @Parameter(description = "Pet ID", required = true)
+            @PathVariable("id") Long id, @Valid @RequestBody UploadSessionCreateDTO create) {
+        return new ResponseEntity<>(resumableUploadService.createPetSession(id, create), HttpStatus.CREATED);
+    }
+
+    /**
+     * Starts a resumable upload of a shelter image
+     *
+     * @param id
+     * @param create
+     * @return
+     */
+    @Operation(summary = "Start a resumable upload of a shelter image")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Upload session started"),
+            @ApiResponse(responseCode = "400", description = "Invalid file name or file too large"),
+    })
+    @PostMapping(value = "api/v1/upload/shelter/{id}/sessions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadSessionDTO> createShelterSession(
+            @Parameter(description = "Shelter ID", required = true)
+            @PathVariable("id") Long id, @Valid @RequestBody UploadSessionCreateDTO create) {
+        return new ResponseEntity<>(resumableUploadService.createShelterSession(id, create), HttpStatus.CREATED);
+    }
+
+    /**
+     * Gets a resumable upload and the parts it has received
+     *
+     * @param owner
+     * @param id
+     * @param sessionId
+     * @return
+     */
+    @Operation(summary = "Get a resumable upload and the parts it has received")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Upload session found"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired"),
+    })
+    @GetMapping(value = "api/v1/upload/{owner}/{id}/sessions/{sessionId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadSessionDTO> getSession(
+            @Parameter(description = "Owner type: pet or shelter", required = true)
+            @PathVariable("owner") String owner,
+            @PathVariable("id") Long id,
+            @PathVariable("sessionId") String sessionId) {
+        return new ResponseEntity<>(resumableUploadService.getSession(ownerType(owner), id, sessionId), HttpStatus.OK);
+    }
+
+    /**
+     * Uploads a part of a resumable upload, from the raw request body
+     *
+     * @param owner
+     * @param id
+     * @param sessionId
+     * @param partNumber
+     * @param contentLength
+     * @param sha256
+     * @param content
+     * @return
+     */
+    @Operation(summary = "Upload a part of a resumable upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Part uploaded successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid part number or size, checksum mismatch or not an image"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired"),
+    })
+    @PutMapping(value = "api/v1/upload/{owner}/{id}/sessions/{sessionId}/parts/{partNumber}",
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadPartDTO> uploadPart(
+            @Parameter(description = "Owner type: pet or shelter", required = true)
+            @PathVariable("owner") String owner,
+            @PathVariable("id") Long id,
+            @PathVariable("sessionId") String sessionId,
+
+            @Parameter(description = "Part number, from 1", required = true)
+            @PathVariable("partNumber") int partNumber,
+
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+
+            @Parameter(description = "Expected SHA-256 checksum of the part, as hex")
+            @RequestHeader(value = "X-Checksum-SHA256", required = false) String sha256,
+
+            InputStream content) {
+        UploadPartDTO part = resumableUploadService.uploadPart(ownerType(owner), id, sessionId, partNumber, content,
+                contentLength != null ? contentLength : -1, sha256);
+        return new ResponseEntity<>(part, HttpStatus.OK);
+    }
+
+    /**
+     * Completes a resumable upload once all its parts are uploaded, and stores the image
+     *
+     * @param owner
+     * @param id
+     * @param sessionId
+     * @return
+     */
+    @Operation(summary = "Complete a resumable upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "File uploaded successfully"),
+            @ApiResponse(responseCode = "400", description = "Missing parts, checksum mismatch or not an image"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired"),
+    })
+    @PostMapping(value = "api/v1/upload/{owner}/{id}/sessions/{sessionId}/complete", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FileUploadResultDTO> complete(
+            @Parameter(description = "Owner type: pet or shelter", required = true)
+            @PathVariable("owner") String owner,
+            @PathVariable("id") Long id,
+            @PathVariable("sessionId") String sessionId) {
+        return new ResponseEntity<>(resumableUploadService.complete(ownerType(owner), id, sessionId), HttpStatus.CREATED);
+    }
+
+    /**
+     * Aborts a resumable upload and discards its parts
+     *
+     * @param owner
+     * @param id
+     * @param sessionId
+     * @return
+     */
+    @Operation(summary = "Abort a resumable upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Upload session aborted"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired"),
+    })
+    @DeleteMapping("api/v1/upload/{owner}/{id}/sessions/{sessionId}")
+    public ResponseEntity<Void> abort(
+            @Parameter(description = "Owner type: pet or shelter", required = true)
+            @PathVariable("owner") String owner,
+            @PathVariable("id") Long id,
+            @PathVariable("sessionId") String sessionId) {
+        resumableUploadService.abort(ownerType(owner), id, sessionId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    private static ImageOwnerType ownerType(String owner) {
+        for (ImageOwnerType ownerType : ImageOwnerType.values()) {
+            if (ownerType.getPrefix().equals(owner)) {
+                return ownerType;
+            }
+        }
+        throw new FileException("Owner type must be pet or shelter");
+    }
+}
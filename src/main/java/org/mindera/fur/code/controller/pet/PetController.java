@@ -3,12 +3,12 @@ package org.mindera.fur.code.controller.pet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotEmpty;
-import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.*;
 import org.mindera.fur.code.dto.pet.*;
 import org.mindera.fur.code.service.AIService;
 import org.mindera.fur.code.service.pet.PetService;
+import org.mindera.fur.code.service.pet.search.PetSearchService;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -28,11 +28,13 @@ import java.util.List;
 public class PetController {
     private final PetService petService;
     private final AIService aiService;
+    private final PetSearchService petSearchService;
 
     @Autowired
-    public PetController(PetService petService, AIService aiService) {
+    public PetController(PetService petService, AIService aiService, PetSearchService petSearchService) {
         this.petService = petService;
         this.aiService = aiService;
+        this.petSearchService = petSearchService;
     }
 
     /**
@@ -47,6 +49,50 @@ public class PetController {
         return new ResponseEntity<>(petDTOs, HttpStatus.OK);
     }
 
+    /**
+     * Get a page of active pets, filtered by species, size, shelter, adopted and vaccinated status.
+     *
+     * @param filter The filters, cursor and limit of the page.
+     * @return The page of pets.
+     */
+    @Operation(summary = "Get a page of active pets")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PetPageDTO> getPetPage(@ParameterObject @Valid PetFilterDTO filter) {
+        PetPageDTO petPageDTO = petService.findPetPage(filter);
+        return new ResponseEntity<>(petPageDTO, HttpStatus.OK);
+    }
+
+    /**
+     * Search active pets by species, size, color, age bucket, shelter, vaccination and adoption status.
+     *
+     * @param request The filters and page.
+     * @return The matching pets, the total and the facet counts.
+     */
+    @Operation(summary = "Structured search of active pets, with facet counts")
+    @GetMapping(value = "/structured-search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PetSearchResultDTO> structuredSearch(@ParameterObject @Valid PetSearchRequestDTO request) {
+        PetSearchResultDTO result = petSearchService.search(request);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Full-text search of active pets by name, color and observations.
+     *
+     * @param q    The search text, in web search syntax (quoted phrases, OR, -exclusions).
+     * @param page The page number, starting at 0.
+     * @param size The number of pets per page.
+     * @return The matching pets, best match first, with highlighted snippets.
+     */
+    @Operation(summary = "Full-text search of active pets by name, color and observations")
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PetTextSearchResultDTO> textSearch(
+            @RequestParam @NotBlank @Size(max = 200) String q,
+            @RequestParam(defaultValue = "0") @PositiveOrZero @Max(500) int page,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        PetTextSearchResultDTO result = petSearchService.textSearch(q, page, size);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     /**
      * Get a pet by ID.
      *
@@ -0,0 +1,46 @@
+package org.mindera.fur.code.dto.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A DTO class for the statistics of a two-tier cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Hit, miss and eviction counters of a cache, per tier")
+public class CacheStatsDTO {
+
+    @Schema(description = "The name of the cache", example = "pet")
+    private String cacheName;
+
+    @Schema(description = "The approximate number of entries in the in-process cache", example = "120")
+    private long l1Size;
+
+    @Schema(description = "The weight of the entries in the in-process cache", example = "480")
+    private long l1Weight;
+
+    @Schema(description = "The number of hits in the in-process cache", example = "9500")
+    private long l1Hits;
+
+    @Schema(description = "The number of misses in the in-process cache", example = "500")
+    private long l1Misses;
+
+    @Schema(description = "The number of entries evicted from the in-process cache", example = "20")
+    private long l1Evictions;
+
+    @Schema(description = "The number of hits in Redis", example = "450")
+    private long l2Hits;
+
+    @Schema(description = "The number of misses in Redis", example = "50")
+    private long l2Misses;
+
+    @Schema(description = "The number of values computed by this node", example = "40")
+    private long loads;
+
+    @Schema(description = "The number of values refreshed before they expired", example = "5")
+    private long earlyRefreshes;
+}
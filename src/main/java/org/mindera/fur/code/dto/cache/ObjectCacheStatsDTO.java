@@ -0,0 +1,40 @@
+package org.mindera.fur.code.dto.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A DTO class for the statistics of the local object cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Size, hit ratio and traffic of the local cache of stored objects")
+public class ObjectCacheStatsDTO {
+
+    @Schema(description = "The number of objects in the cache", example = "350")
+    private long entries;
+
+    @Schema(description = "The total size of the objects in the cache, in bytes", example = "268435456")
+    private long bytes;
+
+    @Schema(description = "The maximum total size of the cache, in bytes", example = "536870912")
+    private long maxBytes;
+
+    @Schema(description = "The number of objects served from the cache", example = "9500")
+    private long hits;
+
+    @Schema(description = "The number of objects fetched from the object storage", example = "500")
+    private long misses;
+
+    @Schema(description = "The ratio of hits to lookups", example = "0.95")
+    private double hitRatio;
+
+    @Schema(description = "The number of objects evicted from the cache", example = "20")
+    private long evictions;
+
+    @Schema(description = "The number of bytes served from the cache", example = "1073741824")
+    private long bytesServed;
+}
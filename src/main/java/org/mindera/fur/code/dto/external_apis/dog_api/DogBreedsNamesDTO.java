@@ -5,6 +5,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -14,6 +15,7 @@ import java.util.List;
  * Dog breeds names DTO
  */
 @AllArgsConstructor
+@NoArgsConstructor
 @Data
 @Schema(description = "Dog breeds names")
 public class DogBreedsNamesDTO implements Serializable {
@@ -0,0 +1,26 @@
+package org.mindera.fur.code.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "FileUploadResultDTO", description = "DTO for a stored file")
+public class FileUploadResultDTO {
+
+    @Schema(description = "Object key in the bucket", example = "/pet/1/image/image1.jpg")
+    private String objectName;
+
+    @Schema(description = "Content type sniffed from the file", example = "image/jpeg")
+    private String contentType;
+
+    @Schema(description = "File size in bytes", example = "102400")
+    private long size;
+
+    @Schema(description = "SHA-256 checksum of the file, as lowercase hex",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String sha256;
+}
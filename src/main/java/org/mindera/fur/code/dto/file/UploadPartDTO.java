@@ -0,0 +1,23 @@
+package org.mindera.fur.code.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "UploadPartDTO", description = "DTO for a part received by a resumable upload")
+public class UploadPartDTO {
+
+    @Schema(description = "Part number, from 1", example = "1")
+    private int partNumber;
+
+    @Schema(description = "Part size in bytes", example = "5242880")
+    private long size;
+
+    @Schema(description = "SHA-256 checksum of the part, as lowercase hex",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String sha256;
+}
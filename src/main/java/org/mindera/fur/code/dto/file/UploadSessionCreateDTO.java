@@ -0,0 +1,24 @@
+package org.mindera.fur.code.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+@Schema(name = "UploadSessionCreateDTO", description = "DTO for starting a resumable upload")
+public class UploadSessionCreateDTO {
+
+    @Schema(description = "File name", example = "image1.jpg")
+    @NotNull(message = "File name is required")
+    private String fileName;
+
+    @Schema(description = "File size in bytes", example = "8388608")
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    private Long size;
+
+    @Schema(description = "Expected SHA-256 checksum of the whole file, as hex, checked on completion",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String sha256;
+}
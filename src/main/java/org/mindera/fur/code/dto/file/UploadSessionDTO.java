@@ -0,0 +1,37 @@
+package org.mindera.fur.code.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "UploadSessionDTO", description = "DTO for a resumable upload and the parts it has received")
+public class UploadSessionDTO {
+
+    @Schema(description = "Session ID", example = "3f1c2d9e-8a4b-4c6d-9e2f-1a2b3c4d5e6f")
+    private String id;
+
+    @Schema(description = "Object key the file is stored under once completed", example = "pet/1/image/image1.jpg")
+    private String objectName;
+
+    @Schema(description = "File size in bytes", example = "8388608")
+    private long size;
+
+    @Schema(description = "Size of every part but the last one, in bytes", example = "5242880")
+    private long partSize;
+
+    @Schema(description = "Number of parts", example = "2")
+    private int partCount;
+
+    @Schema(description = "Date after which the session is aborted, unless more parts are received")
+    private LocalDateTime expiresAt;
+
+    @Schema(description = "Parts received so far")
+    private List<UploadPartDTO> parts;
+}
@@ -0,0 +1,54 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+
+import java.io.Serializable;
+
+/**
+ * A DTO class for filtering and paginating the pet catalogue.
+ * <p>
+ * Pagination is keyset based: {@code cursor} is the ID of the last pet of the previous page,
+ * and the next page starts right after it.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "Filters and cursor for the pet catalogue")
+public class PetFilterDTO implements Serializable {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    @Schema(description = "The species of the pet", example = "DOG")
+    private PetSpeciesEnum species;
+
+    @Schema(description = "The size of the pet", example = "SMALL")
+    private PetSizeEnum size;
+
+    @Positive(message = "Shelter ID must be greater than 0")
+    @Schema(description = "The ID of the shelter", example = "1")
+    private Long shelterId;
+
+    @Schema(description = "The adopted status of the pet", example = "false")
+    private Boolean isAdopted;
+
+    @Schema(description = "The vaccination status of the pet", example = "true")
+    private Boolean isVaccinated;
+
+    @PositiveOrZero(message = "Cursor must be greater than or equal to 0")
+    @Schema(description = "The ID of the last pet of the previous page", example = "0")
+    private Long cursor = 0L;
+
+    @Min(value = 1, message = "Limit must be greater than 0")
+    @Max(value = MAX_LIMIT, message = "Limit must be less than or equal to " + MAX_LIMIT)
+    @Schema(description = "The maximum number of pets in the page", example = "20")
+    private Integer limit = DEFAULT_LIMIT;
+}
@@ -0,0 +1,34 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.mindera.fur.code.infra.cache.CacheWeighted;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO class for a page of the pet catalogue.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A page of pets")
+public class PetPageDTO implements Serializable, CacheWeighted {
+
+    @Schema(description = "The pets in the page")
+    private List<PetSummaryDTO> content;
+
+    @Schema(description = "The cursor to request the next page, null if this is the last page", example = "42")
+    private Long nextCursor;
+
+    @Schema(description = "Whether there are more pets after this page", example = "true")
+    private boolean hasNext;
+
+    @Override
+    public int cacheWeight() {
+        return content != null ? content.size() : 0;
+    }
+}
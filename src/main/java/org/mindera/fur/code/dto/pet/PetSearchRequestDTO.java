@@ -0,0 +1,56 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+
+import java.util.List;
+
+/**
+ * A DTO class for a structured pet search.
+ * Values of the same filter are combined with OR, different filters with AND.
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "Filters for the structured pet search")
+public class PetSearchRequestDTO {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+    public static final int MAX_PAGE = 500;
+
+    @Schema(description = "The accepted species", example = "[\"DOG\", \"CAT\"]")
+    private List<PetSpeciesEnum> species;
+
+    @Schema(description = "The accepted sizes", example = "[\"SMALL\"]")
+    private List<PetSizeEnum> size;
+
+    @Schema(description = "The accepted color words", example = "[\"brown\", \"white\"]")
+    private List<String> color;
+
+    @Schema(description = "The accepted age buckets: 0-1, 2-3, 4-7, 8-12 or 13+", example = "[\"2-3\"]")
+    private List<String> age;
+
+    @Schema(description = "The accepted shelter IDs", example = "[1]")
+    private List<Long> shelterId;
+
+    @Schema(description = "The vaccination status of the pet", example = "true")
+    private Boolean isVaccinated;
+
+    @Schema(description = "The adopted status of the pet", example = "false")
+    private Boolean isAdopted;
+
+    @Min(value = 0, message = "Page must be greater than or equal to 0")
+    @Max(value = MAX_PAGE, message = "Page must be less than or equal to " + MAX_PAGE)
+    @Schema(description = "The page number, starting at 0", example = "0")
+    private Integer page = 0;
+
+    @Min(value = 1, message = "Size must be greater than 0")
+    @Max(value = MAX_SIZE, message = "Size must be less than or equal to " + MAX_SIZE)
+    @Schema(description = "The number of pets per page", example = "20")
+    private Integer pageSize = DEFAULT_SIZE;
+}
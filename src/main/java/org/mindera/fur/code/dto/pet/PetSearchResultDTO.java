@@ -0,0 +1,29 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO class for the result of a structured pet search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "The result of a structured pet search")
+public class PetSearchResultDTO {
+
+    @Schema(description = "The total number of matching pets", example = "42")
+    private int total;
+
+    @Schema(description = "The pets of the requested page")
+    private List<PetSummaryDTO> content;
+
+    @Schema(description = "The number of matching pets per filter and value, ignoring the filter itself",
+            example = "{\"SPECIES\": {\"DOG\": 30, \"CAT\": 12}}")
+    private Map<String, Map<String, Integer>> facets;
+}
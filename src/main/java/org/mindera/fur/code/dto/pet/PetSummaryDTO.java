@@ -0,0 +1,48 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+
+import java.io.Serializable;
+
+/**
+ * A slim DTO class for a pet in the catalogue, without its records.
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "A pet in the catalogue")
+public class PetSummaryDTO implements Serializable {
+
+    @Schema(description = "The ID of the pet", example = "2")
+    private Long id;
+
+    @Schema(description = "The name of the pet", example = "Tareco")
+    private String name;
+
+    @Schema(description = "The ID of the pet type", example = "2")
+    private Long petTypeId;
+
+    @Schema(description = "The species of the pet", example = "DOG")
+    private PetSpeciesEnum species;
+
+    @Schema(description = "The ID of the shelter", example = "3")
+    private Long shelterId;
+
+    @Schema(description = "The adopted status of the pet", example = "false")
+    private Boolean isAdopted;
+
+    @Schema(description = "The vaccination status of the pet", example = "false")
+    private Boolean isVaccinated;
+
+    @Schema(description = "The size of the pet", example = "LARGE")
+    private PetSizeEnum size;
+
+    @Schema(description = "The color of the pet", example = "White")
+    private String color;
+
+    @Schema(description = "The age of the pet", example = "3")
+    private Integer age;
+}
@@ -0,0 +1,26 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A DTO class for a pet matched by the full-text search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A pet matched by the full-text search")
+public class PetTextSearchHitDTO {
+
+    @Schema(description = "The matched pet")
+    private PetSummaryDTO pet;
+
+    @Schema(description = "The relevance of the match, higher is better", example = "0.3")
+    private float rank;
+
+    @Schema(description = "The name, color and observations of the pet as escaped HTML, with the matched words in <mark> tags",
+            example = "<mark>Tareco</mark> - White - Loves to play")
+    private String snippet;
+}
@@ -0,0 +1,30 @@
+package org.mindera.fur.code.dto.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A DTO class for a page of full-text search results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A page of full-text search results")
+public class PetTextSearchResultDTO {
+
+    @Schema(description = "The matched pets, best match first")
+    private List<PetTextSearchHitDTO> content;
+
+    @Schema(description = "The page number, starting at 0", example = "0")
+    private int page;
+
+    @Schema(description = "The number of pets per page", example = "20")
+    private int size;
+
+    @Schema(description = "Whether there are more matching pets after this page", example = "true")
+    private boolean hasNext;
+}
@@ -0,0 +1,34 @@
+package org.mindera.fur.code.exceptions.throttle;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Duration;
+
+/**
+ * Exception class for when a request is rejected because the client or the server is over a limit.
+ */
+@Schema(description = "Exception thrown when a request is rejected because a limit is reached.")
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructor with message and retry delay.
+     *
+     * @param message    The message for the exception.
+     * @param retryAfter How long the client should wait before retrying.
+     */
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns how long the client should wait before retrying.
+     *
+     * @return The retry delay.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
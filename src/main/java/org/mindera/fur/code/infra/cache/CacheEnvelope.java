@@ -0,0 +1,15 @@
+package org.mindera.fur.code.infra.cache;
+
+import java.io.Serializable;
+
+/**
+ * Wraps a cached value with what is needed to refresh it probabilistically before it expires (XFetch):
+ * how long it took to compute and when it expires in Redis.
+ * Only used in caches with a TTL, and never exposed outside {@link TwoTierCache}.
+ *
+ * @param value           The cached value.
+ * @param computeMillis   The time it took to compute the value, in milliseconds.
+ * @param expiresAtMillis The epoch millisecond at which the value expires.
+ */
+public record CacheEnvelope(Object value, long computeMillis, long expiresAtMillis) implements Serializable {
+}
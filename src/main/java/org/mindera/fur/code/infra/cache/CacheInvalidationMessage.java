@@ -0,0 +1,68 @@
+package org.mindera.fur.code.infra.cache;
+
+/**
+ * Message sent over Redis pub/sub to tell the other nodes to drop an entry from their in-process cache.
+ * <p>
+ * The message is sent as plain text, one field per line: the node ID, the cache name, the type of the key
+ * and the key itself. Only {@code Long}, {@code Integer} and {@code String} keys are sent as they are;
+ * any other key is sent as a clear of the whole cache, which is always safe for an in-process tier.
+ * </p>
+ *
+ * @param nodeId    The ID of the node that changed the entry.
+ * @param cacheName The name of the cache.
+ * @param key       The key of the entry, or null when the whole cache was cleared.
+ */
+public record CacheInvalidationMessage(String nodeId, String cacheName, Object key) {
+
+    private static final String SEPARATOR = "\n";
+    private static final String ALL = "*";
+    private static final String LONG = "L";
+    private static final String INTEGER = "I";
+    private static final String STRING = "S";
+
+    /**
+     * Encodes the message as text.
+     *
+     * @return The encoded message.
+     */
+    public String encode() {
+        String type;
+        String value;
+        if (key instanceof Long) {
+            type = LONG;
+            value = key.toString();
+        } else if (key instanceof Integer) {
+            type = INTEGER;
+            value = key.toString();
+        } else if (key instanceof String string) {
+            type = STRING;
+            value = string;
+        } else {
+            type = ALL;
+            value = "";
+        }
+        return String.join(SEPARATOR, nodeId, cacheName, type, value);
+    }
+
+    /**
+     * Decodes a message encoded by {@link #encode()}.
+     *
+     * @param text The encoded message.
+     * @return The message.
+     * @throws IllegalArgumentException if the text is not a valid message.
+     */
+    public static CacheInvalidationMessage decode(String text) {
+        String[] fields = text.split(SEPARATOR, 4);
+        if (fields.length != 4 || fields[0].isEmpty() || fields[1].isEmpty()) {
+            throw new IllegalArgumentException("Malformed cache invalidation message");
+        }
+        Object key = switch (fields[2]) {
+            case ALL -> null;
+            case LONG -> Long.valueOf(fields[3]);
+            case INTEGER -> Integer.valueOf(fields[3]);
+            case STRING -> fields[3];
+            default -> throw new IllegalArgumentException("Unknown cache key type: " + fields[2]);
+        };
+        return new CacheInvalidationMessage(fields[0], fields[1], key);
+    }
+}
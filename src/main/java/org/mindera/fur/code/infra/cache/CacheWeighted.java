@@ -0,0 +1,15 @@
+package org.mindera.fur.code.infra.cache;
+
+/**
+ * Implemented by cached values that hold more than one element, so the in-process cache
+ * can bound its memory by the number of elements instead of the number of entries.
+ */
+public interface CacheWeighted {
+
+    /**
+     * Returns the weight of the value in the in-process cache.
+     *
+     * @return The weight of the value, usually the number of elements it holds.
+     */
+    int cacheWeight();
+}
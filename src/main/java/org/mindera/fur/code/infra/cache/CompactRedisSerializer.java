@@ -0,0 +1,251 @@
+package org.mindera.fur.code.infra.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis serializer for cache values, using Jackson Smile (binary JSON) instead of JDK serialization.
+ * <p>
+ * Every value starts with a 4 byte header: two magic bytes, the format version and a flags byte.
+ * Payloads larger than the compression threshold are deflated.
+ * Unknown fields are ignored, so adding or removing a DTO field does not invalidate the cached entries.
+ * </p>
+ * <p>
+ * Entries written before this serializer, with JDK serialization, are still read.
+ * An entry that cannot be read is treated as a cache miss and is overwritten on the next put.
+ * </p>
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC_0 = (byte) 0xFC;
+    static final byte MAGIC_1 = (byte) 0xCA;
+    static final byte VERSION = 1;
+    static final byte FLAG_DEFLATED = 0x01;
+    static final byte FLAG_NULL = 0x02;
+    static final int HEADER_SIZE = 4;
+
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactRedisSerializer.class);
+
+    private final int compressionThreshold;
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+    private final JdkSerializationRedisSerializer legacySerializer = new JdkSerializationRedisSerializer();
+
+    /**
+     * Constructor for the CompactRedisSerializer.
+     *
+     * @param compressionThreshold the payload size in bytes above which values are deflated
+     */
+    public CompactRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        this.mapper = createMapper();
+        this.writer = mapper.writerFor(Object.class);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null || value instanceof NullValue) {
+            return new byte[]{MAGIC_0, MAGIC_1, VERSION, FLAG_NULL};
+        }
+
+        byte[] payload;
+        try {
+            payload = writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + value.getClass().getName() + " to the cache", e);
+        }
+
+        byte flags = 0;
+        if (payload.length > compressionThreshold) {
+            payload = deflate(payload);
+            flags |= FLAG_DEFLATED;
+        }
+
+        byte[] bytes = new byte[HEADER_SIZE + payload.length];
+        bytes[0] = MAGIC_0;
+        bytes[1] = MAGIC_1;
+        bytes[2] = VERSION;
+        bytes[3] = flags;
+        System.arraycopy(payload, 0, bytes, HEADER_SIZE, payload.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes.length >= 2 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+                return legacySerializer.deserialize(bytes);
+            }
+            if (bytes.length < HEADER_SIZE || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1 || bytes[2] != VERSION) {
+                logger.debug("Ignoring cache entry with an unknown format");
+                return null;
+            }
+
+            byte flags = bytes[3];
+            if ((flags & FLAG_NULL) != 0) {
+                return NullValue.INSTANCE;
+            }
+            byte[] payload = (flags & FLAG_DEFLATED) != 0
+                    ? inflate(bytes, HEADER_SIZE)
+                    : Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+            return mapper.readValue(payload, Object.class);
+        } catch (IOException | DataFormatException | SerializationException e) {
+            // Usually an entry written by an older version of a class; treat it as a miss
+            logger.debug("Ignoring unreadable cache entry", e);
+            return null;
+        }
+    }
+
+    private byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] bytes, int offset) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated cache entry");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ObjectMapper createMapper() {
+        PolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("org.mindera.fur.code.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType("java.math.")
+                .build();
+
+        ObjectMapper mapper = SmileMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .build();
+        mapper.setDefaultTyping(new CacheTypeResolverBuilder(typeValidator));
+        return mapper;
+    }
+
+    /**
+     * Stores the class name of every non-final value, like {@code DefaultTyping.NON_FINAL},
+     * but with the portable type IDs of {@link PortableClassNameIdResolver}.
+     */
+    private static final class CacheTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+        CacheTypeResolverBuilder(PolymorphicTypeValidator typeValidator) {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, typeValidator);
+            init(JsonTypeInfo.Id.CLASS, null);
+            inclusion(JsonTypeInfo.As.PROPERTY);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                                            PolymorphicTypeValidator subtypeValidator,
+                                            Collection<NamedType> subtypes, boolean forSer, boolean forDeser) {
+            return new PortableClassNameIdResolver(baseType, config.getTypeFactory(), subtypeValidator);
+        }
+    }
+
+    /**
+     * Writes the JDK internal collections ({@code List.of}, {@code Stream.toList}, {@code Collections.unmodifiable*})
+     * as their public mutable counterparts, which Jackson can instantiate when reading them back.
+     */
+    static final class PortableClassNameIdResolver extends ClassNameIdResolver {
+
+        PortableClassNameIdResolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator typeValidator) {
+            super(baseType, typeFactory, typeValidator);
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            return portableId(value, super.idFromValue(value));
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            return portableId(value, super.idFromValueAndType(value, type));
+        }
+
+        static String portableId(Object value, String id) {
+            if (id == null || !isInternalCollection(id)) {
+                return id;
+            }
+            if (value instanceof List<?>) {
+                return "java.util.ArrayList";
+            }
+            if (value instanceof Set<?>) {
+                return "java.util.LinkedHashSet";
+            }
+            if (value instanceof Map<?, ?>) {
+                return "java.util.LinkedHashMap";
+            }
+            return id;
+        }
+
+        private static boolean isInternalCollection(String id) {
+            return id.startsWith("java.util.ImmutableCollections$")
+                    || id.startsWith("java.util.Collections$")
+                    || id.equals("java.util.Arrays$ArrayList");
+        }
+    }
+}
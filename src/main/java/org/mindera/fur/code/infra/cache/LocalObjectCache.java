@@ -0,0 +1,254 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.mindera.fur.code.dto.cache.ObjectCacheStatsDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of objects on the local disk, in front of the object storage.
+ * <p>
+ * Objects are stored one per file, named after a hash of their key and version, and indexed in memory.
+ * The index is kept in access order and the least recently used objects are evicted once the total size
+ * goes over the limit. Files are written to a temporary file and moved into place, so a reader never sees
+ * a partially written object. A lookup with another version of an object, such as a new entity tag,
+ * is a miss and drops the stale file.
+ * </p>
+ * <p>
+ * The index is not persisted: the directory is emptied when the cache is created.
+ * Evicted files that are still being read stay readable until they are closed.
+ * </p>
+ */
+public class LocalObjectCache {
+
+    private static final String SUFFIX = ".obj";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    /**
+     * Creates the cache, emptying its directory.
+     *
+     * @param directory     the directory of the cached files
+     * @param maxBytes      the maximum total size of the cached files
+     * @param maxEntryBytes the maximum size of a single cached file
+     * @throws IOException if the directory cannot be created or emptied
+     */
+    public LocalObjectCache(Path directory, long maxBytes, long maxEntryBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether an object of a size can be cached.
+     *
+     * @param size the size of the object
+     * @return true if the object fits in the cache
+     */
+    public boolean accepts(long size) {
+        return size >= 0 && size <= maxEntryBytes;
+    }
+
+    /**
+     * Looks up an object.
+     *
+     * @param key     the key of the object
+     * @param version the version of the object, such as its entity tag
+     * @return the cached file, or empty on a miss
+     */
+    public Optional<Path> get(String key, String version) {
+        Path stale = null;
+        try {
+            synchronized (this) {
+                Entry entry = index.get(key);
+                if (entry != null && entry.version().equals(version)) {
+                    hits.increment();
+                    return Optional.of(entry.path());
+                }
+                misses.increment();
+                if (entry != null) {
+                    index.remove(key);
+                    totalBytes -= entry.size();
+                    stale = entry.path();
+                }
+            }
+            return Optional.empty();
+        } finally {
+            deleteQuietly(stale);
+        }
+    }
+
+    /**
+     * Stores an object, replacing any other version of it, and evicts the least recently used objects
+     * until the cache fits in its limit again.
+     *
+     * @param key     the key of the object
+     * @param version the version of the object, such as its entity tag
+     * @param content the content of the object, read to the end but not closed
+     * @return the cached file
+     * @throws IOException if the content cannot be read or written
+     */
+    public Path put(String key, String version, InputStream content) throws IOException {
+        Path target = directory.resolve(fileName(key, version));
+        Path temp = Files.createTempFile(directory, "put-", ".tmp");
+        long size;
+        try {
+            size = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+
+        Entry previous;
+        LinkedHashMap<String, Entry> evicted = new LinkedHashMap<>();
+        synchronized (this) {
+            previous = index.put(key, new Entry(version, target, size));
+            totalBytes += size - (previous != null ? previous.size() : 0);
+            Iterator<Map.Entry<String, Entry>> eldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> candidate = eldest.next();
+                if (candidate.getKey().equals(key)) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= candidate.getValue().size();
+                evicted.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+        if (previous != null && !previous.path().equals(target)) {
+            deleteQuietly(previous.path());
+        }
+        evictions.add(evicted.size());
+        evicted.values().forEach(entry -> deleteQuietly(entry.path()));
+        return target;
+    }
+
+    /**
+     * Drops an object, whatever its version.
+     *
+     * @param key the key of the object
+     */
+    public void invalidate(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = index.remove(key);
+            if (entry != null) {
+                totalBytes -= entry.size();
+            }
+        }
+        if (entry != null) {
+            deleteQuietly(entry.path());
+        }
+    }
+
+    /**
+     * Sends a byte range of a cached file with {@link FileChannel#transferTo}, without copying it through the heap.
+     *
+     * @param file   the cached file
+     * @param offset the first byte to send
+     * @param length the number of bytes to send
+     * @param target the channel to send to
+     * @throws IOException if the file cannot be read or the target cannot be written
+     */
+    public void transfer(Path file, long offset, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0 && position >= channel.size()) {
+                    throw new IOException("Cached file is shorter than expected: " + file);
+                }
+                position += sent;
+            }
+        }
+        bytesServed.add(length);
+    }
+
+    /**
+     * Reads a whole cached file.
+     *
+     * @param file the cached file
+     * @return the content of the file
+     * @throws IOException if the file cannot be read
+     */
+    public byte[] read(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        bytesServed.add(data.length);
+        return data;
+    }
+
+    /**
+     * Gets the statistics of the cache.
+     *
+     * @return the size, hit, miss and eviction counters of the cache
+     */
+    public ObjectCacheStatsDTO getStats() {
+        long entries;
+        long bytes;
+        synchronized (this) {
+            entries = index.size();
+            bytes = totalBytes;
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new ObjectCacheStatsDTO(entries, bytes, maxBytes, hitCount, missCount,
+                requests == 0 ? 0 : (double) hitCount / requests, evictions.sum(), bytesServed.sum());
+    }
+
+    private static String fileName(String key, String version) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest((key + "\n" + version).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Entry(String version, Path path, long size) {
+    }
+}
@@ -0,0 +1,234 @@
+package org.mindera.fur.code.infra.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.mindera.fur.code.dto.pet.PetFilterDTO;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Generation counters for the pet list cache regions ("pets", "shelterPets" and "petPages").
+ * <p>
+ * Every cached list is keyed with the current generation of the segment it belongs to
+ * (a shelter, a species, an adopted status, or "all" when the list is not restricted to any of them).
+ * A pet write only bumps the generations of the segments the pet was in before and after the change,
+ * so entries of unaffected segments stay valid. Entries of a bumped segment are simply never read again
+ * and expire through the region TTL, which avoids any KEYS/SCAN sweep on Redis.
+ * </p>
+ * <p>
+ * The counters live in Redis so that every node of the application sees the same generations,
+ * and each node keeps the generations it has read in memory so that stamping a key does not cost a round trip.
+ * A bump is published on {@link TwoTierCacheManager#INVALIDATION_CHANNEL}, and the other nodes drop the bumped
+ * segments so that their next read fetches the new generation from Redis. The local generations are also
+ * read again from Redis after the resync interval, which bounds the staleness if a message is lost.
+ * </p>
+ */
+@Component("petCacheGenerations")
+public class PetCacheGenerations implements MessageListener {
+
+    static final String KEY_PREFIX = "furcode:pet-cache:gen:";
+
+    static final String ALL = "all";
+
+    /**
+     * Cache name of the invalidation messages of the generations, which no {@link TwoTierCache} uses.
+     */
+    static final String INVALIDATION_NAME = "petCacheGenerations";
+
+    private static final Logger logger = LoggerFactory.getLogger(PetCacheGenerations.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, Long> generations;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final byte[] channel = TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    public PetCacheGenerations(StringRedisTemplate redisTemplate,
+                               @Value("${cache.pet-generations.resync-interval:PT30S}") Duration resyncInterval,
+                               @Value("${cache.pet-generations.maximum-size:10000}") long maximumSize) {
+        this.redisTemplate = redisTemplate;
+        this.generations = Caffeine.newBuilder()
+                .expireAfterWrite(resyncInterval)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Cache key of the list of all active pets.
+     *
+     * @return The cache key.
+     */
+    public String allPetsKey() {
+        return stamp(ALL);
+    }
+
+    /**
+     * Cache key of the list of active pets of a shelter.
+     *
+     * @param shelterId The ID of the shelter.
+     * @return The cache key.
+     */
+    public String shelterPetsKey(Long shelterId) {
+        return stamp(shelterSegment(shelterId));
+    }
+
+    /**
+     * Cache key of a page of the pet catalogue.
+     * The page is stamped with the generation of its most selective segmented filter.
+     *
+     * @param filter The filters, cursor and limit of the page.
+     * @return The cache key.
+     */
+    public String pageKey(PetFilterDTO filter) {
+        return stamp(segmentOf(filter))
+                + "|species=" + filter.getSpecies()
+                + "|size=" + filter.getSize()
+                + "|shelter=" + filter.getShelterId()
+                + "|adopted=" + filter.getIsAdopted()
+                + "|vaccinated=" + filter.getIsVaccinated()
+                + "|cursor=" + filter.getCursor()
+                + "|limit=" + filter.getLimit();
+    }
+
+    /**
+     * Bumps the generations of every segment affected by a pet change.
+     *
+     * @param event The pet change.
+     */
+    public void bump(PetChangedEvent event) {
+        bump(segmentsOf(event));
+    }
+
+    /**
+     * Bumps the generations of the given segments and tells the other nodes, in a single round trip.
+     *
+     * @param segments The segments to bump.
+     */
+    public void bump(Collection<String> segments) {
+        List<String> bumped = List.copyOf(segments);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String segment : bumped) {
+                incr(connection, segment);
+            }
+            for (String segment : bumped) {
+                byte[] body = new CacheInvalidationMessage(nodeId, INVALIDATION_NAME, segment).encode()
+                        .getBytes(StandardCharsets.UTF_8);
+                connection.publish(channel, body);
+            }
+            return null;
+        });
+        for (int i = 0; i < bumped.size(); i++) {
+            if (results.get(i) instanceof Long generation) {
+                generations.put(bumped.get(i), generation);
+            } else {
+                generations.invalidate(bumped.get(i));
+            }
+        }
+    }
+
+    /**
+     * Handles a bump published by another node: the bumped segment is read again from Redis on its next use.
+     *
+     * @param message The message.
+     * @param pattern The pattern that matched the channel.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = CacheInvalidationMessage.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (!INVALIDATION_NAME.equals(invalidation.cacheName()) || nodeId.equals(invalidation.nodeId())) {
+            return;
+        }
+        if (invalidation.key() instanceof String segment) {
+            generations.invalidate(segment);
+        } else {
+            generations.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the segments a pet change affects: "all", plus the shelter, species and adopted
+     * status of the pet before and after the change.
+     *
+     * @param event The pet change.
+     * @return The affected segments.
+     */
+    static Set<String> segmentsOf(PetChangedEvent event) {
+        Set<String> segments = new LinkedHashSet<>();
+        segments.add(ALL);
+        addSegments(segments, event.before());
+        addSegments(segments, event.after());
+        return segments;
+    }
+
+    /**
+     * Returns the segment a page filter belongs to.
+     * Any segment the filter is restricted to is correct, since a pet can only enter or leave the page
+     * if it matches every filter; the most selective one is picked so the page survives the most writes.
+     *
+     * @param filter The page filter.
+     * @return The segment of the filter.
+     */
+    static String segmentOf(PetFilterDTO filter) {
+        if (filter.getShelterId() != null) {
+            return shelterSegment(filter.getShelterId());
+        }
+        if (filter.getSpecies() != null) {
+            return "species:" + filter.getSpecies();
+        }
+        if (filter.getIsAdopted() != null) {
+            return "adopted:" + filter.getIsAdopted();
+        }
+        return ALL;
+    }
+
+    private static void addSegments(Set<String> segments, PetSnapshot pet) {
+        if (pet == null) {
+            return;
+        }
+        segments.add(shelterSegment(pet.shelterId()));
+        segments.add("species:" + pet.species());
+        segments.add("adopted:" + pet.isAdopted());
+    }
+
+    private static String shelterSegment(Long shelterId) {
+        return "shelter:" + shelterId;
+    }
+
+    private String stamp(String segment) {
+        return segment + "@" + generations.get(segment, this::load);
+    }
+
+    private Long load(String segment) {
+        String generation = redisTemplate.opsForValue().get(KEY_PREFIX + segment);
+        return generation != null ? Long.valueOf(generation) : 0L;
+    }
+
+    private static void incr(RedisConnection connection, String segment) {
+        connection.stringCommands().incr((KEY_PREFIX + segment).getBytes(StandardCharsets.UTF_8));
+    }
+}
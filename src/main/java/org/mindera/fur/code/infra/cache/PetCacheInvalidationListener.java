@@ -0,0 +1,40 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bumps the pet cache generations once a pet change is committed.
+ * Bumping after commit guarantees that a reader that sees the new generation also sees the new data.
+ */
+@Component
+public class PetCacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetCacheInvalidationListener.class);
+
+    private final PetCacheGenerations petCacheGenerations;
+
+    @Autowired
+    public PetCacheInvalidationListener(PetCacheGenerations petCacheGenerations) {
+        this.petCacheGenerations = petCacheGenerations;
+    }
+
+    /**
+     * Handles a committed pet change.
+     *
+     * @param event The pet change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        try {
+            petCacheGenerations.bump(event);
+        } catch (RuntimeException e) {
+            logger.warn("Could not bump pet cache generations for pet {}", event.petId(), e);
+        }
+    }
+}
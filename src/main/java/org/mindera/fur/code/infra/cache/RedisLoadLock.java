@@ -0,0 +1,87 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Short-lived Redis lock that lets a single node load a missing cache entry while the others wait for it.
+ * <p>
+ * The lock fails open: if Redis cannot be reached, the caller loads the value itself,
+ * which is what would happen without the lock.
+ * </p>
+ */
+public class RedisLoadLock {
+
+    private static final String KEY_PREFIX = "furcode:cache:lock:";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLoadLock.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    /**
+     * Constructor for the RedisLoadLock.
+     *
+     * @param redisTemplate the Redis template
+     * @param ttl           how long the lock is held at most, if its owner never releases it
+     */
+    public RedisLoadLock(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns how long the lock is held at most.
+     *
+     * @return The TTL of the lock.
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Tries to acquire the lock of a cache entry, with {@code SET NX PX}.
+     *
+     * @param cacheName The name of the cache.
+     * @param key       The key of the entry.
+     * @param token     A token unique to the caller, needed to release the lock.
+     * @return true if the lock was acquired, or if Redis could not be reached.
+     */
+    public boolean tryAcquire(String cacheName, Object key, String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), token, ttl));
+        } catch (RuntimeException e) {
+            logger.warn("Could not acquire cache load lock for {}::{}, loading without it", cacheName, key, e);
+            return true;
+        }
+    }
+
+    /**
+     * Releases the lock of a cache entry, if it is still owned by the caller.
+     *
+     * @param cacheName The name of the cache.
+     * @param key       The key of the entry.
+     * @param token     The token used to acquire the lock.
+     */
+    public void release(String cacheName, Object key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey(cacheName, key)), token);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release cache load lock for {}::{}", cacheName, key, e);
+        }
+    }
+
+    private static String lockKey(String cacheName, Object key) {
+        return KEY_PREFIX + cacheName + "::" + key;
+    }
+}
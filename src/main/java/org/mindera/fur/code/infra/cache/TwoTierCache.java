@@ -0,0 +1,380 @@
+package org.mindera.fur.code.infra.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.mindera.fur.code.dto.cache.CacheStatsDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache with an in-process Caffeine tier (L1) in front of a shared Redis tier (L2).
+ * <p>
+ * Reads are served from L1 when possible and fall back to L2, promoting the value into L1.
+ * Writes go to both tiers and are broadcast, so the other nodes drop the entry from their L1.
+ * </p>
+ * <p>
+ * Loads through {@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)}) are single-flight:
+ * concurrent misses on the same key wait for one computation, within the node through a shared future
+ * and across nodes through a short {@link RedisLoadLock}. In caches with a Redis TTL, entries are also
+ * refreshed before they expire with probability growing as the expiry gets closer (XFetch), so the entry
+ * is recomputed by one caller instead of by every caller at the moment it expires.
+ * </p>
+ * <p>
+ * <b>Note:</b> L1 hands out the same instance to every caller, so cached values must not be modified.
+ * </p>
+ */
+public class TwoTierCache implements Cache {
+
+    private static final long LOCK_POLL_INTERVAL_MILLIS = 25;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final TwoTierCacheManager cacheManager;
+    private final RedisLoadLock loadLock;
+    private final Duration remoteTtl;
+    private final double earlyRefreshBeta;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    TwoTierCache(String name,
+                 com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                 Cache remote,
+                 TwoTierCacheManager cacheManager,
+                 RedisLoadLock loadLock,
+                 Duration remoteTtl,
+                 double earlyRefreshBeta) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.cacheManager = cacheManager;
+        this.loadLock = loadLock;
+        this.remoteTtl = remoteTtl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object stored = lookup(key);
+        return stored != null ? new SimpleValueWrapper(unwrap(stored)) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = lookup(key);
+        if (stored == null) {
+            return (T) unwrap(load(key, valueLoader, null));
+        }
+        if (shouldRefreshEarly(stored) && !inFlight.containsKey(key)) {
+            earlyRefreshes.increment();
+            return (T) unwrap(load(key, valueLoader, stored));
+        }
+        return (T) unwrap(stored);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = wrap(value, 0);
+        remote.put(key, stored);
+        local.put(key, toStoreValue(stored));
+        cacheManager.publishInvalidation(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = wrap(value, 0);
+        ValueWrapper existing = remote.putIfAbsent(key, stored);
+        if (existing == null) {
+            local.put(key, toStoreValue(stored));
+            cacheManager.publishInvalidation(name, key);
+            return null;
+        }
+        local.put(key, toStoreValue(existing.get()));
+        return new SimpleValueWrapper(unwrap(existing.get()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        cacheManager.publishInvalidation(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        local.invalidate(key);
+        cacheManager.publishInvalidation(name, key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        cacheManager.publishInvalidation(name, null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.invalidateAll();
+        cacheManager.publishInvalidation(name, null);
+        return invalidated;
+    }
+
+    /**
+     * Drops an entry from L1 only, after another node changed it.
+     *
+     * @param key The key of the entry, or null to drop every entry.
+     */
+    void evictLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of both tiers.
+     *
+     * @return The statistics of the cache.
+     */
+    CacheStatsDTO stats() {
+        CacheStats localStats = local.stats();
+        long weight = local.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new CacheStatsDTO(
+                name,
+                local.estimatedSize(),
+                weight,
+                localStats.hitCount(),
+                localStats.missCount(),
+                localStats.evictionCount(),
+                remoteHits.sum(),
+                remoteMisses.sum(),
+                loads.sum(),
+                earlyRefreshes.sum()
+        );
+    }
+
+    /**
+     * Weighs a value for the L1 size bound: collections weigh their number of elements,
+     * other values weigh one unless they implement {@link CacheWeighted}.
+     *
+     * @param key   The key of the entry.
+     * @param value The value of the entry.
+     * @return The weight of the entry.
+     */
+    static int weigh(Object key, Object value) {
+        Object unwrapped = value instanceof CacheEnvelope envelope ? envelope.value() : value;
+        int weight = 1;
+        if (unwrapped instanceof CacheWeighted weighted) {
+            weight = weighted.cacheWeight();
+        } else if (unwrapped instanceof Collection<?> collection) {
+            weight = collection.size();
+        } else if (unwrapped instanceof Map<?, ?> map) {
+            weight = map.size();
+        }
+        return Math.max(1, weight);
+    }
+
+    /**
+     * XFetch: refresh when {@code now - computeTime * beta * ln(random)} reaches the expiry.
+     * Entries that are expensive to compute, or close to expiring, are refreshed earlier.
+     *
+     * @param stored The stored value.
+     * @return true if the caller should recompute the value now.
+     */
+    boolean shouldRefreshEarly(Object stored) {
+        if (!(stored instanceof CacheEnvelope envelope) || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -envelope.computeMillis() * earlyRefreshBeta * Math.log(random);
+        return System.currentTimeMillis() + gap >= envelope.expiresAtMillis();
+    }
+
+    /**
+     * Returns the stored value (possibly an envelope or {@link NullValue}) from L1, then L2.
+     *
+     * @param key The key of the entry.
+     * @return The stored value, or null on a miss.
+     */
+    private Object lookup(Object key) {
+        Object stored = local.getIfPresent(key);
+        if (stored != null) {
+            return stored;
+        }
+        return lookupRemote(key);
+    }
+
+    private Object lookupRemote(Object key) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        Object stored = toStoreValue(wrapper.get());
+        local.put(key, stored);
+        return stored;
+    }
+
+    /**
+     * Loads a value once per key on this node; other callers for the same key wait for the same future.
+     *
+     * @param key         The key of the entry.
+     * @param valueLoader The loader of the value.
+     * @param current     The current stored value when refreshing early, null on a miss.
+     * @return The stored value.
+     */
+    private Object load(Object key, Callable<?> valueLoader, Object current) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            Object stored = loadWithRemoteLock(key, valueLoader, current);
+            future.complete(stored);
+            return stored;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Loads a value once across nodes: the node holding the lock computes it, the others poll L2.
+     * When refreshing early and another node holds the lock, the current value is kept.
+     * A node waits at most the lock TTL, then computes the value itself.
+     */
+    private Object loadWithRemoteLock(Object key, Callable<?> valueLoader, Object current) {
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + loadLock.getTtl().toMillis();
+
+        while (true) {
+            if (loadLock.tryAcquire(name, key, token)) {
+                try {
+                    return compute(key, valueLoader);
+                } finally {
+                    loadLock.release(name, key, token);
+                }
+            }
+            if (current != null) {
+                return current;
+            }
+
+            Object stored = lookupRemote(key);
+            if (stored != null) {
+                return stored;
+            }
+            if (System.currentTimeMillis() >= deadline || !pause()) {
+                return compute(key, valueLoader);
+            }
+        }
+    }
+
+    private Object compute(Object key, Callable<?> valueLoader) {
+        loads.increment();
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long computeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        Object stored = wrap(value, computeMillis);
+        remote.put(key, stored);
+        local.put(key, toStoreValue(stored));
+        cacheManager.publishInvalidation(name, key);
+        return toStoreValue(stored);
+    }
+
+    private Object wrap(Object value, long computeMillis) {
+        if (value == null || remoteTtl == null || earlyRefreshBeta <= 0) {
+            return value;
+        }
+        return new CacheEnvelope(value, computeMillis, System.currentTimeMillis() + remoteTtl.toMillis());
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(LOCK_POLL_INTERVAL_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Object unwrap(Object stored) {
+        Object value = stored instanceof CacheEnvelope envelope ? envelope.value() : stored;
+        return value == NullValue.INSTANCE ? null : value;
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value != null ? value : NullValue.INSTANCE;
+    }
+}
@@ -0,0 +1,163 @@
+package org.mindera.fur.code.infra.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.mindera.fur.code.dto.cache.CacheStatsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache manager that puts a bounded in-process Caffeine cache (L1) in front of every cache
+ * of a Redis cache manager (L2).
+ * <p>
+ * Every write is published on {@link #INVALIDATION_CHANNEL}; the other nodes drop the entry from their L1
+ * and read it again from Redis on the next access. The L1 TTL bounds the staleness if a message is lost.
+ * Messages are plain text parsed field by field (see {@link CacheInvalidationMessage}), never deserialized as objects.
+ * </p>
+ * <p>
+ * Caches with a Redis TTL store their values in a {@link CacheEnvelope} to support early refresh.
+ * </p>
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "furcode:cache:invalidation";
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final long localMaximumWeight;
+    private final Duration localTtl;
+    private final Map<String, Duration> remoteTtls;
+    private final double earlyRefreshBeta;
+    private final RedisLoadLock loadLock;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final byte[] channel = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for the TwoTierCacheManager.
+     *
+     * @param remoteCacheManager the Redis cache manager
+     * @param redisTemplate      the template used to publish invalidations
+     * @param localMaximumWeight the maximum weight of each in-process cache
+     * @param localTtl           the time to live of the entries of the in-process caches
+     * @param remoteTtls         the time to live of the entries in Redis, per cache name, for the caches that have one
+     * @param earlyRefreshBeta   the XFetch beta; higher refreshes earlier, 0 disables early refresh
+     * @param loadLockTtl        how long a node may hold the lock to load a missing entry
+     */
+    public TwoTierCacheManager(CacheManager remoteCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               long localMaximumWeight,
+                               Duration localTtl,
+                               Map<String, Duration> remoteTtls,
+                               double earlyRefreshBeta,
+                               Duration loadLockTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localMaximumWeight = localMaximumWeight;
+        this.localTtl = localTtl;
+        this.remoteTtls = Map.copyOf(remoteTtls);
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadLock = new RedisLoadLock(redisTemplate, loadLockTtl);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    /**
+     * Returns the statistics of every cache created so far.
+     *
+     * @return The statistics of the caches, sorted by name.
+     */
+    public List<CacheStatsDTO> getStats() {
+        return caches.values().stream()
+                .map(TwoTierCache::stats)
+                .sorted(Comparator.comparing(CacheStatsDTO::getCacheName))
+                .toList();
+    }
+
+    /**
+     * Handles an invalidation published by another node.
+     *
+     * @param message The message.
+     * @param pattern The pattern that matched the channel.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = CacheInvalidationMessage.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (nodeId.equals(invalidation.nodeId())) {
+            return;
+        }
+
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+
+    /**
+     * Tells the other nodes to drop an entry from their in-process cache.
+     * A failure only delays the invalidation until the L1 TTL, so it is logged and not propagated.
+     *
+     * @param cacheName The name of the cache.
+     * @param key       The key of the entry, or null when the whole cache was cleared.
+     */
+    void publishInvalidation(String cacheName, Object key) {
+        try {
+            byte[] body = new CacheInvalidationMessage(nodeId, cacheName, key).encode().getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (RuntimeException e) {
+            logger.warn("Could not publish cache invalidation for {}::{}", cacheName, key, e);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        // A region with a shorter TTL in Redis is not kept longer in process
+        Duration remoteTtl = remoteTtls.get(name);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumWeight(localMaximumWeight)
+                .weigher(TwoTierCache::weigh)
+                .expireAfterWrite(remoteTtl != null && remoteTtl.compareTo(localTtl) < 0 ? remoteTtl : localTtl)
+                .recordStats()
+                .build();
+        return new TwoTierCache(name, local, remote, this, loadLock, remoteTtl, earlyRefreshBeta);
+    }
+}
@@ -0,0 +1,128 @@
+package org.mindera.fur.code.infra.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetReplicatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Relays committed pet changes to the other nodes over Redis pub/sub,
+ * where they are published again as {@link PetReplicatedEvent}.
+ * <p>
+ * Pub/sub does not retry, so the listeners of the replicated events must tolerate a lost message,
+ * for example by rebuilding their state periodically.
+ * </p>
+ * <p>
+ * Messages are JSON mapped onto {@link RelayedPetChange}, never deserialized as arbitrary objects;
+ * anything that does not parse into a complete change is ignored.
+ * </p>
+ */
+@Component
+public class PetChangedRelay implements MessageListener {
+
+    public static final String CHANNEL = "furcode:pet:changed";
+
+    private static final Logger logger = LoggerFactory.getLogger(PetChangedRelay.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    public PetChangedRelay(StringRedisTemplate redisTemplate,
+                           RedisMessageListenerContainer listenerContainer,
+                           ApplicationEventPublisher eventPublisher,
+                           ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Publishes a committed pet change to the other nodes.
+     *
+     * @param event The pet change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new RelayedPetChange(nodeId, event));
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not relay the change of pet {}", event.petId(), e);
+        }
+    }
+
+    /**
+     * Handles a pet change relayed by another node.
+     *
+     * @param message The message.
+     * @param pattern The pattern that matched the channel.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RelayedPetChange relayed;
+        try {
+            relayed = objectMapper.readValue(message.getBody(), RelayedPetChange.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring malformed pet change message", e);
+            return;
+        }
+        if (relayed == null || !relayed.isComplete()) {
+            logger.warn("Ignoring incomplete pet change message");
+            return;
+        }
+        if (nodeId.equals(relayed.nodeId())) {
+            return;
+        }
+        eventPublisher.publishEvent(new PetReplicatedEvent(relayed.change()));
+    }
+
+    /**
+     * The message sent over Redis.
+     *
+     * @param nodeId The ID of the node that made the change.
+     * @param change The pet change.
+     */
+    record RelayedPetChange(String nodeId, PetChangedEvent change) {
+
+        /**
+         * Returns whether the message names its node and a pet that has a state and an ID.
+         *
+         * @return true if the message can be relayed.
+         */
+        boolean isComplete() {
+            if (nodeId == null || change == null || (change.before() == null && change.after() == null)) {
+                return false;
+            }
+            return change.petId() != null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.mindera.fur.code.infra.minio;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.errors.*;
+import io.minio.messages.Part;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Exposes the low-level S3 multipart upload calls, which {@link io.minio.MinioClient} only uses internally.
+ * <p>
+ * They let an upload be split into parts sent in separate requests, in any order and in parallel,
+ * and assembled into one object once every part has arrived.
+ * </p>
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * Starts a multipart upload.
+     *
+     * @param bucket      The bucket.
+     * @param object      The key of the object to assemble.
+     * @param contentType The content type of the object.
+     * @return The ID of the upload.
+     */
+    public String createUpload(String bucket, String object, String contentType)
+            throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException,
+            InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        Multimap<String, String> headers = ImmutableMultimap.of("Content-Type", contentType);
+        return await(createMultipartUploadAsync(bucket, null, object, headers, null)).result().uploadId();
+    }
+
+    /**
+     * Uploads one part. Uploading a part again replaces it.
+     *
+     * @param bucket     The bucket.
+     * @param object     The key of the object to assemble.
+     * @param uploadId   The ID of the upload.
+     * @param partNumber The number of the part, from 1.
+     * @param data       The content of the part, read to its length.
+     * @param length     The length of the part.
+     * @return The entity tag of the part.
+     */
+    public String uploadPart(String bucket, String object, String uploadId, int partNumber, InputStream data, long length)
+            throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException,
+            InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        return await(uploadPartAsync(bucket, null, object, data, length, uploadId, partNumber, null, null)).etag();
+    }
+
+    /**
+     * Assembles the uploaded parts into the object.
+     *
+     * @param bucket   The bucket.
+     * @param object   The key of the object to assemble.
+     * @param uploadId The ID of the upload.
+     * @param parts    The numbers and entity tags of the parts, in order.
+     */
+    public void completeUpload(String bucket, String object, String uploadId, Part[] parts)
+            throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException,
+            InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        await(completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null));
+    }
+
+    /**
+     * Aborts a multipart upload and frees its parts.
+     *
+     * @param bucket   The bucket.
+     * @param object   The key of the object to assemble.
+     * @param uploadId The ID of the upload.
+     */
+    public void abortUpload(String bucket, String object, String uploadId)
+            throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException,
+            InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        await(abortMultipartUploadAsync(bucket, null, object, uploadId, null, null));
+    }
+
+    /**
+     * Waits for a call, throwing the Minio exception it failed with, as {@link io.minio.MinioClient} does.
+     *
+     * @param future The pending call.
+     * @return The response of the call.
+     */
+    private <T> T await(CompletableFuture<T> future)
+            throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException,
+            InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Minio");
+        } catch (ExecutionException e) {
+            throwEncapsulatedException(e);
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.mindera.fur.code.infra.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory token bucket, for when Redis is unavailable.
+ * <p>
+ * The bucket is kept as its theoretical arrival time (GCRA): the time at which it would be full again.
+ * Every request moves it one interval ({@code period / capacity}) later, and a request is rejected if that would
+ * put it more than one period ahead of now. This allows the same bursts as a token bucket, with a single
+ * {@link AtomicLong} updated by compare-and-set instead of a lock.
+ * </p>
+ */
+public class LocalTokenBucket {
+
+    private final long capacity;
+    private final long periodMicros;
+    private final long intervalMicros;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity The number of requests allowed in a burst.
+     * @param period   How long an empty bucket takes to refill.
+     */
+    public LocalTokenBucket(long capacity, Duration period) {
+        this.capacity = capacity;
+        this.periodMicros = period.toNanos() / 1000;
+        this.intervalMicros = intervalMicros(capacity, period);
+    }
+
+    /**
+     * Takes a token from the bucket.
+     *
+     * @param nowMicros The current time, in microseconds.
+     * @return The decision.
+     */
+    public RateLimitDecision tryAcquire(long nowMicros) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long start = Math.max(current, nowMicros);
+            long next = start + intervalMicros;
+            long retryAfter = next - nowMicros - periodMicros;
+            if (retryAfter > 0) {
+                return decision(false, 0, start - nowMicros, retryAfter);
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                long remaining = (periodMicros - (next - nowMicros)) / intervalMicros;
+                return decision(true, remaining, next - nowMicros, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the time between two tokens, in microseconds.
+     *
+     * @param capacity The number of requests allowed in a burst.
+     * @param period   How long an empty bucket takes to refill.
+     * @return The interval, at least one microsecond.
+     */
+    static long intervalMicros(long capacity, Duration period) {
+        return Math.max(1, period.toNanos() / 1000 / capacity);
+    }
+
+    private RateLimitDecision decision(boolean allowed, long remaining, long resetMicros, long retryAfterMicros) {
+        return new RateLimitDecision(allowed, capacity, remaining,
+                Duration.ofNanos(resetMicros * 1000), Duration.ofNanos(retryAfterMicros * 1000));
+    }
+}
@@ -0,0 +1,15 @@
+package org.mindera.fur.code.infra.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * The outcome of taking a token from a bucket.
+ *
+ * @param allowed    Whether the request is allowed.
+ * @param limit      The capacity of the bucket.
+ * @param remaining  The number of requests still allowed right away.
+ * @param reset      How long until the bucket is full again.
+ * @param retryAfter How long until the next request is allowed, zero if the request is allowed.
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, Duration reset, Duration retryAfter) {
+}
@@ -0,0 +1,122 @@
+package org.mindera.fur.code.infra.ratelimit;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
+import org.mindera.fur.code.infra.security.AuthenticatedPrincipal;
+import org.mindera.fur.code.messages.token.TokenMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limits the requests matching the {@code rate-limit.rules}, with one token bucket per rule and per
+ * person, or per client IP for anonymous requests and IP rules.
+ * <p>
+ * Runs after the {@code SecurityFilter}, so the principal is known. Every limited response carries the
+ * {@code RateLimit-Policy}, {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset}
+ * headers; a rejected request is answered by the {@code ExceptionAspect} with a 429 and a {@code Retry-After}.
+ * </p>
+ */
+@Schema(description = "Rate limit filter")
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final boolean enabled;
+    private final List<CompiledRule> rules;
+
+    @Autowired
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           RateLimitProperties properties,
+                           @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.rateLimiter = rateLimiter;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.enabled = properties.enabled();
+        this.rules = properties.rules().stream()
+                .map(rule -> new CompiledRule(rule, PathPatternParser.defaultInstance.parse(rule.pattern())))
+                .toList();
+    }
+
+    /**
+     * Takes a token from the bucket of the first matching rule, and rejects the request if there is none left.
+     *
+     * @param request     The request
+     * @param response    The response
+     * @param filterChain The filter chain
+     * @throws ServletException The servlet exception
+     * @throws IOException      The io exception
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitProperties.Rule rule = enabled ? match(request) : null;
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitDecision decision = rateLimiter.tryAcquire(rule, key(rule, request));
+        response.setHeader("RateLimit-Policy", rule.capacity() + ";w=" + rule.period().toSeconds());
+        response.setHeader("RateLimit-Limit", Long.toString(decision.limit()));
+        response.setHeader("RateLimit-Remaining", Long.toString(decision.remaining()));
+        response.setHeader("RateLimit-Reset", Long.toString(ceilSeconds(decision.reset())));
+
+        if (!decision.allowed()) {
+            Duration retryAfter = Duration.ofSeconds(ceilSeconds(decision.retryAfter()));
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new TooManyRequestsException(TokenMessage.TOO_MANY_REQUESTS, retryAfter));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Finds the first rule matching a request.
+     *
+     * @param request The request
+     * @return The rule, or null if no rule matches
+     */
+    RateLimitProperties.Rule match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (CompiledRule compiled : rules) {
+            String method = compiled.rule().method();
+            if ((method == null || method.equalsIgnoreCase(request.getMethod())) && compiled.pattern().matches(path)) {
+                return compiled.rule();
+            }
+        }
+        return null;
+    }
+
+    private static String key(RateLimitProperties.Rule rule, HttpServletRequest request) {
+        if (rule.key() == RateLimitProperties.KeyType.PRINCIPAL
+                && request.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE) instanceof AuthenticatedPrincipal principal) {
+            return "person:" + principal.id();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long ceilSeconds(Duration duration) {
+        long seconds = duration.toSeconds();
+        return duration.toNanosPart() > 0 ? seconds + 1 : seconds;
+    }
+
+    private record CompiledRule(RateLimitProperties.Rule rule, PathPattern pattern) {
+    }
+}
@@ -0,0 +1,58 @@
+package org.mindera.fur.code.infra.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The rate limits, bound from the {@code rate-limit.*} properties.
+ *
+ * @param enabled             Whether requests are rate limited at all.
+ * @param localMaximumSize    The maximum number of buckets kept in memory while Redis is unavailable.
+ * @param redisRetryInterval  How long Redis is skipped after it failed, before it is tried again.
+ * @param rules               The rules, the first matching one applies to a request.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100000") long localMaximumSize,
+                                  @DefaultValue("PT5S") Duration redisRetryInterval,
+                                  List<Rule> rules) {
+
+    public RateLimitProperties {
+        rules = rules != null ? List.copyOf(rules) : List.of();
+    }
+
+    /**
+     * A token bucket applied to the requests matching a pattern.
+     *
+     * @param name     The name of the rule, part of the bucket keys.
+     * @param method   The HTTP method of the matching requests, or null for any method.
+     * @param pattern  The path pattern of the matching requests, such as {@code /api/v1/pet/*}{@code /new-description}.
+     * @param capacity The number of requests allowed in a burst.
+     * @param period   How long an empty bucket takes to refill.
+     * @param key      Whom a bucket belongs to.
+     */
+    public record Rule(String name,
+                       String method,
+                       String pattern,
+                       long capacity,
+                       Duration period,
+                       @DefaultValue("PRINCIPAL") KeyType key) {
+    }
+
+    /**
+     * Whom a bucket belongs to.
+     */
+    public enum KeyType {
+        /**
+         * The authenticated person, or the client IP for anonymous requests.
+         */
+        PRINCIPAL,
+        /**
+         * The client IP.
+         */
+        IP
+    }
+}
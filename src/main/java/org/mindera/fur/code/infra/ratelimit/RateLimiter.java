@@ -0,0 +1,115 @@
+package org.mindera.fur.code.infra.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Takes tokens from the rate limit buckets, shared by every node through Redis.
+ * <p>
+ * Each bucket is a single Redis key holding its theoretical arrival time, updated by a Lua script so that
+ * concurrent requests on different nodes see each other; the script reads the Redis clock, so the nodes
+ * do not need synchronized clocks. See {@link LocalTokenBucket} for the algorithm.
+ * </p>
+ * <p>
+ * If Redis fails, buckets are kept in memory on each node until {@code rate-limit.redis-retry-interval} has passed,
+ * so a Redis outage loosens the limits by the number of nodes instead of disabling them.
+ * </p>
+ */
+@Schema(description = "Rate limiter")
+@Service
+public class RateLimiter {
+
+    static final String KEY_PREFIX = "furcode:rate-limit:";
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local interval = tonumber(ARGV[1])
+            local period = tonumber(ARGV[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or '0')
+            if tat < now then tat = now end
+            local new_tat = tat + interval
+            local retry_after = new_tat - now - period
+            if retry_after > 0 then
+                return {0, 0, tat - now, retry_after}
+            end
+            redis.call('SET', KEYS[1], string.format('%.0f', new_tat), 'PX', math.ceil((new_tat - now) / 1000))
+            return {1, math.floor((period - (new_tat - now)) / interval), new_tat - now, 0}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration redisRetryInterval;
+    private final LongSupplier clock;
+    private final Cache<String, LocalTokenBucket> localBuckets;
+
+    private volatile long redisRetryAt = Long.MIN_VALUE;
+
+    @Autowired
+    public RateLimiter(StringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        this(redisTemplate, properties, () -> System.nanoTime() / 1000);
+    }
+
+    RateLimiter(StringRedisTemplate redisTemplate, RateLimitProperties properties, LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.redisRetryInterval = properties.redisRetryInterval();
+        this.clock = clock;
+        Duration longestPeriod = properties.rules().stream()
+                .map(RateLimitProperties.Rule::period)
+                .max(Duration::compareTo)
+                .orElse(Duration.ofMinutes(1));
+        this.localBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.localMaximumSize())
+                .expireAfterAccess(longestPeriod)
+                .build();
+    }
+
+    /**
+     * Takes a token from a bucket of a rule.
+     *
+     * @param rule The rule.
+     * @param key  Whom the bucket belongs to, such as {@code person:42} or {@code ip:10.0.0.1}.
+     * @return The decision.
+     */
+    public RateLimitDecision tryAcquire(RateLimitProperties.Rule rule, String key) {
+        String bucketKey = KEY_PREFIX + rule.name() + ":" + key;
+        long now = clock.getAsLong();
+        if (now >= redisRetryAt) {
+            try {
+                return tryAcquireShared(rule, bucketKey);
+            } catch (RuntimeException e) {
+                redisRetryAt = now + redisRetryInterval.toNanos() / 1000;
+                logger.warn("Could not reach Redis for rate limiting, limiting locally for {}", redisRetryInterval, e);
+            }
+        }
+        return localBuckets.get(bucketKey, k -> new LocalTokenBucket(rule.capacity(), rule.period())).tryAcquire(now);
+    }
+
+    private RateLimitDecision tryAcquireShared(RateLimitProperties.Rule rule, String bucketKey) {
+        List<?> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(bucketKey),
+                Long.toString(LocalTokenBucket.intervalMicros(rule.capacity(), rule.period())),
+                Long.toString(rule.period().toNanos() / 1000));
+        if (result == null || result.size() != 4) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        return new RateLimitDecision(
+                ((Number) result.get(0)).longValue() == 1,
+                rule.capacity(),
+                ((Number) result.get(1)).longValue(),
+                Duration.ofNanos(((Number) result.get(2)).longValue() * 1000),
+                Duration.ofNanos(((Number) result.get(3)).longValue() * 1000));
+    }
+}
@@ -0,0 +1,59 @@
+package org.mindera.fur.code.infra.security;
+
+import org.mindera.fur.code.model.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The authenticated person, as needed to authorize a request: an immutable snapshot instead of the {@code Person}
+ * entity, so it can be cached and shared between requests.
+ *
+ * @param id           The ID of the person.
+ * @param email        The email of the person, the subject of their tokens.
+ * @param role         The role of the person.
+ * @param tokenVersion The token version of the person: tokens issued with another version are revoked.
+ * @param authorities  The authorities granted by the role.
+ * @param shelterRoles The role of the person in each shelter they belong to, by shelter ID.
+ */
+public record AuthenticatedPrincipal(Long id,
+                                     String email,
+                                     Role role,
+                                     long tokenVersion,
+                                     List<String> authorities,
+                                     Map<Long, Role> shelterRoles) implements Serializable {
+
+    /**
+     * The request attribute holding the principal once the request is authenticated.
+     */
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedPrincipal.class.getName();
+
+    public AuthenticatedPrincipal {
+        authorities = List.copyOf(authorities);
+        shelterRoles = Map.copyOf(shelterRoles);
+    }
+
+    /**
+     * Returns the authorities of the person, for Spring Security.
+     *
+     * @return The granted authorities.
+     */
+    public List<GrantedAuthority> grantedAuthorities() {
+        return authorities.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    /**
+     * Returns the role of the person in a shelter.
+     *
+     * @param shelterId The ID of the shelter.
+     * @return The role, or null if the person does not belong to the shelter.
+     */
+    public Role shelterRole(Long shelterId) {
+        return shelterRoles.get(shelterId);
+    }
+}
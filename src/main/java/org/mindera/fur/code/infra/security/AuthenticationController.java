@@ -1,10 +1,12 @@
 package org.mindera.fur.code.infra.security;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.mindera.fur.code.dto.person.LoginResponseDTO;
 import org.mindera.fur.code.dto.person.PersonAuthenticationDTO;
 import org.mindera.fur.code.dto.person.PersonDTO;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
 import org.mindera.fur.code.mapper.PersonMapper;
 import org.mindera.fur.code.messages.token.TokenMessage;
 import org.mindera.fur.code.model.Person;
@@ -13,7 +15,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -29,6 +30,9 @@ public class AuthenticationController {
     private final AuthenticationManager authenticationManager;
     private final PersonRepository personRepository;
     private final PersonMapper personMapper;
+    private final PrincipalService principalService;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Authentication controller constructor.
@@ -37,53 +41,75 @@ public class AuthenticationController {
      * @param authenticationManager
      * @param personRepository
      * @param personMapper
+     * @param principalService
+     * @param passwordHasher
+     * @param loginThrottle
      */
 
     @Autowired
     public AuthenticationController(TokenService tokenService,
                                     AuthenticationManager authenticationManager,
                                     PersonRepository personRepository,
-                                    PersonMapper personMapper) {
+                                    PersonMapper personMapper,
+                                    PrincipalService principalService,
+                                    PasswordHasher passwordHasher,
+                                    LoginThrottle loginThrottle) {
         this.tokenService = tokenService;
         this.authenticationManager = authenticationManager;
         this.personRepository = personRepository;
         this.personMapper = personMapper;
+        this.principalService = principalService;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
      * Login a person.
      *
      * @param personAuthenticationDTO
+     * @param request
      * @return
      */
 
     @Schema(description = "Login a person")
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDTO> login(@RequestBody @Valid PersonAuthenticationDTO personAuthenticationDTO) {
+    public ResponseEntity<LoginResponseDTO> login(@RequestBody @Valid PersonAuthenticationDTO personAuthenticationDTO,
+                                                  HttpServletRequest request) {
         try {
             if (personAuthenticationDTO.getEmail() == null || personAuthenticationDTO.getPassword() == null) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, TokenMessage.INVALID_EMAIL_OR_PASSWORD);
             }
 
-            Person person = personRepository.findByEmail(personAuthenticationDTO.getEmail());
+            String email = personAuthenticationDTO.getEmail();
+            String ip = request.getRemoteAddr();
+            loginThrottle.reserveLogin(email, ip);
+
+            Person person = personRepository.findByEmail(email);
 
             if (person == null) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, TokenMessage.INVALID_EMAIL_OR_PASSWORD);
             }
 
-            BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-            if (!passwordEncoder.matches(personAuthenticationDTO.getPassword(), person.getPassword())) {
+            if (!passwordHasher.matches(personAuthenticationDTO.getPassword(), person.getPassword())) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, TokenMessage.INVALID_EMAIL_OR_PASSWORD);
             }
 
+            loginThrottle.recordSuccess(email, ip);
+            passwordHasher.rehash(personAuthenticationDTO.getPassword(), person.getPassword()).ifPresent(hash -> {
+                person.setPassword(hash);
+                personRepository.save(person);
+            });
+
             PersonDTO personDTO = personMapper.toDTO(person);
 
-            String token = tokenService.generateToken(personDTO);
+            String token = tokenService.generateToken(principalService.loadByEmail(person.getEmail()));
 
             LoginResponseDTO response = LoginResponseDTO.create(personDTO, token);
 
             return new ResponseEntity<>(response, HttpStatus.OK);
 
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             return new ResponseEntity<>(LoginResponseDTO.create(null, TokenMessage.INVALID_EMAIL_OR_PASSWORD), HttpStatus.BAD_REQUEST);
         }
@@ -0,0 +1,173 @@
+package org.mindera.fur.code.infra.security;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
+import org.mindera.fur.code.messages.token.TokenMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Throttles logins and registrations before any password is hashed.
+ * <p>
+ * Login attempts are counted per email and per client IP in fixed windows of {@code security.login.throttle.window},
+ * in Redis so the limits hold across nodes. An attempt is counted atomically before its password is checked,
+ * so a burst of parallel attempts cannot all pass the check before any of them fails.
+ * Once an email or an IP goes over its limit, its logins are rejected with a 429 until the window ends;
+ * a successful login resets the count of its email and gives its attempt back to its IP.
+ * Registrations are counted per client IP in the same windows.
+ * </p>
+ * <p>
+ * If Redis cannot be reached, requests are let through.
+ * </p>
+ */
+@Schema(description = "Login throttle")
+@Component
+public class LoginThrottle {
+
+    static final String KEY_PREFIX = "furcode:throttle:";
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private static final RedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local result = {}
+            for i, key in ipairs(KEYS) do
+                local count = redis.call('INCR', key)
+                if count == 1 then
+                    redis.call('PEXPIRE', key, ARGV[1])
+                end
+                result[i] = count
+                result[#KEYS + i] = redis.call('PTTL', key)
+            end
+            return result
+            """, List.class);
+
+    private static final RedisScript<Long> SUCCESS_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            if tonumber(redis.call('GET', KEYS[2]) or '0') > 0 then
+                redis.call('DECR', KEYS[2])
+            end
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final int emailLimit;
+    private final int ipLimit;
+    private final int registrationLimit;
+    private final Duration window;
+
+    @Autowired
+    public LoginThrottle(StringRedisTemplate redisTemplate,
+                         @Value("${security.login.throttle.email-limit:5}") int emailLimit,
+                         @Value("${security.login.throttle.ip-limit:20}") int ipLimit,
+                         @Value("${security.login.throttle.registration-limit:10}") int registrationLimit,
+                         @Value("${security.login.throttle.window:PT15M}") Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.emailLimit = emailLimit;
+        this.ipLimit = ipLimit;
+        this.registrationLimit = registrationLimit;
+        this.window = window;
+    }
+
+    /**
+     * Counts a login attempt against its email and its IP, and rejects it if either is over its limit.
+     * Must be called before the password is checked; the attempt stays counted unless {@link #recordSuccess} is called.
+     *
+     * @param email The email of the login.
+     * @param ip    The IP of the client.
+     * @throws TooManyRequestsException if a limit is reached.
+     */
+    public void reserveLogin(String email, String ip) {
+        List<?> result;
+        try {
+            result = redisTemplate.execute(RESERVE_SCRIPT, List.of(emailKey(email), ipKey(ip)),
+                    Long.toString(window.toMillis()));
+        } catch (RuntimeException e) {
+            logger.warn("Could not update the login throttle", e);
+            return;
+        }
+        if (result == null || result.size() != 4) {
+            logger.warn("Unexpected login throttle script result: {}", result);
+            return;
+        }
+        if (((Number) result.get(0)).longValue() > emailLimit) {
+            throw rejected(((Number) result.get(2)).longValue(), TokenMessage.TOO_MANY_LOGIN_ATTEMPTS);
+        }
+        if (((Number) result.get(1)).longValue() > ipLimit) {
+            throw rejected(((Number) result.get(3)).longValue(), TokenMessage.TOO_MANY_LOGIN_ATTEMPTS);
+        }
+    }
+
+    /**
+     * Resets the login attempts of an email after a successful login, and gives the attempt back to its IP.
+     *
+     * @param email The email of the login.
+     * @param ip    The IP of the client.
+     */
+    public void recordSuccess(String email, String ip) {
+        try {
+            redisTemplate.execute(SUCCESS_SCRIPT, List.of(emailKey(email), ipKey(ip)));
+        } catch (RuntimeException e) {
+            logger.warn("Could not reset the login throttle", e);
+        }
+    }
+
+    /**
+     * Counts a registration against the IP of the current request, and rejects it over the limit.
+     * Does nothing outside a request.
+     *
+     * @throws TooManyRequestsException if the limit is reached.
+     */
+    public void checkRegistration() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        String key = KEY_PREFIX + "registration:" + attributes.getRequest().getRemoteAddr();
+        if (increment(key) > registrationLimit) {
+            throw rejected(key, TokenMessage.TOO_MANY_REQUESTS);
+        }
+    }
+
+    private long increment(String key) {
+        try {
+            Long count = redisTemplate.opsForValue().increment(key);
+            if (count != null && count == 1) {
+                redisTemplate.expire(key, window);
+            }
+            return count != null ? count : 0;
+        } catch (RuntimeException e) {
+            logger.warn("Could not update the login throttle", e);
+            return 0;
+        }
+    }
+
+    private TooManyRequestsException rejected(String key, String message) {
+        Long ttl = redisTemplate.getExpire(key);
+        Duration retryAfter = ttl != null && ttl > 0 ? Duration.ofSeconds(ttl) : window;
+        return new TooManyRequestsException(message, retryAfter);
+    }
+
+    private TooManyRequestsException rejected(long ttlMillis, String message) {
+        Duration retryAfter = ttlMillis > 0 ? Duration.ofMillis(ttlMillis) : window;
+        return new TooManyRequestsException(message, retryAfter);
+    }
+
+    private static String emailKey(String email) {
+        return KEY_PREFIX + "email:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String ipKey(String ip) {
+        return KEY_PREFIX + "ip:" + ip;
+    }
+}
@@ -0,0 +1,126 @@
+package org.mindera.fur.code.infra.security;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
+import org.mindera.fur.code.messages.token.TokenMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes and verifies passwords on the dedicated password executor.
+ * <p>
+ * The request thread waits for the result, but at most {@code security.password.executor.pool-size} hashes run
+ * at once, so a burst of logins cannot take all the CPU. When the executor queue is full the request is rejected
+ * right away with a {@link TooManyRequestsException}.
+ * </p>
+ * <p>
+ * A password hashed with another cost factor than {@code security.password.bcrypt-strength} is rehashed
+ * on the next successful login, so changing the cost applies to existing passwords over time.
+ * </p>
+ */
+@Schema(description = "Password hasher")
+@Service
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor passwordExecutor;
+    private final int strength;
+
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Qualifier("passwordExecutor") ThreadPoolTaskExecutor passwordExecutor,
+                          @Value("${security.password.bcrypt-strength:10}") int strength) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordExecutor = passwordExecutor;
+        this.strength = strength;
+    }
+
+    /**
+     * Hashes a password.
+     *
+     * @param rawPassword The password.
+     * @return The hash.
+     * @throws TooManyRequestsException if the password executor is saturated.
+     */
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password against its hash.
+     *
+     * @param rawPassword     The password.
+     * @param encodedPassword The hash.
+     * @return true if the password matches.
+     * @throws TooManyRequestsException if the password executor is saturated.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Rehashes a verified password if its hash was made with another cost factor.
+     * Skipped when the password executor is saturated, the next login will try again.
+     *
+     * @param rawPassword     The verified password.
+     * @param encodedPassword The current hash.
+     * @return The new hash, or empty if the current one is kept.
+     */
+    public Optional<String> rehash(String rawPassword, String encodedPassword) {
+        if (!needsRehash(encodedPassword)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(encode(rawPassword));
+        } catch (TooManyRequestsException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks whether a hash was made with another cost factor than the configured one.
+     *
+     * @param encodedPassword The hash.
+     * @return true if the password should be rehashed.
+     */
+    boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T run(Callable<T> task) {
+        try {
+            return passwordExecutor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password executor saturated, rejecting request");
+            throw new TooManyRequestsException(TokenMessage.TOO_MANY_REQUESTS, RETRY_AFTER);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Could not hash a password", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.mindera.fur.code.infra.security;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.model.Person;
+import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.repository.PersonRepository;
+import org.mindera.fur.code.repository.ShelterPersonRolesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Loads the authenticated principal of a request.
+ * <p>
+ * Principals are cached by email, the subject of the tokens, for {@code cache.principals.ttl}, so an authenticated
+ * request does not query the database. Within a request, the principal loaded by {@link SecurityFilter} is kept
+ * in a request attribute. The cache entry of a person is evicted when the person, their role or their shelters change.
+ * </p>
+ */
+@Schema(description = "Principal service")
+@Service
+public class PrincipalService {
+
+    public static final String CACHE_NAME = "principals";
+
+    private final PersonRepository personRepository;
+    private final ShelterPersonRolesRepository shelterPersonRolesRepository;
+
+    @Autowired
+    public PrincipalService(PersonRepository personRepository, ShelterPersonRolesRepository shelterPersonRolesRepository) {
+        this.personRepository = personRepository;
+        this.shelterPersonRolesRepository = shelterPersonRolesRepository;
+    }
+
+    /**
+     * Loads the principal of a person.
+     *
+     * @param email The email of the person.
+     * @return The principal, or null if no person has this email.
+     */
+    @Cacheable(cacheNames = CACHE_NAME, key = "#email", unless = "#result == null")
+    public AuthenticatedPrincipal loadByEmail(String email) {
+        Person person = personRepository.findByEmail(email);
+        if (person == null) {
+            return null;
+        }
+        Map<Long, Role> shelterRoles = new HashMap<>();
+        for (ShelterPersonRolesRepository.ShelterRole shelterRole : shelterPersonRolesRepository.findShelterRolesByPersonId(person.getId())) {
+            shelterRoles.put(shelterRole.getShelterId(), shelterRole.getRole());
+        }
+        return new AuthenticatedPrincipal(person.getId(), person.getEmail(), person.getRole(), person.getTokenVersion(),
+                person.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+                shelterRoles);
+    }
+
+    /**
+     * Evicts the cached principal of a person, after a change to the person, their role or their shelters.
+     *
+     * @param email The email of the person.
+     */
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#email")
+    public void evict(String email) {
+        // Evicted by the annotation
+    }
+
+    /**
+     * Returns the principal authenticated for the current request by {@link SecurityFilter}.
+     *
+     * @return The principal, or empty outside a request or if the request is not authenticated.
+     */
+    public Optional<AuthenticatedPrincipal> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((AuthenticatedPrincipal) attributes.getAttribute(
+                AuthenticatedPrincipal.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+}
@@ -1,7 +1,9 @@
 package org.mindera.fur.code.infra.security;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.infra.ratelimit.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -25,6 +27,9 @@ public class SecurityConfiguration {
     @Autowired
     SecurityFilter securityFilter;
 
+    @Autowired
+    RateLimitFilter rateLimitFilter;
+
     /**
      * Security configuration
      *
@@ -84,8 +89,13 @@ public class SecurityConfiguration {
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/favorite/delete/{personId}/{petId}").hasAnyAuthority("USER")
 
 
+                        .requestMatchers(HttpMethod.GET, "/api/v1/cache/stats").hasAnyAuthority("MASTER")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/cache/objects/stats").hasAnyAuthority("MASTER")
+
+
                         .anyRequest().permitAll())
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, SecurityFilter.class)
                 .build();
     }
 
@@ -102,13 +112,14 @@ public class SecurityConfiguration {
     }
 
     /**
-     * Password encoder
+     * Password encoder, shared by every password hash and check
      *
+     * @param strength The BCrypt cost factor
      * @return The password encoder
      */
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
@@ -8,12 +8,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.mindera.fur.code.exceptions.person.PersonException;
 import org.mindera.fur.code.exceptions.token.TokenException;
 import org.mindera.fur.code.messages.token.TokenMessage;
-import org.mindera.fur.code.repository.PersonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -26,7 +24,7 @@ public class SecurityFilter extends OncePerRequestFilter {
     TokenService tokenService;
 
     @Autowired
-    PersonRepository personRepository;
+    PrincipalService principalService;
 
     @Override
 
@@ -49,16 +47,22 @@ public class SecurityFilter extends OncePerRequestFilter {
         }
 
         try {
-            String email = tokenService.validateToken(token);
-            UserDetails person = personRepository.findByEmail(email);
+            TokenClaims claims = tokenService.verify(token);
+            AuthenticatedPrincipal principal = principalService.loadByEmail(claims.subject());
 
-            if (person == null || person.equals(" ")) {
+            if (principal == null) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 throw new PersonException(TokenMessage.PERSON_NOT_FOUND);
             }
 
+            if (claims.tokenVersion() != principal.tokenVersion()) {
+                throw new TokenException(TokenMessage.TOKEN_REVOKED);
+            }
+
+            request.setAttribute(TokenClaims.REQUEST_ATTRIBUTE, claims);
+            request.setAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE, principal);
             Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    person, null, person.getAuthorities());
+                    principal, null, principal.grantedAuthorities());
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
         } catch (TokenException e) {
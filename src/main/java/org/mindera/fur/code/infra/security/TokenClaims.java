@@ -0,0 +1,39 @@
+package org.mindera.fur.code.infra.security;
+
+import org.mindera.fur.code.model.Role;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The verified claims of a token.
+ *
+ * @param subject      The email of the person the token was issued to.
+ * @param tokenVersion The token version of the person when the token was issued.
+ * @param shelterRoles The role of the person in each shelter they belonged to when the token was issued, by shelter ID.
+ * @param expiresAt    The expiration of the token.
+ */
+public record TokenClaims(String subject,
+                          long tokenVersion,
+                          Map<Long, Role> shelterRoles,
+                          Instant expiresAt) {
+
+    /**
+     * The request attribute holding the claims of the token once the request is authenticated.
+     */
+    public static final String REQUEST_ATTRIBUTE = TokenClaims.class.getName();
+
+    public TokenClaims {
+        shelterRoles = Map.copyOf(shelterRoles);
+    }
+
+    /**
+     * Returns the role of the person in a shelter, as claimed by the token.
+     *
+     * @param shelterId The ID of the shelter.
+     * @return The role, or null if the token does not claim the shelter.
+     */
+    public Role shelterRole(Long shelterId) {
+        return shelterRoles.get(shelterId);
+    }
+}
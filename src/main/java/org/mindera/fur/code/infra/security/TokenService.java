@@ -6,19 +6,43 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.swagger.v3.oas.annotations.media.Schema;
-import org.mindera.fur.code.dto.person.PersonDTO;
-
 import org.mindera.fur.code.exceptions.token.TokenException;
 
-import org.mindera.fur.code.exceptions.person.PersonException;
 import org.mindera.fur.code.messages.token.TokenMessage;
+import org.mindera.fur.code.model.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Generates and validates the JWT tokens of the API.
+ * <p>
+ * Tokens carry the token version of the person and their role in each of their shelters, so a request can be
+ * authorized from the token alone. A token issued before the token version of the person changed is revoked.
+ * </p>
+ * <p>
+ * The algorithm and the verifier are built once. Verified tokens are kept in a bounded in-memory cache, keyed by
+ * a SHA-256 hash of the token, until the token expires, so a token sent on every request is verified once.
+ * Rejected tokens are not cached.
+ * </p>
+ */
 @Schema(description = "Token service")
 @Service
 public class TokenService {
@@ -28,18 +52,45 @@ public class TokenService {
      */
     private final String SECRET = "my-secret-key";
 
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+    private static final String SHELTER_ROLES_CLAIM = "shr";
+
+    private final Algorithm algorithm = Algorithm.HMAC256(SECRET);
+
+    private final JWTVerifier verifier = JWT.require(algorithm)
+            .withIssuer("fur-code")
+            .build();
+
+    private final Cache<String, TokenClaims> verifiedTokens;
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize The maximum number of verified tokens kept in memory
+     */
+    @Autowired
+    public TokenService(@Value("${security.token.cache.maximum-size:10000}") long maximumSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpiration())
+                .build();
+    }
+
     /**
      * Generate token
      *
-     * @param personDTO The person dto
+     * @param principal The authenticated person
      * @return The token
      */
-    public String generateToken(PersonDTO personDTO) {
+    public String generateToken(AuthenticatedPrincipal principal) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(SECRET);
+            Map<String, String> shelterRoles = new HashMap<>();
+            principal.shelterRoles().forEach((shelterId, role) -> shelterRoles.put(shelterId.toString(), role.name()));
             String token = JWT.create()
                     .withIssuer("fur-code")
-                    .withSubject(personDTO.getEmail())
+                    .withSubject(principal.email())
+                    .withClaim(TOKEN_VERSION_CLAIM, principal.tokenVersion())
+                    .withClaim(SHELTER_ROLES_CLAIM, shelterRoles)
                     .withExpiresAt(generateExpirationDate())
                     .sign(algorithm);
             return token;
@@ -55,22 +106,32 @@ public class TokenService {
      * @return The email
      */
     public String validateToken(String token) {
+        return verify(token).subject();
+    }
 
-        try {
-            Algorithm algorithm = Algorithm.HMAC256(SECRET);
-
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer("fur-code")
-                    .build();
-
-            verifier.verify(token);
-
-            return JWT.require(algorithm)
-                    .withIssuer("fur-code")
-                    .build()
-                    .verify(token)
-                    .getSubject();
+    /**
+     * Verify token
+     *
+     * @param token The token
+     * @return The claims of the token
+     */
+    public TokenClaims verify(String token) {
+        String key = hash(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
 
+        try {
+            DecodedJWT decoded = verifier.verify(token);
+            TokenClaims claims = new TokenClaims(decoded.getSubject(),
+                    decoded.getClaim(TOKEN_VERSION_CLAIM).isMissing() ? 0 : decoded.getClaim(TOKEN_VERSION_CLAIM).asLong(),
+                    shelterRoles(decoded.getClaim(SHELTER_ROLES_CLAIM)),
+                    decoded.getExpiresAtAsInstant());
+            if (claims.expiresAt() != null) {
+                verifiedTokens.put(key, claims);
+            }
+            return claims;
 
         } catch (SignatureVerificationException e) {
             throw new TokenException(TokenMessage.INVALID_TOKEN_SIGNATURE);
@@ -92,4 +153,54 @@ public class TokenService {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("+0"));
     }
 
+    /**
+     * Hash a token, so the cache does not hold the tokens themselves
+     *
+     * @param token The token
+     * @return The SHA-256 hash of the token, as hex
+     */
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read the shelter roles claim
+     *
+     * @param claim The claim, a map of role names by shelter ID
+     * @return The roles by shelter ID
+     */
+    private static Map<Long, Role> shelterRoles(Claim claim) {
+        Map<Long, Role> shelterRoles = new HashMap<>();
+        if (!claim.isMissing() && !claim.isNull()) {
+            claim.asMap().forEach((shelterId, role) ->
+                    shelterRoles.put(Long.valueOf(shelterId), Role.valueOf(role.toString())));
+        }
+        return shelterRoles;
+    }
+
+    /**
+     * Expires a verified token when the token itself expires.
+     */
+    private static class UntilExpiration implements Expiry<String, TokenClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, TokenClaims value, long currentTime) {
+            return Math.max(0, Instant.now().until(value.expiresAt(), ChronoUnit.NANOS));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -22,9 +22,11 @@ public interface PersonMapper {
     PersonDTO toDTO(Person person);
 
     @Mapping(source = "shelterIds", target = "shelterIds")
+    @Mapping(target = "tokenVersion", ignore = true)
     Person toModel(PersonDTO personDTO);
 
     @Mapping(target = "shelterIds", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
     Person toModel(PersonCreationDTO personCreationDTO);
 
     List<Person> toModel(List<PersonDTO> personDTOS);
@@ -5,6 +5,7 @@ import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 import org.mindera.fur.code.dto.pet.PetCreateDTO;
 import org.mindera.fur.code.dto.pet.PetDTO;
+import org.mindera.fur.code.dto.pet.PetSummaryDTO;
 import org.mindera.fur.code.model.pet.Pet;
 
 import java.util.List;
@@ -21,6 +22,11 @@ public interface PetMapper {
     @Mapping(source = "shelter.id", target = "shelterId")
     PetDTO toDTO(Pet pet);
 
+    @Mapping(source = "petType.id", target = "petTypeId")
+    @Mapping(source = "petType.species", target = "species")
+    @Mapping(source = "shelter.id", target = "shelterId")
+    PetSummaryDTO toSummaryDTO(Pet pet);
+
     @Mapping(source = "petTypeId", target = "petType.id")
     @Mapping(source = "shelterId", target = "shelter.id")
     Pet toModel(PetDTO dto);
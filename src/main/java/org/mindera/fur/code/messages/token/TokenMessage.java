@@ -5,6 +5,9 @@ public class TokenMessage {
     public static final String INVALID_TOKEN_SIGNATURE = "Invalid token signature";
     public static final String TOKEN_EXPIRED = "Token has expired";
     public static final String TOKEN_VALIDATION_FAILED = "Token validation failed";
+    public static final String TOKEN_REVOKED = "Token has been revoked";
     public static final String PERSON_NOT_FOUND = "Person not found";
     public static final String INVALID_EMAIL_OR_PASSWORD = "Invalid email or password";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many failed login attempts, try again later";
+    public static final String TOO_MANY_REQUESTS = "Too many requests, try again later";
 }
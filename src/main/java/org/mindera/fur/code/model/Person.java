@@ -57,6 +57,10 @@ public class Person implements UserDetails {
     @Schema(description = "The role of the person", example = "ROLE_USER", required = true)
     private Role role;
 
+    @Column(nullable = false)
+    @Schema(description = "The token version of the person, incremented to revoke the tokens issued before", example = "0")
+    private long tokenVersion;
+
 
     @OneToMany(mappedBy = "person", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     @Schema(description = "The shelter person roles of the person", required = true)
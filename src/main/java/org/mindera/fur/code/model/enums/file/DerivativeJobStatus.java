@@ -0,0 +1,11 @@
+package org.mindera.fur.code.model.enums.file;
+
+/**
+ * Derivative job status enum.
+ */
+public enum DerivativeJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
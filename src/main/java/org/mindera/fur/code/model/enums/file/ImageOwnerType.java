@@ -0,0 +1,16 @@
+package org.mindera.fur.code.model.enums.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Image owner type enum, with the key prefix of the images in the bucket.
+ */
+@Getter
+@AllArgsConstructor
+public enum ImageOwnerType {
+    PET("pet"),
+    SHELTER("shelter");
+
+    private final String prefix;
+}
@@ -0,0 +1,35 @@
+package org.mindera.fur.code.model.enums.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Image variant enum: the derivatives generated for every uploaded image, smallest first.
+ */
+@Getter
+@AllArgsConstructor
+public enum ImageVariant {
+    THUMBNAIL("thumbnail", 256),
+    CARD("card", 640),
+    FULL("full", 1600);
+
+    private final String name;
+    private final int maxDimension;
+
+    /**
+     * Returns the deterministic key of this variant of an image: the {@code image} folder of the key
+     * becomes {@code derivative}, followed by the file name of the original and the variant name.
+     * For example {@code pet/1/image/tareco.jpg} has the thumbnail {@code pet/1/derivative/tareco.jpg/thumbnail}.
+     *
+     * @param originalKey The normalized key of the original image.
+     * @return The key of the variant.
+     */
+    public String keyFor(String originalKey) {
+        int slash = originalKey.lastIndexOf('/');
+        String folder = originalKey.substring(0, slash + 1);
+        if (folder.endsWith("/image/")) {
+            folder = folder.substring(0, folder.length() - "image/".length()) + "derivative/";
+        }
+        return folder + originalKey.substring(slash + 1) + "/" + name;
+    }
+}
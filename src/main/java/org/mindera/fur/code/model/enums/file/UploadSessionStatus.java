@@ -0,0 +1,9 @@
+package org.mindera.fur.code.model.enums.file;
+
+/**
+ * Upload session status enum.
+ */
+public enum UploadSessionStatus {
+    ACTIVE,
+    COMPLETING
+}
@@ -0,0 +1,61 @@
+package org.mindera.fur.code.model.file;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A model class for the content of an image, stored once in the bucket under the SHA-256 of its bytes
+ * and shared by every image with the same content.
+ * <p>
+ * The reference count is the number of images pointing to the blob. A blob whose count drops to zero is orphaned
+ * and removed after a grace period, unless it is referenced again meanwhile.
+ * </p>
+ * <p>
+ * While its object is being removed from the bucket, a blob is kept as a tombstone ({@code deleting})
+ * that cannot be referenced again, and the record is only deleted once the object is gone.
+ * </p>
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "image_blob", indexes = {
+        @Index(name = "idx_image_blob_orphaned_at", columnList = "orphaned_at")
+})
+public class ImageBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @NotBlank(message = "Object key must be provided")
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    @NotBlank(message = "Content type must be provided")
+    @Column(nullable = false)
+    private String contentType;
+
+    @NotNull(message = "Size must be provided")
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @NotNull(message = "Creation date must be provided")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt;
+
+    @Column(nullable = false)
+    private boolean deleting;
+}
@@ -0,0 +1,55 @@
+package org.mindera.fur.code.model.file;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.mindera.fur.code.model.enums.file.ImageVariant;
+
+import java.time.LocalDateTime;
+
+/**
+ * A model class for a derivative of an image: a smaller copy stored next to the original.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "image_derivative", indexes = {
+        @Index(name = "idx_image_derivative_original_variant", columnList = "original_key, variant", unique = true)
+})
+public class ImageDerivative {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Original key must be provided")
+    @Column(name = "original_key", nullable = false, length = 512)
+    private String originalKey;
+
+    @NotNull(message = "Variant must be provided")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImageVariant variant;
+
+    @NotBlank(message = "Object key must be provided")
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    @NotBlank(message = "Content type must be provided")
+    @Column(nullable = false)
+    private String contentType;
+
+    @NotNull(message = "Size must be provided")
+    @Column(nullable = false)
+    private Long size;
+
+    private String etag;
+
+    @NotNull(message = "Creation date must be provided")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
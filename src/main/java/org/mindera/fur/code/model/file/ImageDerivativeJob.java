@@ -0,0 +1,58 @@
+package org.mindera.fur.code.model.file;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.mindera.fur.code.model.enums.file.DerivativeJobStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A model class for a queued derivative job: generating the derivatives of an uploaded image.
+ * <p>
+ * Jobs are persisted so that failed ones are retried with backoff and the ones lost with a node are picked up again.
+ * </p>
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "image_derivative_job", indexes = {
+        @Index(name = "idx_image_derivative_job_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class ImageDerivativeJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Object key must be provided")
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    @NotNull(message = "Status must be provided")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DerivativeJobStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @NotNull(message = "Next attempt date must be provided")
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 999)
+    private String lastError;
+
+    @NotNull(message = "Creation date must be provided")
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @NotNull(message = "Update date must be provided")
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
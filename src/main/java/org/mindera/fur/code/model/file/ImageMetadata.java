@@ -0,0 +1,77 @@
+package org.mindera.fur.code.model.file;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A model class for the metadata of an image stored in the bucket.
+ * <p>
+ * The lookup key is the object key without its extension, so a download by bare file name
+ * resolves to the stored object with a single query.
+ * </p>
+ * <p>
+ * Images uploaded since content-addressed storage reference a shared {@link ImageBlob} through the blob key,
+ * and the object key is only the name of the image. Older images have no blob key: the object key is
+ * where their bytes are stored.
+ * </p>
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "image_metadata", indexes = {
+        @Index(name = "idx_image_metadata_object_key", columnList = "object_key", unique = true),
+        @Index(name = "idx_image_metadata_lookup_key", columnList = "lookup_key"),
+        @Index(name = "idx_image_metadata_owner", columnList = "owner_type, owner_id, created_at"),
+        @Index(name = "idx_image_metadata_blob_key", columnList = "blob_key")
+})
+public class ImageMetadata {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Object key must be provided")
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    @NotBlank(message = "Lookup key must be provided")
+    @Column(name = "lookup_key", nullable = false, length = 512)
+    private String lookupKey;
+
+    @NotNull(message = "Owner type must be provided")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false)
+    private ImageOwnerType ownerType;
+
+    @NotNull(message = "Owner ID must be provided")
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @NotBlank(message = "Content type must be provided")
+    @Column(nullable = false)
+    private String contentType;
+
+    @NotNull(message = "Size must be provided")
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(name = "blob_key", length = 512)
+    private String blobKey;
+
+    private String etag;
+
+    @NotNull(message = "Creation date must be provided")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,49 @@
+package org.mindera.fur.code.model.file;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A model class for a part received by a resumable upload, with the checksum computed while it was stored.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "upload_part", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_part_session_part_number", columnNames = {"session_id", "part_number"})
+})
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Session ID must be provided")
+    @Column(name = "session_id", nullable = false, length = 36)
+    private String sessionId;
+
+    @Column(name = "part_number", nullable = false)
+    private int partNumber;
+
+    @Column(nullable = false)
+    private long size;
+
+    @NotBlank(message = "SHA-256 must be provided")
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @NotBlank(message = "Entity tag must be provided")
+    @Column(nullable = false)
+    private String etag;
+
+    @NotNull(message = "Upload date must be provided")
+    @Column(nullable = false)
+    private LocalDateTime uploadedAt;
+}
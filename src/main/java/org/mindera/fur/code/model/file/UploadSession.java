@@ -0,0 +1,95 @@
+package org.mindera.fur.code.model.file;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.enums.file.UploadSessionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A model class for a resumable upload: an image sent in parts, backed by a Minio multipart upload.
+ * <p>
+ * The parts are assembled in a staging object once they have all arrived, then stored like any other upload.
+ * A session that is not completed before it expires is aborted, and its parts are freed.
+ * </p>
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "upload_session", indexes = {
+        @Index(name = "idx_upload_session_expires_at", columnList = "expires_at")
+})
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @NotNull(message = "Owner type must be provided")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false)
+    private ImageOwnerType ownerType;
+
+    @NotNull(message = "Owner ID must be provided")
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @NotBlank(message = "Object key must be provided")
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    @NotBlank(message = "Staging key must be provided")
+    @Column(name = "staging_key", nullable = false, length = 512)
+    private String stagingKey;
+
+    @NotBlank(message = "Upload ID must be provided")
+    @Column(name = "upload_id", nullable = false, length = 512)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "part_size", nullable = false)
+    private long partSize;
+
+    @Column(length = 64)
+    private String sha256;
+
+    @NotNull(message = "Status must be provided")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UploadSessionStatus status;
+
+    @NotNull(message = "Creation date must be provided")
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @NotNull(message = "Expiration date must be provided")
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Returns the number of parts of the upload. Every part has the part size, except the last one.
+     *
+     * @return The number of parts.
+     */
+    public int getPartCount() {
+        return (int) Math.max(1, (size + partSize - 1) / partSize);
+    }
+
+    /**
+     * Returns the expected size of a part.
+     *
+     * @param partNumber The number of the part, from 1.
+     * @return The size of the part, in bytes.
+     */
+    public long getPartSize(int partNumber) {
+        return partNumber < getPartCount() ? partSize : size - partSize * (getPartCount() - 1);
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.mindera.fur.code.model.Shelter;
 import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
 import org.mindera.fur.code.model.interfaces.SoftDeletable;
@@ -15,14 +16,33 @@ import java.util.List;
 
 /**
  * A model class for a pet.
+ * <p>
+ * Two fetch plans are declared: {@value #SUMMARY_GRAPH} for catalogue lists (pet type, no records)
+ * and {@value #DETAIL_GRAPH} for reads that return the pet records.
+ * </p>
+ * <p>
+ * The full-text {@code search_vector} column and its GIN index are not mapped here; they are created
+ * by {@code import.sql} as a generated column, so PostgreSQL keeps them up to date on every write.
+ * </p>
  */
 @Getter
 @Setter
 @Entity
 @NoArgsConstructor
-@Table(name = "pet")
+@NamedEntityGraph(name = Pet.SUMMARY_GRAPH, attributeNodes = @NamedAttributeNode("petType"))
+@NamedEntityGraph(name = Pet.DETAIL_GRAPH, attributeNodes = @NamedAttributeNode("petRecords"))
+@Table(name = "pet", indexes = {
+        @Index(name = "idx_pet_deleted_at_id", columnList = "deleted_at, id"),
+        @Index(name = "idx_pet_shelter_deleted_at_id", columnList = "shelter_id, deleted_at, id"),
+        @Index(name = "idx_pet_type_deleted_at_id", columnList = "pet_type_id, deleted_at, id"),
+        @Index(name = "idx_pet_size_deleted_at_id", columnList = "size, deleted_at, id"),
+        @Index(name = "idx_pet_adopted_vaccinated_deleted_at_id", columnList = "is_adopted, is_vaccinated, deleted_at, id")
+})
 public class Pet implements SoftDeletable {
 
+    public static final String SUMMARY_GRAPH = "Pet.summary";
+    public static final String DETAIL_GRAPH = "Pet.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -77,6 +97,7 @@ public class Pet implements SoftDeletable {
     @Column(nullable = false)
     private String observations;
 
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "pet", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PetRecord> petRecords;
 
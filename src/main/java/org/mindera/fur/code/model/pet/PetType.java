@@ -11,7 +11,7 @@ import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
  */
 @Data
 @Entity
-@Table(name = "pet_type")
+@Table(name = "pet_type", indexes = @Index(name = "idx_pet_type_species", columnList = "species"))
 public class PetType {
 
     @Id
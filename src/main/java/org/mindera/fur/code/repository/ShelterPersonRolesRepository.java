@@ -2,6 +2,7 @@ package org.mindera.fur.code.repository;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.mindera.fur.code.model.Person;
+import org.mindera.fur.code.model.Role;
 import org.mindera.fur.code.model.ShelterPersonRoles;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -24,4 +25,17 @@ public interface ShelterPersonRolesRepository extends JpaRepository<ShelterPerso
     List<Person> findPersonsByShelterId(@Param("shelterId") Long shelterId);
 
     Optional<ShelterPersonRoles> findByPersonIdAndShelterId(Long personId, Long shelterId);
+
+    @Schema(description = "Find the role of a person in each of their shelters")
+    @Query("SELECT spr.shelter.id AS shelterId, spr.role AS role FROM ShelterPersonRoles spr WHERE spr.person.id = :personId")
+    List<ShelterRole> findShelterRolesByPersonId(@Param("personId") Long personId);
+
+    /**
+     * The role of a person in a shelter, without loading the person or the shelter.
+     */
+    interface ShelterRole {
+        Long getShelterId();
+
+        Role getRole();
+    }
 }
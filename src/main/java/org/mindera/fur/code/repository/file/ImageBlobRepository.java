@@ -0,0 +1,94 @@
+package org.mindera.fur.code.repository.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.transaction.Transactional;
+import org.mindera.fur.code.model.file.ImageBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Image blob repository.
+ */
+@Schema(description = "Image blob repository")
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /**
+     * Adds a reference to a blob, reviving it if it was orphaned.
+     * A blob whose object is being removed cannot be referenced again.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @return 1 if the blob exists and is not being removed, 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ImageBlob b SET b.refCount = b.refCount + 1, b.orphanedAt = NULL
+            WHERE b.sha256 = :sha256 AND b.deleting = false
+            """)
+    int acquire(@Param("sha256") String sha256);
+
+    /**
+     * Removes a reference to a blob. The blob is marked as orphaned when its last reference is removed.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @param now    The current time.
+     * @return 1 if a reference was removed, 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ImageBlob b
+            SET b.refCount = b.refCount - 1,
+                b.orphanedAt = CASE WHEN b.refCount = 1 THEN :now ELSE NULL END
+            WHERE b.sha256 = :sha256 AND b.refCount > 0
+            """)
+    int release(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    /**
+     * Retrieves the blobs orphaned before a time.
+     *
+     * @param cutoff The time before which the blobs were orphaned.
+     * @param limit  The maximum number of blobs to return.
+     * @return List of orphaned blobs.
+     */
+    @Query("SELECT b FROM ImageBlob b WHERE b.refCount = 0 AND b.orphanedAt < :cutoff")
+    List<ImageBlob> findOrphans(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    /**
+     * Marks a blob as being removed if it is still orphaned since before a time.
+     * Only one node succeeds, and only that node removes the object from the bucket.
+     * The orphan time is reset, so a blob left marked by a node that stopped midway is claimed again after the cutoff.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @param cutoff The time before which the blob was orphaned.
+     * @param now    The current time.
+     * @return 1 if the blob was marked, 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ImageBlob b SET b.deleting = true, b.orphanedAt = :now
+            WHERE b.sha256 = :sha256 AND b.refCount = 0 AND b.orphanedAt < :cutoff
+            """)
+    int markDeleting(@Param("sha256") String sha256, @Param("cutoff") LocalDateTime cutoff,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes a blob marked as being removed.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @return 1 if the blob was deleted, 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImageBlob b WHERE b.sha256 = :sha256 AND b.deleting = true")
+    int deleteDeleting(@Param("sha256") String sha256);
+}
@@ -0,0 +1,74 @@
+package org.mindera.fur.code.repository.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.transaction.Transactional;
+import org.mindera.fur.code.model.enums.file.DerivativeJobStatus;
+import org.mindera.fur.code.model.file.ImageDerivativeJob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Image derivative job repository.
+ */
+@Schema(description = "Image derivative job repository")
+@Repository
+public interface ImageDerivativeJobRepository extends JpaRepository<ImageDerivativeJob, Long> {
+
+    /**
+     * Claims a pending job: marks it as running and counts the attempt.
+     * Only one node can claim a job.
+     *
+     * @param id  The ID of the job.
+     * @param now The current time.
+     * @return 1 if the job was claimed, 0 if it was not pending.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ImageDerivativeJob j
+            SET j.status = org.mindera.fur.code.model.enums.file.DerivativeJobStatus.RUNNING,
+                j.attempts = j.attempts + 1,
+                j.updatedAt = :now
+            WHERE j.id = :id
+              AND j.status = org.mindera.fur.code.model.enums.file.DerivativeJobStatus.PENDING
+            """)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Retrieves the IDs of the jobs in a status that are due, oldest first.
+     *
+     * @param status The status of the jobs.
+     * @param now    The current time.
+     * @param limit  The maximum number of jobs to return.
+     * @return List of job IDs.
+     */
+    @Query("""
+            SELECT j.id FROM ImageDerivativeJob j
+            WHERE j.status = :status AND j.nextAttemptAt <= :now
+            ORDER BY j.nextAttemptAt ASC
+            """)
+    List<Long> findDueIds(@Param("status") DerivativeJobStatus status, @Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Puts back to pending the running jobs that have not been updated for too long, left by a node that stopped.
+     *
+     * @param staleBefore The time before which a running job is considered lost.
+     * @return The number of jobs released.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE ImageDerivativeJob j
+            SET j.status = org.mindera.fur.code.model.enums.file.DerivativeJobStatus.PENDING
+            WHERE j.status = org.mindera.fur.code.model.enums.file.DerivativeJobStatus.RUNNING
+              AND j.updatedAt < :staleBefore
+            """)
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore);
+}
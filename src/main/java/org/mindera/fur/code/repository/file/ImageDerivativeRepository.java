@@ -0,0 +1,50 @@
+package org.mindera.fur.code.repository.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.transaction.Transactional;
+import org.mindera.fur.code.model.enums.file.ImageVariant;
+import org.mindera.fur.code.model.file.ImageDerivative;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Image derivative repository.
+ */
+@Schema(description = "Image derivative repository")
+@Repository
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, Long> {
+
+    /**
+     * Retrieves the derivatives of an image.
+     *
+     * @param originalKey The key of the original image.
+     * @return List of derivatives.
+     */
+    List<ImageDerivative> findAllByOriginalKey(String originalKey);
+
+    /**
+     * Retrieves a derivative of an image.
+     *
+     * @param originalKey The key of the original image.
+     * @param variant     The variant.
+     * @return An Optional containing the derivative if found.
+     */
+    Optional<ImageDerivative> findByOriginalKeyAndVariant(String originalKey, ImageVariant variant);
+
+    /**
+     * Deletes the derivatives of an image.
+     *
+     * @param originalKey The key of the original image.
+     * @return The number of derivatives deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImageDerivative d WHERE d.originalKey = :originalKey")
+    int deleteAllByOriginalKey(@Param("originalKey") String originalKey);
+}
@@ -0,0 +1,72 @@
+package org.mindera.fur.code.repository.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.file.ImageMetadata;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Image metadata repository.
+ */
+@Schema(description = "Image metadata repository")
+@Repository
+public interface ImageMetadataRepository extends JpaRepository<ImageMetadata, Long> {
+
+    /**
+     * Retrieves the metadata of an image by its exact object key.
+     *
+     * @param objectKey The key of the object in the bucket.
+     * @return An Optional containing the metadata if found.
+     */
+    Optional<ImageMetadata> findByObjectKey(String objectKey);
+
+    /**
+     * Resolves a requested key to stored images: the exact object key first,
+     * then the newest image with the same key without extension.
+     *
+     * @param key   The requested key.
+     * @param limit The maximum number of images to return.
+     * @return List of matching images, best match first.
+     */
+    @Query("""
+            SELECT m FROM ImageMetadata m
+            WHERE m.objectKey = :key OR m.lookupKey = :key
+            ORDER BY CASE WHEN m.objectKey = :key THEN 0 ELSE 1 END, m.createdAt DESC
+            """)
+    List<ImageMetadata> resolve(@Param("key") String key, Limit limit);
+
+    /**
+     * Retrieves the metadata of all images of an owner, oldest first.
+     *
+     * @param ownerType The type of the owner.
+     * @param ownerId   The ID of the owner.
+     * @return List of image metadata.
+     */
+    List<ImageMetadata> findAllByOwnerTypeAndOwnerIdOrderByCreatedAtAsc(ImageOwnerType ownerType, Long ownerId);
+
+    /**
+     * Checks whether an owner has an image stored in a blob.
+     *
+     * @param ownerType The type of the owner.
+     * @param ownerId   The ID of the owner.
+     * @param blobKey   The key of the blob.
+     * @return True if the owner references the blob.
+     */
+    boolean existsByOwnerTypeAndOwnerIdAndBlobKey(ImageOwnerType ownerType, Long ownerId, String blobKey);
+
+    /**
+     * Retrieves the object keys of all indexed images.
+     *
+     * @return Set of object keys.
+     */
+    @Query("SELECT m.objectKey FROM ImageMetadata m")
+    Set<String> findAllObjectKeys();
+}
@@ -0,0 +1,45 @@
+package org.mindera.fur.code.repository.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.transaction.Transactional;
+import org.mindera.fur.code.model.file.UploadPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Upload part repository.
+ */
+@Schema(description = "Upload part repository")
+@Repository
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+
+    /**
+     * Retrieves the parts received by a session.
+     *
+     * @param sessionId The ID of the session.
+     * @return List of parts, in order.
+     */
+    List<UploadPart> findAllBySessionIdOrderByPartNumberAsc(String sessionId);
+
+    /**
+     * Retrieves a part received by a session.
+     *
+     * @param sessionId  The ID of the session.
+     * @param partNumber The number of the part.
+     * @return An Optional containing the part if it was received.
+     */
+    Optional<UploadPart> findBySessionIdAndPartNumber(String sessionId, int partNumber);
+
+    /**
+     * Deletes the parts of a session.
+     *
+     * @param sessionId The ID of the session.
+     */
+    @Transactional
+    @Modifying
+    void deleteAllBySessionId(String sessionId);
+}
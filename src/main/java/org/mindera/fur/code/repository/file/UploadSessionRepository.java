@@ -0,0 +1,53 @@
+package org.mindera.fur.code.repository.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.transaction.Transactional;
+import org.mindera.fur.code.model.enums.file.UploadSessionStatus;
+import org.mindera.fur.code.model.file.UploadSession;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Upload session repository.
+ */
+@Schema(description = "Upload session repository")
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    /**
+     * Moves a session from a status to another and pushes back its expiration.
+     * Only one request can move a session out of a status.
+     *
+     * @param id        The ID of the session.
+     * @param from      The expected current status.
+     * @param to        The new status.
+     * @param expiresAt The new expiration date.
+     * @return 1 if the session was moved, 0 if it was not in the expected status.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE UploadSession s
+            SET s.status = :to, s.expiresAt = :expiresAt
+            WHERE s.id = :id AND s.status = :from
+            """)
+    int transition(@Param("id") String id, @Param("from") UploadSessionStatus from,
+                   @Param("to") UploadSessionStatus to, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Retrieves the sessions that expired before a time, oldest first.
+     *
+     * @param now   The current time.
+     * @param limit The maximum number of sessions to return.
+     * @return List of sessions.
+     */
+    @Query("SELECT s FROM UploadSession s WHERE s.expiresAt < :now ORDER BY s.expiresAt ASC")
+    List<UploadSession> findExpired(@Param("now") LocalDateTime now, Limit limit);
+}
@@ -1,14 +1,178 @@
 package org.mindera.fur.code.repository.pet;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
 import org.mindera.fur.code.model.pet.Pet;
 import org.mindera.fur.code.repository.SoftDeleteRepository;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Pet repository.
  */
 @Schema(description = "Pet repository")
 @Repository
-public interface PetRepository extends SoftDeleteRepository<Pet, Long> {
+public interface PetRepository extends SoftDeleteRepository<Pet, Long>, JpaSpecificationExecutor<Pet> {
+
+    /**
+     * Retrieves a page of active pets with an ID greater than the cursor, ordered by ID, with their pet type.
+     * Null filters are left out of the query, see {@link PetSpecifications#activePage}.
+     *
+     * @param cursor       The ID of the last pet of the previous page.
+     * @param species      The species of the pet.
+     * @param size         The size of the pet.
+     * @param shelterId    The ID of the shelter.
+     * @param isAdopted    The adopted status of the pet.
+     * @param isVaccinated The vaccination status of the pet.
+     * @param limit        The maximum number of pets to return.
+     * @return List of active pets.
+     */
+    default List<Pet> findActivePage(Long cursor,
+                                     PetSpeciesEnum species,
+                                     PetSizeEnum size,
+                                     Long shelterId,
+                                     Boolean isAdopted,
+                                     Boolean isVaccinated,
+                                     Limit limit) {
+        // Projecting on petType loads it through a fetch graph, like Pet.SUMMARY_GRAPH
+        return findBy(
+                PetSpecifications.activePage(cursor, species, size, shelterId, isAdopted, isVaccinated),
+                query -> query.project("petType")
+                        .sortBy(Sort.by(Sort.Direction.ASC, "id"))
+                        .limit(limit.max())
+                        .all());
+    }
+
+    /**
+     * Retrieves all active pets with their records, in a single query.
+     *
+     * @return List of active pets.
+     */
+    @Query("SELECT p FROM Pet p WHERE p.deletedAt IS NULL")
+    @EntityGraph(Pet.DETAIL_GRAPH)
+    List<Pet> findAllActiveWithRecords();
+
+    /**
+     * Retrieves all active pets of a shelter with their records, in a single query.
+     *
+     * @param shelterId The ID of the shelter.
+     * @return List of active pets in the shelter.
+     */
+    @Query("SELECT p FROM Pet p WHERE p.shelter.id = :shelterId AND p.deletedAt IS NULL")
+    @EntityGraph(Pet.DETAIL_GRAPH)
+    List<Pet> findAllActiveWithRecordsByShelterId(@Param("shelterId") Long shelterId);
+
+    /**
+     * Retrieves an active pet with its records, in a single query.
+     *
+     * @param id The ID of the pet.
+     * @return An Optional containing the pet if found and not deleted.
+     */
+    @Query("SELECT p FROM Pet p WHERE p.id = :id AND p.deletedAt IS NULL")
+    @EntityGraph(Pet.DETAIL_GRAPH)
+    Optional<Pet> findActiveWithRecordsById(@Param("id") Long id);
+
+    /**
+     * Retrieves all soft-deleted pets with their records, in a single query.
+     *
+     * @return List of soft-deleted pets.
+     */
+    @Query("SELECT p FROM Pet p WHERE p.deletedAt IS NOT NULL")
+    @EntityGraph(Pet.DETAIL_GRAPH)
+    List<Pet> findAllDeletedWithRecords();
+
+    /**
+     * Retrieves all active pets with their pet type, as summaries.
+     *
+     * @param ids The IDs of the pets.
+     * @return List of active pets, in no particular order.
+     */
+    @Query("SELECT p FROM Pet p WHERE p.id IN :ids AND p.deletedAt IS NULL")
+    @EntityGraph(Pet.SUMMARY_GRAPH)
+    List<Pet> findAllActiveByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves the searchable attributes of all active pets, without loading the entities.
+     *
+     * @return List of snapshots of the active pets.
+     */
+    @Query("""
+            SELECT new org.mindera.fur.code.service.pet.event.PetSnapshot(
+                p.id, p.shelter.id, p.petType.species, p.size, p.color, p.age, p.isAdopted, p.isVaccinated)
+            FROM Pet p
+            WHERE p.deletedAt IS NULL
+            """)
+    List<PetSnapshot> findAllActiveSnapshots();
+
+    /**
+     * Full-text search of active pets by name, color and observations, ranked by relevance.
+     * Only the pets of the requested window are ranked against each other and highlighted.
+     * The snippet is plain text with {@link PetTextSearchHit} markers around the matched words, not HTML.
+     *
+     * @param query  The search text, in web search syntax (quoted phrases, OR, -exclusions).
+     * @param limit  The maximum number of pets to return.
+     * @param offset The number of ranked pets to skip.
+     * @return The matching pets, best match first.
+     */
+    @Query(nativeQuery = true, value = """
+            WITH query AS (SELECT websearch_to_tsquery('english', :query) AS tsq),
+            ranked AS (
+                SELECT p.id, ts_rank_cd(p.search_vector, query.tsq) AS rank
+                FROM pet p, query
+                WHERE p.deleted_at IS NULL
+                  AND p.search_vector @@ query.tsq
+                ORDER BY rank DESC, p.id
+                LIMIT :limit OFFSET :offset
+            )
+            SELECT r.id AS id, r.rank AS rank,
+                   ts_headline('english',
+                               translate(concat_ws(' - ', p.name, p.color, p.observations), chr(57344) || chr(57345), ''),
+                               query.tsq,
+                               'StartSel=' || chr(57344) || ', StopSel=' || chr(57345)
+                                   || ', MinWords=8, MaxWords=20, MaxFragments=2') AS snippet
+            FROM ranked r
+            JOIN pet p ON p.id = r.id, query
+            ORDER BY r.rank DESC, r.id
+            """)
+    List<PetTextSearchHit> searchByText(@Param("query") String query,
+                                        @Param("limit") int limit,
+                                        @Param("offset") int offset);
+
+    /**
+     * Retrieves the ID of the shelter that owns a pet, including soft-deleted pets.
+     *
+     * @param id The ID of the pet.
+     * @return An Optional containing the shelter ID if the pet exists.
+     */
+    @Query("SELECT p.shelter.id FROM Pet p WHERE p.id = :id")
+    Optional<Long> findShelterIdById(@Param("id") Long id);
+
+    /**
+     * Retrieves the shelter of every active pet, without loading the entities.
+     *
+     * @return List of pet and shelter IDs of the active pets that belong to a shelter.
+     */
+    @Query("SELECT p.id AS petId, p.shelter.id AS shelterId FROM Pet p WHERE p.deletedAt IS NULL AND p.shelter IS NOT NULL")
+    List<PetOwnership> findAllActiveOwnerships();
+
+    /**
+     * The shelter that owns a pet.
+     */
+    interface PetOwnership {
+
+        Long getPetId();
+
+        Long getShelterId();
+    }
 }
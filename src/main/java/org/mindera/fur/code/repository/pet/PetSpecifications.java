@@ -0,0 +1,64 @@
+package org.mindera.fur.code.repository.pet;
+
+import jakarta.persistence.criteria.Predicate;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+import org.mindera.fur.code.model.pet.Pet;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for pet queries whose filters are optional.
+ * <p>
+ * Only the filters that are set become predicates, so each combination of filters gets its own plan
+ * and can use the matching index, instead of a single catch-all plan with {@code (:x IS NULL OR ...)} predicates.
+ * </p>
+ */
+public final class PetSpecifications {
+
+    private PetSpecifications() {
+    }
+
+    /**
+     * Active pets with an ID greater than the cursor, matching the given filters.
+     * Null filters are left out of the query.
+     *
+     * @param cursor       The ID of the last pet of the previous page.
+     * @param species      The species of the pet.
+     * @param size         The size of the pet.
+     * @param shelterId    The ID of the shelter.
+     * @param isAdopted    The adopted status of the pet.
+     * @param isVaccinated The vaccination status of the pet.
+     * @return The specification.
+     */
+    public static Specification<Pet> activePage(Long cursor,
+                                                PetSpeciesEnum species,
+                                                PetSizeEnum size,
+                                                Long shelterId,
+                                                Boolean isAdopted,
+                                                Boolean isVaccinated) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isNull(root.get("deletedAt")));
+            predicates.add(cb.greaterThan(root.get("id"), cursor));
+            if (species != null) {
+                predicates.add(cb.equal(root.join("petType").get("species"), species));
+            }
+            if (size != null) {
+                predicates.add(cb.equal(root.get("size"), size));
+            }
+            if (shelterId != null) {
+                predicates.add(cb.equal(root.get("shelter").get("id"), shelterId));
+            }
+            if (isAdopted != null) {
+                predicates.add(cb.equal(root.get("isAdopted"), isAdopted));
+            }
+            if (isVaccinated != null) {
+                predicates.add(cb.equal(root.get("isVaccinated"), isVaccinated));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package org.mindera.fur.code.repository.pet;
+
+/**
+ * A pet matched by the full-text search, with its rank and highlighted snippet.
+ * <p>
+ * The snippet is plain text, with the matched words between {@link #HIGHLIGHT_START} and {@link #HIGHLIGHT_STOP}.
+ * The markers are private use characters, removed from the pet text before it is highlighted,
+ * so they only ever come from the highlighting.
+ * </p>
+ */
+public interface PetTextSearchHit {
+
+    /**
+     * Marks the start of a matched word, {@code chr(57344)} in SQL.
+     */
+    char HIGHLIGHT_START = '\uE000';
+
+    /**
+     * Marks the end of a matched word, {@code chr(57345)} in SQL.
+     */
+    char HIGHLIGHT_STOP = '\uE001';
+
+    Long getId();
+
+    Float getRank();
+
+    String getSnippet();
+}
@@ -0,0 +1,52 @@
+package org.mindera.fur.code.service;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.dto.cache.CacheStatsDTO;
+import org.mindera.fur.code.dto.cache.ObjectCacheStatsDTO;
+import org.mindera.fur.code.infra.cache.LocalObjectCache;
+import org.mindera.fur.code.infra.cache.TwoTierCacheManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service class for inspecting the application caches.
+ */
+@Schema(description = "The cache service")
+@Service
+public class CacheService {
+
+    private final TwoTierCacheManager cacheManager;
+    private final LocalObjectCache localObjectCache;
+
+    /**
+     * Constructor for the CacheService.
+     *
+     * @param cacheManager     the two-tier cache manager
+     * @param localObjectCache the local cache of stored objects
+     */
+    @Autowired
+    public CacheService(TwoTierCacheManager cacheManager, LocalObjectCache localObjectCache) {
+        this.cacheManager = cacheManager;
+        this.localObjectCache = localObjectCache;
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of every cache, per tier.
+     *
+     * @return the list of cache statistics
+     */
+    public List<CacheStatsDTO> getCacheStats() {
+        return cacheManager.getStats();
+    }
+
+    /**
+     * Gets the size, hit ratio and traffic of the local object cache.
+     *
+     * @return the local object cache statistics
+     */
+    public ObjectCacheStatsDTO getObjectCacheStats() {
+        return localObjectCache.getStats();
+    }
+}
@@ -2,44 +2,96 @@ package org.mindera.fur.code.service;
 
 import io.minio.*;
 import io.minio.errors.*;
+import io.minio.http.Method;
 import io.minio.messages.Item;
+import io.minio.messages.Part;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.EntityNotFoundException;
 import org.apache.commons.lang3.StringUtils;
 import org.mindera.fur.code.aspect.roleauth.RequiresRole;
 import org.mindera.fur.code.dto.file.FileUploadDTO;
+import org.mindera.fur.code.dto.file.FileUploadResultDTO;
 import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.infra.cache.LocalObjectCache;
+import org.mindera.fur.code.infra.minio.MultipartMinioClient;
+import org.mindera.fur.code.messages.pet.PetMessages;
 import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.file.UploadPart;
+import org.mindera.fur.code.service.file.ImageBlobService;
+import org.mindera.fur.code.service.file.ImageMetadataService;
+import org.mindera.fur.code.service.file.ImageReference;
+import org.mindera.fur.code.service.file.ImageUploadStream;
+import org.mindera.fur.code.service.file.StoredFile;
+import org.mindera.fur.code.service.file.event.ImageDeletedEvent;
+import org.mindera.fur.code.service.file.event.ImageStoredEvent;
+import org.mindera.fur.code.service.pet.PetOwnershipIndex;
 import org.mindera.fur.code.service.pet.PetService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.math.BigInteger;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 import java.util.*;
 
 @Schema(description = "The file service")
 @Service
 public class FileService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileService.class);
     private static final String BUCKET_NAME = "furcode";
-    private static final int MAX_FILE_UPLOAD_SIZE = 10000000;
+    public static final int MAX_FILE_UPLOAD_SIZE = 10000000;
+    // Minimum S3 part size: a streamed upload of unknown length buffers at most one part in memory
+    private static final long STREAM_PART_SIZE = 5L * 1024 * 1024;
     private static final List<String> SUPPORTED_EXTENSIONS = List.of("jpg", "png", "gif", "pdf");
+    // Uploads are streamed here first, then moved to their blob once their SHA-256 is known
+    private static final String STAGING_PREFIX = "staging/";
+    // Unreferenced blobs and abandoned staging objects are kept this long before they are removed
+    private static final Duration ORPHAN_GRACE = Duration.ofHours(1);
+    private static final int SWEEP_BATCH_SIZE = 100;
 
     private final MinioClient minioClient;
     private final PetService petService;
     private final ShelterService shelterService;
+    private final ImageMetadataService imageMetadataService;
+    private final ImageBlobService imageBlobService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LocalObjectCache localObjectCache;
+    private final MultipartMinioClient multipartMinioClient;
+    private final PetOwnershipIndex petOwnershipIndex;
 
     @Autowired
-    public FileService(MinioClient minioClient, PetService petService, ShelterService shelterService) {
+    public FileService(MinioClient minioClient, PetService petService, ShelterService shelterService,
+                       ImageMetadataService imageMetadataService, ImageBlobService imageBlobService,
+                       ApplicationEventPublisher eventPublisher, LocalObjectCache localObjectCache,
+                       MultipartMinioClient multipartMinioClient, PetOwnershipIndex petOwnershipIndex) {
         this.minioClient = minioClient;
+        this.multipartMinioClient = multipartMinioClient;
         this.petService = petService;
         this.shelterService = shelterService;
+        this.imageMetadataService = imageMetadataService;
+        this.imageBlobService = imageBlobService;
+        this.eventPublisher = eventPublisher;
+        this.localObjectCache = localObjectCache;
+        this.petOwnershipIndex = petOwnershipIndex;
     }
 
     /**
@@ -55,16 +107,14 @@ public class FileService {
             throw new IllegalArgumentException("Pet ID must be provided");
         }
 
-        //if (petService.findPetById(id) == null) {
-        //    throw new IllegalArgumentException("Pet not found");
-        //}
+        if (petOwnershipIndex.shelterIdOf(id) == null) {
+            throw new EntityNotFoundException(PetMessages.PET_NOT_FOUND + id);
+        }
 
         checkFileValidity(file);
         checkImageType(file.getFileData());
 
-        File newFile = convertBase64ToFile(file.getFileData(), file.getMd5());
-        uploadFileToBucket(filePath, file, newFile);
-        newFile.delete();
+        uploadFileToBucket(filePath, file, ImageOwnerType.PET, id);
     }
 
     /**
@@ -87,9 +137,49 @@ public class FileService {
         checkFileValidity(file);
         checkImageType(file.getFileData());
 
-        File newFile = convertBase64ToFile(file.getFileData(), file.getMd5());
-        uploadFileToBucket(filePath, file, newFile);
-        newFile.delete();
+        uploadFileToBucket(filePath, file, ImageOwnerType.SHELTER, id);
+    }
+
+    /**
+     * Streams a pet image from the request body to the Minio bucket.
+     * The body is never buffered whole: its type, size and checksum are checked as it is streamed.
+     *
+     * @param filePath      the path to the file in the Minio bucket.
+     * @param fileName      the name of the file.
+     * @param content       the raw image bytes.
+     * @param contentLength the length of the content, or -1 if unknown.
+     * @param sha256        the expected SHA-256 checksum as hex, or null to skip the check.
+     * @param id            the ID of the pet associated with the file.
+     * @return the stored file.
+     */
+    @RequiresRole(value = Role.ADMIN, isPetOperation = true, petIdParam = 5)
+    public FileUploadResultDTO streamImagePet(String filePath, String fileName, InputStream content,
+                                              long contentLength, String sha256, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Pet ID must be provided");
+        }
+        return streamFileToBucket(filePath, fileName, content, contentLength, sha256, ImageOwnerType.PET, id);
+    }
+
+    /**
+     * Streams a shelter image from the request body to the Minio bucket.
+     * The body is never buffered whole: its type, size and checksum are checked as it is streamed.
+     *
+     * @param filePath      the path to the file in the Minio bucket.
+     * @param fileName      the name of the file.
+     * @param content       the raw image bytes.
+     * @param contentLength the length of the content, or -1 if unknown.
+     * @param sha256        the expected SHA-256 checksum as hex, or null to skip the check.
+     * @param id            the ID of the shelter associated with the file.
+     * @return the stored file.
+     */
+    @RequiresRole(value = Role.ADMIN, shelterIdParam = 5)
+    public FileUploadResultDTO streamImageShelter(String filePath, String fileName, InputStream content,
+                                                  long contentLength, String sha256, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Shelter ID must be provided");
+        }
+        return streamFileToBucket(filePath, fileName, content, contentLength, sha256, ImageOwnerType.SHELTER, id);
     }
 
     /**
@@ -152,14 +242,14 @@ public class FileService {
     }
 
     /**
-     * Calculates the size of a file.
+     * Calculates the size of a file from the length of its Base64 encoding, without decoding it.
      *
      * @param fileData the Base64-encoded string.
      * @return the size of the file.
      */
     private int fileSize(String fileData) {
-        byte[] decodedContent = Base64.getDecoder().decode(fileData.getBytes(StandardCharsets.UTF_8));
-        return decodedContent.length;
+        int padding = fileData.endsWith("==") ? 2 : fileData.endsWith("=") ? 1 : 0;
+        return fileData.length() / 4 * 3 - padding;
     }
 
     /**
@@ -174,26 +264,11 @@ public class FileService {
             throw new IllegalArgumentException("Pet ID must be provided");
         }
 
-        //if (petService.findPetById(id) == null) {
-        //    throw new IllegalArgumentException("Pet not found");
-        //}
-
-        byte[] fileData = null;
-        try {
-            fileData = downloadFileFromBucket(filePath);
-            return fileData;
-        } catch (FileException e) {
-            for (String extension : SUPPORTED_EXTENSIONS) {
-                try {
-                    String fileWithExtension = filePath + "." + extension;
-                    fileData = downloadFileFromBucket(fileWithExtension);
-                    return fileData; // Return if successful
-                } catch (FileException ignored) {
-                    // Ignore the error and try the next extension
-                }
-            }
+        if (petOwnershipIndex.shelterIdOf(id) == null) {
+            throw new EntityNotFoundException(PetMessages.PET_NOT_FOUND + id);
         }
-        throw new FileException("File not found for name: " + filePath + " with any supported extensions");
+
+        return readFile(resolveFileInBucket(filePath));
     }
 
     /**
@@ -212,22 +287,321 @@ public class FileService {
         //    throw new IllegalArgumentException("Shelter not found");
         //}
 
-        byte[] fileData = null;
+        return readFile(resolveFileInBucket(filePath));
+    }
+
+    /**
+     * Gets the metadata of a pet image, without downloading it.
+     *
+     * @param filePath the path to the file in the Minio bucket.
+     * @param id       the ID of the pet associated with the file.
+     * @return the stored file.
+     * @throws EntityNotFoundException if the pet does not exist.
+     */
+    public StoredFile statImagePet(String filePath, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Pet ID must be provided");
+        }
+
+        if (petOwnershipIndex.shelterIdOf(id) == null) {
+            throw new EntityNotFoundException(PetMessages.PET_NOT_FOUND + id);
+        }
+
+        return resolveFileInBucket(filePath);
+    }
+
+    /**
+     * Gets the metadata of a shelter image, without downloading it.
+     *
+     * @param filePath the path to the file in the Minio bucket.
+     * @param id       the ID of the shelter associated with the file.
+     * @return the stored file.
+     * @throws EntityNotFoundException if the shelter does not exist.
+     */
+    public StoredFile statImageShelter(String filePath, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Shelter ID must be provided");
+        }
+
+        shelterService.findShelterEntityById(id);
+
+        return resolveFileInBucket(filePath);
+    }
+
+    /**
+     * Gets the metadata of an image by the SHA-256 of its content.
+     *
+     * @param sha256 the SHA-256 of the image, as lowercase hex.
+     * @return the stored file.
+     */
+    public StoredFile statBlob(String sha256) {
+        return imageBlobService.find(sha256)
+                .orElseThrow(() -> new FileException("File not found for hash: " + sha256));
+    }
+
+    /**
+     * Opens a stream over a byte range of a stored file. Only the requested range is fetched from Minio.
+     * The caller must close the stream.
+     *
+     * @param file   the stored file.
+     * @param offset the first byte to read.
+     * @param length the number of bytes to read.
+     * @return the stream of the range.
+     */
+    public InputStream openFile(StoredFile file, long offset, long length) {
         try {
-            fileData = downloadFileFromBucket(filePath);
-            return fileData;
-        } catch (FileException e) {
-            for (String extension : SUPPORTED_EXTENSIONS) {
-                try {
-                    String fileWithExtension = filePath + "." + extension;
-                    fileData = downloadFileFromBucket(fileWithExtension);
-                    return fileData; // Return if successful
-                } catch (FileException ignored) {
-                    // Ignore the error and try the next extension
-                }
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .object(file.objectName())
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a byte range of a stored file to an output stream.
+     * Files small enough for the local object cache are served from the local disk, and fetched whole from Minio
+     * on a miss. Larger files, and cached files evicted before they could be opened, are streamed from Minio,
+     * range only.
+     *
+     * @param file   the stored file.
+     * @param offset the first byte to write.
+     * @param length the number of bytes to write.
+     * @param output the stream to write to, left open.
+     * @throws IOException if the output cannot be written.
+     */
+    public void transferFile(StoredFile file, long offset, long length, OutputStream output) throws IOException {
+        Optional<Path> cached = cachedFile(file);
+        if (cached.isPresent()) {
+            try {
+                localObjectCache.transfer(cached.get(), offset, length, Channels.newChannel(output));
+                return;
+            } catch (NoSuchFileException e) {
+                // Evicted before it was opened, so nothing was written yet: stream it from Minio instead
+                logger.debug("Could not open {} in the local object cache: {}", file.objectName(), e.getMessage());
             }
         }
-        throw new FileException("File not found for name: " + filePath + " with any supported extensions");
+        try (InputStream input = openFile(file, offset, length)) {
+            input.transferTo(output);
+        }
+    }
+
+    /**
+     * Creates a presigned GET URL for a stored file, so clients download it from Minio directly.
+     * The response to the URL is cacheable by the client until the URL expires.
+     *
+     * @param file   the stored file.
+     * @param expiry how long the URL is valid.
+     * @return the presigned URL.
+     */
+    public String presignFile(StoredFile file, Duration expiry) {
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(BUCKET_NAME)
+                    .object(file.objectName())
+                    .expiry((int) expiry.toSeconds())
+                    .extraQueryParams(Map.of("response-cache-control", "private, max-age=" + expiry.toSeconds()))
+                    .build());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a whole stored file.
+     *
+     * @param file the stored file.
+     * @return the content of the file.
+     */
+    public byte[] readFile(StoredFile file) {
+        Optional<Path> cached = cachedFile(file);
+        if (cached.isPresent()) {
+            try {
+                return localObjectCache.read(cached.get());
+            } catch (IOException e) {
+                // Evicted meanwhile: read it from Minio instead
+                logger.debug("Could not read {} from the local object cache: {}", file.objectName(), e.getMessage());
+            }
+        }
+        return downloadFileFromBucket(file.objectName());
+    }
+
+    /**
+     * Gets the metadata of a file by its exact key, without a metadata lookup.
+     *
+     * @param objectName the path to the file in the Minio bucket.
+     * @return the stored file, or empty if there is no such file.
+     */
+    public Optional<StoredFile> findFile(String objectName) {
+        try {
+            return Optional.of(statFileInBucket(objectName));
+        } catch (FileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a generated file, such as an image derivative, in the Minio bucket.
+     * No metadata is recorded and no event is published.
+     *
+     * @param objectName  the path to the file in the Minio bucket.
+     * @param data        the content of the file.
+     * @param contentType the MIME type of the file.
+     * @return the stored file.
+     */
+    public StoredFile storeFile(String objectName, byte[] data, String contentType) {
+        try {
+            ObjectWriteResponse response = minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .object(objectName)
+                    .contentType(contentType)
+                    .stream(new ByteArrayInputStream(data), data.length, -1)
+                    .build());
+            localObjectCache.invalidate(objectName);
+            return new StoredFile(objectName, contentType, data.length,
+                    response != null ? response.etag() : null, ZonedDateTime.now());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes a generated file, such as an image derivative, from the Minio bucket.
+     *
+     * @param objectName the path to the file in the Minio bucket.
+     */
+    public void deleteFile(String objectName) {
+        removeFileFromBucket(objectName);
+        localObjectCache.invalidate(objectName);
+    }
+
+    /**
+     * Returns a new key in the staging area, where uploads wait until they are moved to their blob.
+     * Staged objects left behind are swept after {@link #ORPHAN_GRACE}.
+     *
+     * @return the staging key.
+     */
+    public String newStagingKey() {
+        return STAGING_PREFIX + UUID.randomUUID();
+    }
+
+    /**
+     * Starts a multipart upload to a staging key.
+     *
+     * @param stagingKey  the staging key the parts are assembled in.
+     * @param contentType the MIME type of the file.
+     * @return the ID of the multipart upload.
+     */
+    public String createMultipartUpload(String stagingKey, String contentType) {
+        try {
+            return multipartMinioClient.createUpload(BUCKET_NAME, stagingKey, contentType);
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads one part of a multipart upload. Parts can be uploaded in any order, in parallel, and again.
+     *
+     * @param stagingKey the staging key the parts are assembled in.
+     * @param uploadId   the ID of the multipart upload.
+     * @param partNumber the number of the part, from 1.
+     * @param content    the content of the part.
+     * @param length     the length of the part.
+     * @return the entity tag of the part.
+     */
+    public String uploadPart(String stagingKey, String uploadId, int partNumber, InputStream content, long length) {
+        try {
+            return multipartMinioClient.uploadPart(BUCKET_NAME, stagingKey, uploadId, partNumber, content, length);
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Assembles the parts of a multipart upload into its staging object.
+     *
+     * @param stagingKey the staging key the parts are assembled in.
+     * @param uploadId   the ID of the multipart upload.
+     * @param parts      the parts, in order.
+     */
+    public void completeMultipartUpload(String stagingKey, String uploadId, List<UploadPart> parts) {
+        try {
+            multipartMinioClient.completeUpload(BUCKET_NAME, stagingKey, uploadId, parts.stream()
+                    .map(part -> new Part(part.getPartNumber(), part.getEtag()))
+                    .toArray(Part[]::new));
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Aborts a multipart upload, freeing the parts uploaded so far.
+     *
+     * @param stagingKey the staging key the parts are assembled in.
+     * @param uploadId   the ID of the multipart upload.
+     */
+    public void abortMultipartUpload(String stagingKey, String uploadId) {
+        try {
+            multipartMinioClient.abortUpload(BUCKET_NAME, stagingKey, uploadId);
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    /**
+     * Stores a file assembled in the staging area as an image of its owner.
+     * The file is read back once to check its type, size and checksum, then moved to its blob like a direct upload.
+     * A staged file that is not a valid image is removed.
+     *
+     * @param stagingKey the staging key of the file.
+     * @param objectName the path to the image in the Minio bucket.
+     * @param sha256     the expected SHA-256 checksum as hex, or null to skip the check.
+     * @param ownerType  the type of the owner of the image.
+     * @param ownerId    the ID of the owner of the image.
+     * @return the stored file.
+     */
+    public FileUploadResultDTO storeStagedUpload(String stagingKey, String objectName, String sha256,
+                                                 ImageOwnerType ownerType, Long ownerId) {
+        ImageUploadStream upload;
+        try (InputStream content = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(BUCKET_NAME)
+                .object(stagingKey)
+                .build())) {
+            upload = new ImageUploadStream(content, MAX_FILE_UPLOAD_SIZE);
+            upload.transferTo(OutputStream.nullOutputStream());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException | FileException e) {
+            removeFileFromBucket(stagingKey);
+            throw new FileException(e.getMessage());
+        }
+
+        if (sha256 != null && !sha256.equalsIgnoreCase(upload.getSha256())) {
+            removeFileFromBucket(stagingKey);
+            throw new FileException("Checksum does not match: " + sha256 + " vs " + upload.getSha256());
+        }
+
+        recordUpload(objectName, storeBlob(stagingKey, upload), upload.getSha256(), ownerType, ownerId);
+        return new FileUploadResultDTO(objectName, upload.getImageType().getContentType(), upload.getSize(), upload.getSha256());
     }
 
     /**
@@ -295,76 +669,256 @@ public class FileService {
     }
 
     /**
-     * Converts a Base64-encoded string to a file.
+     * Gets the MIME type of file from its byte array.
      *
-     * @param fileData the Base64-encoded string.
-     * @param fileName the name of the file.
-     * @return the file.
+     * @param fileData the byte array.
+     * @return the MIME type of the file.
      */
-    private File convertBase64ToFile(String fileData, String fileName) {
-        byte[] decodedContent = Base64.getDecoder().decode(fileData.getBytes(StandardCharsets.UTF_8));
-        return bytesToFile(decodedContent, fileName);
+    public String getMimeTypeFromBytes(byte[] fileData) {
+        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(fileData)) {
+            return URLConnection.guessContentTypeFromStream(inputStream);
+        } catch (IOException e) {
+            return "application/octet-stream";
+        }
     }
 
     /**
-     * Converts a byte array to a file.
+     * Uploads a Base64-encoded file to the Minio bucket, decoding it while it is streamed, and records its metadata.
+     * The content is stored once, in its blob.
      *
-     * @param content  the byte array.
-     * @param fileName the name of the file.
-     * @return the file.
+     * @param filePath  the path to the file in the Minio bucket.
+     * @param file      the file to upload.
+     * @param ownerType the type of the owner of the file.
+     * @param ownerId   the ID of the owner of the file.
      */
-    private File bytesToFile(byte[] content, String fileName) {
-        File file = new File(fileName);
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(content);
-            return file;
-        } catch (IOException e) {
+    private void uploadFileToBucket(String filePath, FileUploadDTO file, ImageOwnerType ownerType, Long ownerId) {
+        String objectName = ImageMetadataService.normalize(filePath + file.getFileName());
+        String stagingKey = newStagingKey();
+        ImageUploadStream upload = new ImageUploadStream(Base64.getDecoder().wrap(
+                new ByteArrayInputStream(file.getFileData().getBytes(StandardCharsets.US_ASCII))), MAX_FILE_UPLOAD_SIZE);
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .object(stagingKey)
+                    .contentType(upload.getImageType().getContentType())
+                    .stream(upload, fileSize(file.getFileData()), -1)
+                    .build());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
             throw new FileException(e.getMessage());
         }
+        recordUpload(objectName, storeBlob(stagingKey, upload), upload.getSha256(), ownerType, ownerId);
     }
 
     /**
-     * Gets an input stream from a file.
+     * Streams a file to the Minio bucket, checking its type, size and checksum on the way.
+     * When the length is unknown, Minio uploads it in parts of {@link #STREAM_PART_SIZE} bytes.
+     * An object whose checksum does not match is removed again. The content is stored once, in its blob.
      *
-     * @param file the file.
-     * @return the input stream.
+     * @param filePath      the path to the file in the Minio bucket.
+     * @param fileName      the name of the file.
+     * @param content       the raw file bytes.
+     * @param contentLength the length of the content, or -1 if unknown.
+     * @param sha256        the expected SHA-256 checksum as hex, or null to skip the check.
+     * @param ownerType     the type of the owner of the file.
+     * @param ownerId       the ID of the owner of the file.
+     * @return the stored file.
      */
-    private FileInputStream getFileInputStreamFromFile(File file) {
+    private FileUploadResultDTO streamFileToBucket(String filePath, String fileName, InputStream content,
+                                                   long contentLength, String sha256,
+                                                   ImageOwnerType ownerType, Long ownerId) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new FileException("File name must be provided");
+        }
+        if (contentLength > MAX_FILE_UPLOAD_SIZE) {
+            throw new FileException("File size must be less than " + MAX_FILE_UPLOAD_SIZE + " bytes. Current file size: " + contentLength + " bytes");
+        }
+
+        String objectName = ImageMetadataService.normalize(filePath + fileName);
+        String stagingKey = newStagingKey();
+        ImageUploadStream upload = new ImageUploadStream(content, MAX_FILE_UPLOAD_SIZE);
         try {
-            return new FileInputStream(file);
-        } catch (FileNotFoundException e) {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .object(stagingKey)
+                    .contentType(upload.getImageType().getContentType())
+                    .stream(upload, contentLength >= 0 ? contentLength : -1, contentLength >= 0 ? -1 : STREAM_PART_SIZE)
+                    .build());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            if (upload.isTooLarge()) {
+                throw new FileException("File size must be less than " + MAX_FILE_UPLOAD_SIZE + " bytes");
+            }
             throw new FileException(e.getMessage());
         }
+
+        if (sha256 != null && !sha256.equalsIgnoreCase(upload.getSha256())) {
+            removeFileFromBucket(stagingKey);
+            throw new FileException("Checksum does not match: " + sha256 + " vs " + upload.getSha256());
+        }
+
+        recordUpload(objectName, storeBlob(stagingKey, upload), upload.getSha256(), ownerType, ownerId);
+        return new FileUploadResultDTO(objectName, upload.getImageType().getContentType(), upload.getSize(), upload.getSha256());
     }
 
     /**
-     * Gets the MIME type of file from its byte array.
+     * Moves an uploaded file from staging to its blob, and takes a reference on the blob.
+     * When the blob already exists, the upload is a duplicate and is just dropped.
      *
-     * @param fileData the byte array.
-     * @return the MIME type of the file.
+     * @param stagingKey the path to the uploaded file in the Minio bucket.
+     * @param upload     the uploaded content, fully read.
+     * @return the stored blob.
      */
-    public String getMimeTypeFromBytes(byte[] fileData) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(fileData)) {
-            return URLConnection.guessContentTypeFromStream(inputStream);
-        } catch (IOException e) {
-            return "application/octet-stream";
+    private StoredFile storeBlob(String stagingKey, ImageUploadStream upload) {
+        String sha256 = upload.getSha256();
+        String blobKey = ImageBlobService.keyOf(sha256);
+        String contentType = upload.getImageType().getContentType();
+        try {
+            if (!imageBlobService.acquire(sha256)) {
+                // The staged object may have been created before its type was sniffed, so the type is set here
+                minioClient.copyObject(CopyObjectArgs.builder()
+                        .bucket(BUCKET_NAME)
+                        .object(blobKey)
+                        .source(CopySource.builder().bucket(BUCKET_NAME).object(stagingKey).build())
+                        .headers(Map.of("Content-Type", contentType))
+                        .metadataDirective(Directive.REPLACE)
+                        .build());
+                if (imageBlobService.create(sha256, contentType, upload.getSize())) {
+                    eventPublisher.publishEvent(new ImageStoredEvent(blobKey));
+                }
+            }
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new FileException(e.getMessage());
+        } finally {
+            try {
+                removeFileFromBucket(stagingKey);
+            } catch (FileException e) {
+                logger.warn("Could not remove staged upload {}, it is swept later: {}", stagingKey, e.getMessage());
+            }
         }
+        return new StoredFile(blobKey, contentType, upload.getSize(), sha256, ZonedDateTime.now());
     }
 
     /**
-     * Uploads a file to the Minio bucket.
+     * Records the metadata of an uploaded file.
+     * If it cannot be recorded, the reference taken on its blob is released.
+     *
+     * @param objectName the path to the file in the Minio bucket.
+     * @param blob       the blob of the file.
+     * @param sha256     the SHA-256 of the file.
+     * @param ownerType  the type of the owner of the file.
+     * @param ownerId    the ID of the owner of the file.
+     */
+    private void recordUpload(String objectName, StoredFile blob, String sha256,
+                              ImageOwnerType ownerType, Long ownerId) {
+        try {
+            imageMetadataService.record(ownerType, ownerId, objectName, blob, sha256);
+        } catch (RuntimeException e) {
+            imageBlobService.release(sha256);
+            throw e;
+        }
+        // A re-upload replaces an image stored under its own key before the blob storage
+        localObjectCache.invalidate(objectName);
+    }
+
+    /**
+     * Finds a stored file in the local object cache, fetching it from Minio on a miss.
+     * Entries are versioned by entity tag, so a file changed in the bucket is fetched again.
+     * Blobs are versioned by the SHA-256 their {@link StoredFile} carries as entity tag, and fetched unconditionally.
+     *
+     * @param file the stored file.
+     * @return the cached copy, or empty if the file is not cacheable or could not be cached.
+     */
+    private Optional<Path> cachedFile(StoredFile file) {
+        if (file.etag() == null || !localObjectCache.accepts(file.size())) {
+            return Optional.empty();
+        }
+        Optional<Path> cached = localObjectCache.get(file.objectName(), file.etag());
+        if (cached.isPresent()) {
+            return cached;
+        }
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(BUCKET_NAME)
+                .object(file.objectName());
+        // A blob is versioned by the SHA-256 of its content, not by its Minio entity tag, and never changes
+        if (!file.etag().equals(ImageBlobService.sha256Of(file.objectName()))) {
+            args.matchETag(file.etag());
+        }
+        try (InputStream input = minioClient.getObject(args.build())) {
+            return Optional.of(localObjectCache.put(file.objectName(), file.etag(), input));
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            logger.debug("Could not cache {} locally: {}", file.objectName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Removes a file from the Minio bucket.
+     *
+     * @param objectName the path to the file in the Minio bucket.
+     */
+    private void removeFileFromBucket(String objectName) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder()
+                    .bucket(BUCKET_NAME)
+                    .object(objectName)
+                    .build());
+        } catch (Exception e) {
+            throw new FileException("Error deleting file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds a file in the Minio bucket with one metadata lookup.
+     * Files not indexed yet are found by trying the supported extensions when the exact key does not exist.
      *
      * @param filePath the path to the file in the Minio bucket.
-     * @param file     the file to upload.
-     * @param newFile  the file to upload.
+     * @return the stored file.
+     */
+    private StoredFile resolveFileInBucket(String filePath) {
+        String objectName = ImageMetadataService.normalize(filePath);
+        Optional<StoredFile> indexed = imageMetadataService.resolve(objectName);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        try {
+            return statFileInBucket(filePath);
+        } catch (FileException e) {
+            for (String extension : SUPPORTED_EXTENSIONS) {
+                try {
+                    return statFileInBucket(filePath + "." + extension);
+                } catch (FileException ignored) {
+                    // Ignore the error and try the next extension
+                }
+            }
+        }
+        throw new FileException("File not found for name: " + filePath + " with any supported extensions");
+    }
+
+    /**
+     * Gets the metadata of a file in the Minio bucket.
+     * Files stored without a content type get one guessed from their name.
+     *
+     * @param objectName the path to the file in the Minio bucket.
+     * @return the stored file.
      */
-    private void uploadFileToBucket(String filePath, FileUploadDTO file, File newFile) {
+    private StoredFile statFileInBucket(String objectName) {
         try {
-            minioClient.putObject(PutObjectArgs.builder()
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder()
                     .bucket(BUCKET_NAME)
-                    .object(filePath + file.getFileName())
-                    .stream(getFileInputStreamFromFile(newFile), newFile.length(), -1)
+                    .object(objectName)
                     .build());
+            String contentType = stat.contentType();
+            if (contentType == null || contentType.equals("application/octet-stream")) {
+                contentType = Optional.ofNullable(getFileMimeTypeFromFileName(objectName)).orElse("application/octet-stream");
+            }
+            return new StoredFile(objectName, contentType, stat.size(), stat.etag(), stat.lastModified());
         } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
                  InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
                  XmlParserException e) {
@@ -395,103 +949,146 @@ public class FileService {
 
 
     public List<String> getAllImagesFromPet(Long petId) {
-        List<String> imageUrls = new ArrayList<>();
-        String prefix = String.format("pet/%s/image/", petId);
-
-        try {
-            for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
-                    .bucket(BUCKET_NAME)
-                    .prefix(prefix)
-                    .build())) {
-                Item item = result.get(); // Extract the Item from the Result
-                String objectName = item.objectName();
+        return imageMetadataService.findAllByOwner(ImageOwnerType.PET, petId).stream()
+                .map(image -> {
+                    String sha256 = ImageBlobService.sha256Of(image.file().objectName());
+                    return sha256 != null
+                            ? String.format("/api/v1/blob/%s", sha256)
+                            : String.format("/api/v1/download/%s", image.key());
+                })
+                .toList();
+    }
 
-                String imageUrl = String.format("/api/v1/download/%s", objectName);
-                imageUrls.add(imageUrl);
-            }
-        } catch (Exception e) {
-            throw new FileException("Error listing pet images: " + e.getMessage());
-        }
+    public List<Map<String, String>> getAllImagesFromPetAsBase64(Long petId) {
+        return getAllImagesAsBase64(ImageOwnerType.PET, petId);
+    }
 
-        return imageUrls;
+    public List<Map<String, String>> getAllImagesFromShelterAsBase64(Long petId) {
+        return getAllImagesAsBase64(ImageOwnerType.SHELTER, petId);
     }
 
-    public List<Map<String, String>> getAllImagesFromPetAsBase64(Long petId) {
+    private List<Map<String, String>> getAllImagesAsBase64(ImageOwnerType ownerType, Long ownerId) {
         List<Map<String, String>> imageList = new ArrayList<>();
-        String prefix = String.format("pet/%s/image/", petId);
 
         try {
-            for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
-                    .bucket(BUCKET_NAME)
-                    .prefix(prefix)
-                    .build())) {
-                Item item = result.get();
-                String objectName = item.objectName();
+            for (ImageReference image : imageMetadataService.findAllByOwner(ownerType, ownerId)) {
+                String objectName = image.key();
 
-                byte[] fileBytes = downloadFileFromBucket(objectName);
-                String mimeType = getMimeTypeFromBytes(fileBytes);
+                byte[] fileBytes = readFile(image.file());
                 String base64Image = Base64.getEncoder().encodeToString(fileBytes);
-                String base64DataUrl = String.format("data:%s;base64,%s", mimeType, base64Image);
+                String base64DataUrl = String.format("data:%s;base64,%s", image.file().contentType(), base64Image);
 
                 // Create a map for the image
                 Map<String, String> imageMap = new HashMap<>();
-                imageMap.put("id", item.objectName());
+                imageMap.put("id", objectName);
                 imageMap.put("name", objectName);
                 imageMap.put("data", base64DataUrl);
 
                 imageList.add(imageMap);
             }
         } catch (Exception e) {
-            throw new FileException("Error listing pet images: " + e.getMessage());
+            throw new FileException("Error listing " + ownerType.getPrefix() + " images: " + e.getMessage());
         }
 
         return imageList;
     }
 
-    public List<Map<String, String>> getAllImagesFromShelterAsBase64(Long petId) {
-        List<Map<String, String>> imageList = new ArrayList<>();
-        String prefix = String.format("shelter/%s/image/", petId);
+    /**
+     * Indexes the images already in the bucket that have no metadata yet, once the application is ready.
+     * Failures are logged: unindexed images are still found, with a slower lookup.
+     * Newly indexed images get their derivatives generated, unless they already exist in the bucket.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexStoredImages() {
+        try {
+            List<StoredFile> files = new ArrayList<>();
+            for (ImageOwnerType ownerType : ImageOwnerType.values()) {
+                for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
+                        .bucket(BUCKET_NAME)
+                        .prefix(ownerType.getPrefix() + "/")
+                        .recursive(true)
+                        .build())) {
+                    Item item = result.get();
+                    String contentType = Optional.ofNullable(getFileMimeTypeFromFileName(item.objectName()))
+                            .orElse("application/octet-stream");
+                    ZonedDateTime lastModified = item.lastModified() != null ? item.lastModified() : ZonedDateTime.now();
+                    String etag = item.etag() != null ? item.etag().replace("\"", "") : null;
+                    files.add(new StoredFile(item.objectName(), contentType, item.size(), etag, lastModified));
+                }
+            }
+            List<String> indexed = imageMetadataService.indexMissing(files);
+            logger.info("Indexed {} stored images without metadata", indexed.size());
+            indexed.forEach(objectName -> eventPublisher.publishEvent(new ImageStoredEvent(objectName)));
+        } catch (Exception e) {
+            logger.warn("Could not index the stored images: {}", e.getMessage());
+        }
+    }
 
+    /**
+     * Removes the blobs that have not been referenced for {@link #ORPHAN_GRACE}, with their derivatives,
+     * and the staged uploads abandoned for as long.
+     * The grace period lets an upload of the same content revive a blob instead of racing its removal.
+     * A claimed blob cannot be referenced again, and its record is only deleted once the object
+     * and its derivatives are gone, so an upload of the same content never writes a blob that is being removed.
+     */
+    @Scheduled(fixedDelayString = "${file.blob.sweep-interval:PT15M}",
+            initialDelayString = "${file.blob.sweep-interval:PT15M}")
+    public void sweepOrphanedBlobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ORPHAN_GRACE);
         try {
+            int removed = 0;
+            for (String sha256 : imageBlobService.findOrphans(cutoff, SWEEP_BATCH_SIZE)) {
+                if (imageBlobService.claimOrphan(sha256, cutoff)) {
+                    String blobKey = ImageBlobService.keyOf(sha256);
+                    removeFileFromBucket(blobKey);
+                    localObjectCache.invalidate(blobKey);
+                    eventPublisher.publishEvent(new ImageDeletedEvent(blobKey));
+                    imageBlobService.removeOrphan(sha256);
+                    removed++;
+                }
+            }
+            ZonedDateTime stagedBefore = ZonedDateTime.now().minus(ORPHAN_GRACE);
             for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
                     .bucket(BUCKET_NAME)
-                    .prefix(prefix)
+                    .prefix(STAGING_PREFIX)
                     .build())) {
                 Item item = result.get();
-                String objectName = item.objectName();
-
-                byte[] fileBytes = downloadFileFromBucket(objectName);
-                String mimeType = getMimeTypeFromBytes(fileBytes);
-                String base64Image = Base64.getEncoder().encodeToString(fileBytes);
-                String base64DataUrl = String.format("data:%s;base64,%s", mimeType, base64Image);
-
-                // Create a map for the image
-                Map<String, String> imageMap = new HashMap<>();
-                imageMap.put("id", item.objectName());
-                imageMap.put("name", objectName);
-                imageMap.put("data", base64DataUrl);
-
-                imageList.add(imageMap);
+                if (item.lastModified() != null && item.lastModified().isBefore(stagedBefore)) {
+                    removeFileFromBucket(item.objectName());
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                logger.info("Swept {} orphaned blobs and staged uploads", removed);
             }
         } catch (Exception e) {
-            throw new FileException("Error listing pet images: " + e.getMessage());
+            logger.warn("Could not sweep the orphaned blobs: {}", e.getMessage());
         }
-
-        return imageList;
     }
 
 
     @RequiresRole(value = Role.ADMIN, isPetOperation = true, petIdParam = 1)
     public void deleteImagePet(String filePath, Long petId) {
+        String normalized = ImageMetadataService.normalize(filePath);
+        Optional<ImageReference> image = imageMetadataService.find(normalized);
+        if (image.isPresent() && !image.get().key().equals(image.get().file().objectName())) {
+            // Stored in a shared blob: only the reference goes, the blob is swept once nothing references it
+            imageMetadataService.remove(image.get().key());
+            return;
+        }
+        String objectName = image.map(ImageReference::key).orElse(normalized);
         try {
             // Logic to delete the file from the storage (e.g., Minio, S3)
             minioClient.removeObject(RemoveObjectArgs.builder()
                     .bucket(BUCKET_NAME)
-                    .object(filePath)
+                    .object(objectName)
                     .build());
         } catch (Exception e) {
             throw new FileException("Error deleting image: " + e.getMessage());
         }
+        localObjectCache.invalidate(objectName);
+        imageMetadataService.remove(objectName);
+        eventPublisher.publishEvent(new ImageDeletedEvent(objectName));
     }
 
 }
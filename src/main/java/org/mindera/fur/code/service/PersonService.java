@@ -13,6 +13,10 @@ import org.mindera.fur.code.dto.shelter.ShelterCreationDTO;
 import org.mindera.fur.code.dto.shelter.ShelterDTO;
 import org.mindera.fur.code.dto.shelterPersonRoles.ShelterPersonRolesDTO;
 import org.mindera.fur.code.exceptions.person.PersonException;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
+import org.mindera.fur.code.infra.security.LoginThrottle;
+import org.mindera.fur.code.infra.security.PasswordHasher;
+import org.mindera.fur.code.infra.security.PrincipalService;
 import org.mindera.fur.code.infra.security.TokenService;
 import org.mindera.fur.code.mapper.PersonMapper;
 import org.mindera.fur.code.mapper.shelter.ShelterPersonRolesMapper;
@@ -26,7 +30,6 @@ import org.mindera.fur.code.service.pet.PetService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -50,12 +53,17 @@ public class PersonService {
     private PersonMapper personMapper;
     private ShelterPersonRolesMapper shelterPersonRolesMapper;
     private TokenService tokenService;
+    private final PrincipalService principalService;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
 
     @Autowired
     public PersonService(PersonRepository personRepository, ShelterService shelterService,
                          ShelterPersonRolesRepository shelterPersonRolesRepository, DonationService donationService,
                          ShelterRepository shelterRepository, //Gmailer gmailer,
-                         PetService petService, TokenService tokenService) throws Exception {
+                         PetService petService, TokenService tokenService,
+                         PrincipalService principalService, PasswordHasher passwordHasher,
+                         LoginThrottle loginThrottle) throws Exception {
         this.personRepository = personRepository;
         this.shelterService = shelterService;
         this.shelterPersonRolesRepository = shelterPersonRolesRepository;
@@ -64,6 +72,9 @@ public class PersonService {
         this.donationService = donationService;
         this.petService = petService;
         this.tokenService = tokenService;
+        this.principalService = principalService;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
@@ -180,10 +191,12 @@ public class PersonService {
      * @return the saved Person object
      * @throws PersonException if any required fields are null or invalid
      * @throws PersonException if the email is already in use
+     * @throws TooManyRequestsException if the client registered too many persons recently
      */
 //    @CacheEvict(cacheNames = "persons", allEntries = true)
     public PersonDTO createPerson(PersonCreationDTO personCreationDTO) {
         try {
+            loginThrottle.checkRegistration();
             personValidation(personCreationDTO);
             emailValidation(personCreationDTO.getEmail());
             passwordValidation(personCreationDTO.getPassword());
@@ -195,7 +208,7 @@ public class PersonService {
             Person person = personMapper.INSTANCE.toModel(personCreationDTO);
             person.setRole(Role.USER);
 
-            String encryptedPassword = new BCryptPasswordEncoder().encode(personCreationDTO.getPassword());
+            String encryptedPassword = passwordHasher.encode(personCreationDTO.getPassword());
             person.setPassword(encryptedPassword);
 
             Person savedPerson = personRepository.save(person);
@@ -214,6 +227,8 @@ public class PersonService {
 //            }
 
             return personMapper.INSTANCE.toDTO(savedPerson);
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             throw new PersonException(PersonMessages.FAILED_TO_CREATE_PERSON);
         }
@@ -270,6 +285,7 @@ public class PersonService {
         shelterPersonRoles = shelterPersonRolesRepository.save(shelterPersonRoles);
 
         personRepository.save(person);
+        principalService.evict(person.getEmail());
 
         return shelterPersonRolesMapper.INSTANCE.toDto(shelterPersonRoles);
     }
@@ -352,6 +368,7 @@ public class PersonService {
         Person person = personRepository.findById(id).orElseThrow(
                 () -> new PersonException(PersonMessages.PERSON_NOT_FOUND)
         );
+        String previousEmail = person.getEmail();
         if (personDTO.getFirstName() != null) {
             person.setFirstName(personDTO.getFirstName());
         }
@@ -374,6 +391,8 @@ public class PersonService {
             person.setCellPhone(personDTO.getCellPhone());
         }
         personRepository.save(person);
+        principalService.evict(previousEmail);
+        principalService.evict(person.getEmail());
         return personMapper.INSTANCE.toDTO(person);
     }
 
@@ -393,6 +412,7 @@ public class PersonService {
                 () -> new PersonException(PersonMessages.PERSON_NOT_FOUND)
         );
         personRepository.delete(person);
+        principalService.evict(person.getEmail());
     }
 
     /**
@@ -432,6 +452,7 @@ public class PersonService {
         );
         person.setRole(Role.MANAGER);
         personRepository.save(person);
+        principalService.evict(person.getEmail());
         ShelterDTO shelter = shelterService.createShelter(shelterCreationDTO);
         Long shelterId = shelter.getId();
 
@@ -463,7 +484,8 @@ public class PersonService {
      * If any of these conditions are not met, an appropriate exception is thrown.
      *
      * <p>After successful validation, the person is mapped to a Person model object
-     * and saved to the repository.
+     * and saved to the repository. The token version of the person is incremented,
+     * which revokes the tokens issued with the previous role.
      *
      * @param id   the ID of the person to update
      * @param role the role to set
@@ -478,7 +500,9 @@ public class PersonService {
                 () -> new PersonException(PersonMessages.PERSON_NOT_FOUND)
         );
         person.setRole(role);
+        person.setTokenVersion(person.getTokenVersion() + 1);
         personRepository.save(person);
+        principalService.evict(person.getEmail());
         return personMapper.INSTANCE.toDTO(person);
     }
 
@@ -19,8 +19,13 @@ import org.mindera.fur.code.model.pet.Pet;
 import org.mindera.fur.code.repository.PersonRepository;
 import org.mindera.fur.code.repository.ShelterRepository;
 import org.mindera.fur.code.repository.pet.PetRepository;
+import org.mindera.fur.code.service.pet.PetOwnershipIndex;
 import org.mindera.fur.code.service.pet.PetService;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
@@ -39,6 +44,8 @@ public class ShelterService {
     private final ShelterRepository shelterRepository;
     private final PersonRepository personRepository;
     private final PetRepository petRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PetOwnershipIndex petOwnershipIndex;
 
     /**
      * Constructor for the ShelterService.
@@ -48,6 +55,8 @@ public class ShelterService {
      * @param petRepository     the pet repository
      * @param petService        the pet service
      * @param donationService   the donation service
+     * @param eventPublisher    the application event publisher
+     * @param petOwnershipIndex the pet ownership index
      */
     @Autowired
     public ShelterService(
@@ -55,13 +64,17 @@ public class ShelterService {
             PersonRepository personRepository,
             PetRepository petRepository,
             PetService petService,
-            DonationService donationService
+            DonationService donationService,
+            ApplicationEventPublisher eventPublisher,
+            PetOwnershipIndex petOwnershipIndex
     ) {
         this.shelterRepository = shelterRepository;
         this.personRepository = personRepository;
         this.petRepository = petRepository;
         this.petService = petService;
         this.donationService = donationService;
+        this.eventPublisher = eventPublisher;
+        this.petOwnershipIndex = petOwnershipIndex;
     }
 
     /**
@@ -139,18 +152,26 @@ public class ShelterService {
 
     /**
      * Adds a pet to a shelter.
+     * An active pet that already belongs to the shelter is left as is, without being loaded.
      *
      * @param shelterId the shelter id
      * @param petId     the pet id
      *
      * @throws EntityNotFoundException if the pet or shelter is not found
      */
+    @CacheEvict(cacheNames = "pet", key = "#petId")
+    @Transactional
     public void addPetToShelter(@NotNull @Positive Long shelterId, @NotNull @Positive Long petId) {
+        if (shelterId.equals(petOwnershipIndex.activeShelterIdOf(petId))) {
+            return;
+        }
         Pet pet = petService.findActivePetEntityById(petId);
         Shelter shelter = findShelterEntityById(shelterId);
+        PetSnapshot before = PetSnapshot.of(pet);
 
         pet.setShelter(shelter);
         petRepository.save(pet);
+        eventPublisher.publishEvent(new PetChangedEvent(before, PetSnapshot.of(pet)));
     }
 
     /**
@@ -160,10 +181,7 @@ public class ShelterService {
      * @return a list of all active pets in the shelter.
      */
     public List<PetDTO> getAllPetsInShelter(@NotNull @Positive Long id) {
-        return petService.findAllPets()
-                .stream()
-                .filter(pet -> pet.getShelterId().equals(id))
-                .toList();
+        return petService.findAllPetsByShelterId(id);
     }
 
     /**
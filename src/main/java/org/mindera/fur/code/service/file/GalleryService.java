@@ -0,0 +1,138 @@
+package org.mindera.fur.code.service.file;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.enums.file.ImageVariant;
+import org.mindera.fur.code.service.FileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Service class for the image galleries of pets and shelters.
+ * <p>
+ * The images of a gallery are fetched concurrently on the gallery executor and written as a JSON array,
+ * one element as soon as each image is ready, in completion order. At most {@code gallery.window} images
+ * of a request are in flight or waiting to be written, so memory per request stays bounded whatever the
+ * size of the gallery.
+ * </p>
+ * <p>
+ * Thumbnails are read from the stored thumbnail derivative; images without one yet are downscaled on the fly.
+ * </p>
+ */
+@Service
+public class GalleryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GalleryService.class);
+
+    private final ImageMetadataService imageMetadataService;
+    private final FileService fileService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ThreadPoolTaskExecutor galleryExecutor;
+    private final ObjectMapper objectMapper;
+    private final int window;
+
+    @Autowired
+    public GalleryService(ImageMetadataService imageMetadataService,
+                          FileService fileService,
+                          ImageDerivativeService imageDerivativeService,
+                          @Qualifier("galleryExecutor") ThreadPoolTaskExecutor galleryExecutor,
+                          ObjectMapper objectMapper,
+                          @Value("${gallery.window:4}") int window) {
+        this.imageMetadataService = imageMetadataService;
+        this.fileService = fileService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.galleryExecutor = galleryExecutor;
+        this.objectMapper = objectMapper;
+        this.window = window;
+    }
+
+    /**
+     * Writes the gallery of an owner as a JSON array of {@code {id, name, contentType, size, data}} objects,
+     * where {@code data} is the Base64-encoded image.
+     * Images that cannot be fetched are left out.
+     *
+     * @param ownerType  The type of the owner.
+     * @param ownerId    The ID of the owner.
+     * @param thumbnails Whether to send thumbnails instead of the full images.
+     * @param output     The stream to write the JSON to.
+     * @throws IOException if the JSON cannot be written.
+     */
+    public void writeGallery(ImageOwnerType ownerType, Long ownerId, boolean thumbnails, OutputStream output) throws IOException {
+        List<ImageReference> files = imageMetadataService.findAllByOwner(ownerType, ownerId);
+        CompletionService<GalleryImage> completion = new ExecutorCompletionService<>(galleryExecutor.getThreadPoolExecutor());
+        List<Future<GalleryImage>> futures = new ArrayList<>(files.size());
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+            json.writeStartArray();
+            int next = 0;
+            while (next < files.size() && next < window) {
+                futures.add(completion.submit(fetch(files.get(next++), thumbnails)));
+            }
+            for (int written = 0; written < files.size(); written++) {
+                Future<GalleryImage> done = completion.take();
+                if (next < files.size()) {
+                    futures.add(completion.submit(fetch(files.get(next++), thumbnails)));
+                }
+                GalleryImage image;
+                try {
+                    image = done.get();
+                } catch (ExecutionException e) {
+                    logger.warn("Could not fetch a gallery image of {} {}: {}", ownerType, ownerId, e.getCause().getMessage());
+                    continue;
+                }
+                json.writeStartObject();
+                json.writeStringField("id", image.objectName());
+                json.writeStringField("name", image.objectName());
+                json.writeStringField("contentType", image.contentType());
+                json.writeNumberField("size", image.data().length);
+                json.writeBinaryField("data", image.data());
+                json.writeEndObject();
+                json.flush();
+            }
+            json.writeEndArray();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the gallery", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Callable<GalleryImage> fetch(ImageReference image, boolean thumbnail) {
+        StoredFile file = image.file();
+        return () -> {
+            if (thumbnail) {
+                StoredFile stored = imageDerivativeService.selectVariant(file, ImageVariant.THUMBNAIL.getMaxDimension());
+                if (!stored.objectName().equals(file.objectName())) {
+                    return new GalleryImage(image.key(), stored.contentType(), fileService.readFile(stored));
+                }
+            }
+            byte[] data = fileService.readFile(file);
+            if (thumbnail) {
+                return ImageResizer.downscale(data, ImageVariant.THUMBNAIL.getMaxDimension())
+                        .map(resized -> new GalleryImage(image.key(), resized.contentType(), resized.data()))
+                        .orElseGet(() -> new GalleryImage(image.key(), file.contentType(), data));
+            }
+            return new GalleryImage(image.key(), file.contentType(), data);
+        };
+    }
+
+    private record GalleryImage(String objectName, String contentType, byte[] data) {
+    }
+}
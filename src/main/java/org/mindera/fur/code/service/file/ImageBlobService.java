@@ -0,0 +1,165 @@
+package org.mindera.fur.code.service.file;
+
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.file.ImageBlob;
+import org.mindera.fur.code.repository.file.ImageBlobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Service class for the content-addressed storage of images.
+ * <p>
+ * The bytes of an image are stored once under {@code blob/<first two hex digits>/<sha256>}, whatever pet or shelter
+ * they belong to. Images reference blobs through their metadata, and blobs count their references. Since the key
+ * of a blob is derived from its content, a blob never changes and can be cached forever.
+ * </p>
+ */
+@Service
+public class ImageBlobService {
+
+    private static final String PREFIX = "blob/";
+    private static final Pattern BLOB_KEY = Pattern.compile("^blob/[0-9a-f]{2}/([0-9a-f]{64})(/.*)?$");
+
+    private final ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    public ImageBlobService(ImageBlobRepository imageBlobRepository) {
+        this.imageBlobRepository = imageBlobRepository;
+    }
+
+    /**
+     * Returns the key of the blob with a content.
+     *
+     * @param sha256 The SHA-256 of the content, as lowercase hex.
+     * @return The key of the blob.
+     */
+    public static String keyOf(String sha256) {
+        return PREFIX + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    /**
+     * Returns the SHA-256 of the blob an object key belongs to: the blob itself or one of its derivatives.
+     *
+     * @param objectKey The object key.
+     * @return The SHA-256 of the blob, or null if the key is not in the blob storage.
+     */
+    public static String sha256Of(String objectKey) {
+        Matcher matcher = BLOB_KEY.matcher(objectKey);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Adds a reference to an existing blob.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @return True if the blob exists and was referenced, false if it must be created.
+     * @throws FileException if the blob is being removed from the bucket; it can be created once it is gone.
+     */
+    public boolean acquire(String sha256) {
+        if (imageBlobRepository.acquire(sha256) == 1) {
+            return true;
+        }
+        // The record is only deleted after its object, so a missing record means the object can be written again
+        if (imageBlobRepository.existsById(sha256)) {
+            throw new FileException("The same image is being removed, try again in a moment");
+        }
+        return false;
+    }
+
+    /**
+     * Records a blob just stored in the bucket, with one reference.
+     * If another upload recorded the same blob meanwhile, a reference is added to it instead.
+     *
+     * @param sha256      The SHA-256 of the blob.
+     * @param contentType The content type of the blob.
+     * @param size        The size of the blob, in bytes.
+     * @return True if the blob was recorded, false if it was already recorded.
+     */
+    public boolean create(String sha256, String contentType, long size) {
+        ImageBlob blob = new ImageBlob();
+        blob.setSha256(sha256);
+        blob.setObjectKey(keyOf(sha256));
+        blob.setContentType(contentType);
+        blob.setSize(size);
+        blob.setRefCount(1);
+        blob.setCreatedAt(LocalDateTime.now());
+        try {
+            imageBlobRepository.saveAndFlush(blob);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (!acquire(sha256)) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Removes a reference to a blob. The blob is removed by {@link #findOrphans}, {@link #claimOrphan}
+     * and {@link #removeOrphan} once it has been unreferenced for a while.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     */
+    public void release(String sha256) {
+        imageBlobRepository.release(sha256, LocalDateTime.now());
+    }
+
+    /**
+     * Retrieves a blob.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @return An Optional containing the stored blob if found.
+     */
+    public Optional<StoredFile> find(String sha256) {
+        return imageBlobRepository.findById(sha256).map(ImageBlobService::toStoredFile);
+    }
+
+    /**
+     * Retrieves the SHA-256 of the blobs unreferenced since before a time.
+     *
+     * @param cutoff The time before which the blobs were orphaned.
+     * @param limit  The maximum number of blobs to return.
+     * @return List of SHA-256.
+     */
+    public List<String> findOrphans(LocalDateTime cutoff, int limit) {
+        return imageBlobRepository.findOrphans(cutoff, Limit.of(limit)).stream()
+                .map(ImageBlob::getSha256)
+                .toList();
+    }
+
+    /**
+     * Marks an orphaned blob as being removed, unless it was referenced again.
+     * The blob can no longer be referenced; the caller must then remove it from the bucket
+     * and call {@link #removeOrphan}.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     * @param cutoff The time before which the blob was orphaned.
+     * @return True if the blob must be removed from the bucket.
+     */
+    public boolean claimOrphan(String sha256, LocalDateTime cutoff) {
+        return imageBlobRepository.markDeleting(sha256, cutoff, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Deletes the record of a claimed blob, once its object was removed from the bucket.
+     *
+     * @param sha256 The SHA-256 of the blob.
+     */
+    public void removeOrphan(String sha256) {
+        imageBlobRepository.deleteDeleting(sha256);
+    }
+
+    private static StoredFile toStoredFile(ImageBlob blob) {
+        return new StoredFile(blob.getObjectKey(), blob.getContentType(), blob.getSize(), blob.getSha256(),
+                blob.getCreatedAt().atZone(ZoneId.systemDefault()));
+    }
+}
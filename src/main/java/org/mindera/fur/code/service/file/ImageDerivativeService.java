@@ -0,0 +1,268 @@
+package org.mindera.fur.code.service.file;
+
+import org.mindera.fur.code.model.enums.file.DerivativeJobStatus;
+import org.mindera.fur.code.model.enums.file.ImageVariant;
+import org.mindera.fur.code.model.file.ImageDerivative;
+import org.mindera.fur.code.model.file.ImageDerivativeJob;
+import org.mindera.fur.code.repository.file.ImageDerivativeJobRepository;
+import org.mindera.fur.code.repository.file.ImageDerivativeRepository;
+import org.mindera.fur.code.service.FileService;
+import org.mindera.fur.code.service.file.event.ImageDeletedEvent;
+import org.mindera.fur.code.service.file.event.ImageStoredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service class for the derivatives of images: smaller copies generated after upload for every {@link ImageVariant}.
+ * <p>
+ * Every stored image gets a persisted job. Jobs run on the derivative executor; failed ones are retried with
+ * exponential backoff and the ones rejected by a full queue or lost with a node are picked up by a poller.
+ * Derivatives are stored under deterministic keys (see {@link ImageVariant#keyFor(String)}), so a job that runs
+ * again reuses the derivatives already in the bucket instead of generating them again.
+ * </p>
+ * <p>
+ * A variant is only generated when the original is larger than it. Images that cannot be decoded, such as WebP,
+ * and images of more than {@value #MAX_PIXELS} pixels get no derivatives and are always served as they were uploaded.
+ * The original is decoded once and every variant is scaled from it.
+ * </p>
+ */
+@Service
+public class ImageDerivativeService {
+
+    public static final String CACHE_NAME = "imageDerivatives";
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration STALE_AFTER = Duration.ofMinutes(10);
+    private static final int POLL_BATCH_SIZE = 20;
+    static final long MAX_PIXELS = 40_000_000L;
+
+    private final FileService fileService;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    private final ImageDerivativeJobRepository imageDerivativeJobRepository;
+    private final ThreadPoolTaskExecutor derivativeExecutor;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public ImageDerivativeService(FileService fileService,
+                                  ImageDerivativeRepository imageDerivativeRepository,
+                                  ImageDerivativeJobRepository imageDerivativeJobRepository,
+                                  @Qualifier("derivativeExecutor") ThreadPoolTaskExecutor derivativeExecutor,
+                                  CacheManager cacheManager) {
+        this.fileService = fileService;
+        this.imageDerivativeRepository = imageDerivativeRepository;
+        this.imageDerivativeJobRepository = imageDerivativeJobRepository;
+        this.derivativeExecutor = derivativeExecutor;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Queues the generation of the derivatives of a stored image.
+     *
+     * @param event The stored image.
+     */
+    @EventListener
+    public void onImageStored(ImageStoredEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        ImageDerivativeJob job = new ImageDerivativeJob();
+        job.setObjectKey(event.objectKey());
+        job.setStatus(DerivativeJobStatus.PENDING);
+        job.setNextAttemptAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        submit(imageDerivativeJobRepository.save(job).getId());
+    }
+
+    /**
+     * Deletes the derivatives of a deleted image.
+     *
+     * @param event The deleted image.
+     */
+    @EventListener
+    public void onImageDeleted(ImageDeletedEvent event) {
+        for (ImageDerivative derivative : imageDerivativeRepository.findAllByOriginalKey(event.objectKey())) {
+            try {
+                fileService.deleteFile(derivative.getObjectKey());
+            } catch (RuntimeException e) {
+                logger.warn("Could not delete derivative {}: {}", derivative.getObjectKey(), e.getMessage());
+            }
+        }
+        imageDerivativeRepository.deleteAllByOriginalKey(event.objectKey());
+        evict(event.objectKey());
+    }
+
+    /**
+     * Picks up the jobs that are due: retries, jobs rejected by a full queue and jobs lost with a node.
+     */
+    @Scheduled(fixedDelayString = "${image.derivatives.poll-interval:PT30S}",
+            initialDelayString = "${image.derivatives.poll-interval:PT30S}")
+    public void pollJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = imageDerivativeJobRepository.releaseStale(now.minus(STALE_AFTER));
+        if (released > 0) {
+            logger.info("Released {} stale derivative jobs", released);
+        }
+        imageDerivativeJobRepository.findDueIds(DerivativeJobStatus.PENDING, now, Limit.of(POLL_BATCH_SIZE))
+                .forEach(this::submit);
+    }
+
+    /**
+     * Selects the smallest stored variant of an image that is at least as large as the requested size.
+     * The original is returned when no size is requested or no variant is large enough.
+     *
+     * @param original The original image.
+     * @param size     The requested size in pixels of the longest side, or null for the original.
+     * @return The selected variant, or the original.
+     */
+    public StoredFile selectVariant(StoredFile original, Integer size) {
+        if (size == null) {
+            return original;
+        }
+        return findVariants(original.objectName()).stream()
+                .filter(variant -> variant.variant().getMaxDimension() >= size)
+                .min(Comparator.comparingInt(variant -> variant.variant().getMaxDimension()))
+                .map(ImageVariantFile::file)
+                .orElse(original);
+    }
+
+    /**
+     * Retrieves the stored variants of an image.
+     *
+     * @param originalKey The key of the original image.
+     * @return List of variants.
+     */
+    public List<ImageVariantFile> findVariants(String originalKey) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return loadVariants(originalKey);
+        }
+        return cache.get(originalKey, () -> loadVariants(originalKey));
+    }
+
+    private List<ImageVariantFile> loadVariants(String originalKey) {
+        List<ImageVariantFile> variants = new ArrayList<>();
+        for (ImageDerivative derivative : imageDerivativeRepository.findAllByOriginalKey(originalKey)) {
+            variants.add(new ImageVariantFile(derivative.getVariant(), new StoredFile(derivative.getObjectKey(),
+                    derivative.getContentType(), derivative.getSize(), derivative.getEtag(),
+                    derivative.getCreatedAt().atZone(ZoneId.systemDefault()))));
+        }
+        return variants;
+    }
+
+    private void submit(Long jobId) {
+        try {
+            derivativeExecutor.execute(() -> process(jobId));
+        } catch (TaskRejectedException e) {
+            // The job stays pending, the poller submits it again
+            logger.debug("Derivative queue full, job {} left for the poller", jobId);
+        }
+    }
+
+    /**
+     * Runs a job, if no other node claimed it first.
+     *
+     * @param jobId The ID of the job.
+     */
+    void process(Long jobId) {
+        if (imageDerivativeJobRepository.claim(jobId, LocalDateTime.now()) == 0) {
+            return;
+        }
+        ImageDerivativeJob job = imageDerivativeJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        try {
+            generate(job.getObjectKey());
+            job.setStatus(DerivativeJobStatus.DONE);
+            job.setLastError(null);
+        } catch (Exception e) {
+            String error = String.valueOf(e.getMessage());
+            job.setLastError(error.length() > 999 ? error.substring(0, 999) : error);
+            if (job.getAttempts() >= MAX_ATTEMPTS) {
+                job.setStatus(DerivativeJobStatus.FAILED);
+                logger.warn("Derivative job {} for {} failed for good: {}", jobId, job.getObjectKey(), error);
+            } else {
+                job.setStatus(DerivativeJobStatus.PENDING);
+                job.setNextAttemptAt(LocalDateTime.now().plus(BASE_BACKOFF.multipliedBy(1L << (job.getAttempts() - 1))));
+                logger.info("Derivative job {} for {} failed, attempt {}: {}", jobId, job.getObjectKey(), job.getAttempts(), error);
+            }
+        }
+        job.setUpdatedAt(LocalDateTime.now());
+        imageDerivativeJobRepository.save(job);
+    }
+
+    /**
+     * Generates the missing derivatives of an image and records all of them.
+     * The original is only downloaded when a derivative is missing from the bucket.
+     *
+     * @param originalKey The key of the original image.
+     * @throws Exception if the original cannot be read or a derivative cannot be stored.
+     */
+    private void generate(String originalKey) throws Exception {
+        Optional<StoredFile> original = fileService.findFile(originalKey);
+        if (original.isEmpty()) {
+            // Deleted since it was queued
+            return;
+        }
+        Optional<BufferedImage> source = null;
+        for (ImageVariant variant : ImageVariant.values()) {
+            String key = variant.keyFor(originalKey);
+            Optional<StoredFile> stored = fileService.findFile(key);
+            if (stored.isEmpty()) {
+                if (source == null) {
+                    source = ImageResizer.decode(fileService.readFile(original.get()), MAX_PIXELS);
+                }
+                if (source.isEmpty()) {
+                    continue;
+                }
+                Optional<ImageResizer.EncodedImage> resized = ImageResizer.downscale(source.get(), variant.getMaxDimension());
+                if (resized.isEmpty()) {
+                    continue;
+                }
+                stored = Optional.of(fileService.storeFile(key, resized.get().data(), resized.get().contentType()));
+            }
+            record(originalKey, variant, stored.get());
+        }
+        evict(originalKey);
+    }
+
+    private void record(String originalKey, ImageVariant variant, StoredFile file) {
+        ImageDerivative derivative = imageDerivativeRepository.findByOriginalKeyAndVariant(originalKey, variant)
+                .orElseGet(ImageDerivative::new);
+        derivative.setOriginalKey(originalKey);
+        derivative.setVariant(variant);
+        derivative.setObjectKey(file.objectName());
+        derivative.setContentType(file.contentType());
+        derivative.setSize(file.size());
+        derivative.setEtag(file.etag());
+        derivative.setCreatedAt(LocalDateTime.now());
+        imageDerivativeRepository.save(derivative);
+    }
+
+    private void evict(String originalKey) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(originalKey);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.mindera.fur.code.service.file;
+
+import jakarta.transaction.Transactional;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.file.ImageMetadata;
+import org.mindera.fur.code.repository.file.ImageMetadataRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Service class for the metadata of the images stored in the bucket.
+ * <p>
+ * Every upload is recorded here, so downloads and listings find the stored object with one lookup
+ * instead of probing the bucket. Keys are stored without a leading slash, the way Minio stores them.
+ * </p>
+ * <p>
+ * Images stored in a blob (see {@link ImageBlobService}) hold a reference to it, which is released when the image
+ * is removed or replaced by other content.
+ * </p>
+ */
+@Service
+public class ImageMetadataService {
+
+    public static final String CACHE_NAME = "imageMetadata";
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final ImageBlobService imageBlobService;
+
+    @Autowired
+    public ImageMetadataService(ImageMetadataRepository imageMetadataRepository, ImageBlobService imageBlobService) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.imageBlobService = imageBlobService;
+    }
+
+    /**
+     * Resolves a requested key to a stored image: the exact key, or else the newest image with
+     * the same key and any extension.
+     *
+     * @param key The requested key, normalized with {@link #normalize(String)}.
+     * @return An Optional containing the stored object of the image if found.
+     */
+    @Cacheable(cacheNames = CACHE_NAME, key = "#key", unless = "#result == null")
+    public Optional<StoredFile> resolve(String key) {
+        return find(key).map(ImageReference::file);
+    }
+
+    /**
+     * Resolves a requested key to an image like {@link #resolve(String)}, without the cache.
+     *
+     * @param key The requested key, normalized with {@link #normalize(String)}.
+     * @return An Optional containing the image if found.
+     */
+    public Optional<ImageReference> find(String key) {
+        return imageMetadataRepository.resolve(key, Limit.of(1)).stream()
+                .findFirst()
+                .map(ImageMetadataService::toReference);
+    }
+
+    /**
+     * Retrieves all images of an owner, oldest first.
+     *
+     * @param ownerType The type of the owner.
+     * @param ownerId   The ID of the owner.
+     * @return List of images.
+     */
+    public List<ImageReference> findAllByOwner(ImageOwnerType ownerType, Long ownerId) {
+        return imageMetadataRepository.findAllByOwnerTypeAndOwnerIdOrderByCreatedAtAsc(ownerType, ownerId).stream()
+                .map(ImageMetadataService::toReference)
+                .toList();
+    }
+
+    /**
+     * Checks whether a stored object belongs to an owner: it is in the folder of the owner,
+     * or it is a blob, or a derivative of a blob, that one of the images of the owner references.
+     *
+     * @param ownerType  The type of the owner.
+     * @param ownerId    The ID of the owner.
+     * @param objectName The key of the stored object.
+     * @return True if the object belongs to the owner.
+     */
+    public boolean isOwnedBy(ImageOwnerType ownerType, Long ownerId, String objectName) {
+        if (objectName.startsWith(ownerType.getPrefix() + "/" + ownerId + "/")) {
+            return true;
+        }
+        String sha256 = ImageBlobService.sha256Of(objectName);
+        return sha256 != null && imageMetadataRepository.existsByOwnerTypeAndOwnerIdAndBlobKey(
+                ownerType, ownerId, ImageBlobService.keyOf(sha256));
+    }
+
+    /**
+     * Records an uploaded image, replacing the metadata of a previous image with the same key.
+     * The reference the previous image held on a blob is released; the caller must hold one on the new blob.
+     *
+     * @param ownerType The type of the owner.
+     * @param ownerId   The ID of the owner.
+     * @param objectKey The key of the image.
+     * @param file      The stored object of the image: a blob, or the image key itself.
+     * @param sha256    The SHA-256 checksum of the image, or null if unknown.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CACHE_NAME, key = "#objectKey"),
+            @CacheEvict(cacheNames = CACHE_NAME, key = "T(org.mindera.fur.code.service.file.ImageMetadataService).lookupKeyOf(#objectKey)")
+    })
+    public void record(ImageOwnerType ownerType, Long ownerId, String objectKey, StoredFile file, String sha256) {
+        ImageMetadata metadata = imageMetadataRepository.findByObjectKey(objectKey)
+                .orElseGet(ImageMetadata::new);
+        String blobKey = file.objectName().equals(objectKey) ? null : file.objectName();
+        if (metadata.getBlobKey() != null) {
+            // The caller holds a reference on the new blob, even when the content did not change
+            imageBlobService.release(metadata.getSha256());
+        }
+        metadata.setObjectKey(objectKey);
+        metadata.setLookupKey(lookupKeyOf(objectKey));
+        metadata.setBlobKey(blobKey);
+        metadata.setOwnerType(ownerType);
+        metadata.setOwnerId(ownerId);
+        metadata.setContentType(file.contentType());
+        metadata.setSize(file.size());
+        metadata.setSha256(sha256);
+        metadata.setEtag(file.etag());
+        metadata.setCreatedAt(file.lastModified() != null
+                ? file.lastModified().withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                : LocalDateTime.now());
+        imageMetadataRepository.save(metadata);
+    }
+
+    /**
+     * Removes the metadata of a deleted image, releasing its blob.
+     *
+     * @param objectKey The key of the deleted object.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CACHE_NAME, key = "#objectKey"),
+            @CacheEvict(cacheNames = CACHE_NAME, key = "T(org.mindera.fur.code.service.file.ImageMetadataService).lookupKeyOf(#objectKey)")
+    })
+    public void remove(String objectKey) {
+        imageMetadataRepository.findByObjectKey(objectKey).ifPresent(metadata -> {
+            if (metadata.getBlobKey() != null) {
+                imageBlobService.release(metadata.getSha256());
+            }
+            imageMetadataRepository.delete(metadata);
+        });
+    }
+
+    /**
+     * Records the images found in the bucket that are not indexed yet.
+     * Objects outside the pet and shelter image folders are ignored.
+     *
+     * @param files The images found in the bucket.
+     * @return The keys of the images recorded.
+     */
+    @Transactional
+    public List<String> indexMissing(Collection<StoredFile> files) {
+        Set<String> indexed = imageMetadataRepository.findAllObjectKeys();
+        List<ImageMetadata> missing = new ArrayList<>();
+        for (StoredFile file : files) {
+            if (indexed.contains(file.objectName())) {
+                continue;
+            }
+            String[] segments = file.objectName().split("/");
+            if (segments.length < 4 || !segments[2].equals("image") || !segments[1].matches("\\d{1,18}")) {
+                continue;
+            }
+            for (ImageOwnerType ownerType : ImageOwnerType.values()) {
+                if (ownerType.getPrefix().equals(segments[0])) {
+                    ImageMetadata metadata = new ImageMetadata();
+                    metadata.setObjectKey(file.objectName());
+                    metadata.setLookupKey(lookupKeyOf(file.objectName()));
+                    metadata.setOwnerType(ownerType);
+                    metadata.setOwnerId(Long.parseLong(segments[1]));
+                    metadata.setContentType(file.contentType());
+                    metadata.setSize(file.size());
+                    metadata.setEtag(file.etag());
+                    metadata.setCreatedAt(file.lastModified().withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+                    missing.add(metadata);
+                }
+            }
+        }
+        imageMetadataRepository.saveAll(missing);
+        return missing.stream().map(ImageMetadata::getObjectKey).toList();
+    }
+
+    /**
+     * Normalizes a key the way Minio stores it, without a leading slash.
+     *
+     * @param key The key.
+     * @return The normalized key.
+     */
+    public static String normalize(String key) {
+        int start = 0;
+        while (start < key.length() && key.charAt(start) == '/') {
+            start++;
+        }
+        return key.substring(start);
+    }
+
+    /**
+     * Returns the lookup key of an object key: the key without the extension of its file name.
+     *
+     * @param objectKey The normalized object key.
+     * @return The lookup key.
+     */
+    public static String lookupKeyOf(String objectKey) {
+        int dot = objectKey.lastIndexOf('.');
+        return dot > objectKey.lastIndexOf('/') + 1 ? objectKey.substring(0, dot) : objectKey;
+    }
+
+    private static ImageReference toReference(ImageMetadata metadata) {
+        String objectName = metadata.getBlobKey() != null ? metadata.getBlobKey() : metadata.getObjectKey();
+        return new ImageReference(metadata.getObjectKey(), new StoredFile(objectName, metadata.getContentType(),
+                metadata.getSize(), metadata.getEtag(), metadata.getCreatedAt().atZone(ZoneId.systemDefault())));
+    }
+}
@@ -0,0 +1,11 @@
+package org.mindera.fur.code.service.file;
+
+/**
+ * An image of a pet or shelter: the key it is known by, and the stored object with its content.
+ * Images uploaded with the same content share the same stored object.
+ *
+ * @param key  The key of the image, e.g. {@code pet/1/image/tareco.jpg}.
+ * @param file The stored object.
+ */
+public record ImageReference(String key, StoredFile file) {
+}
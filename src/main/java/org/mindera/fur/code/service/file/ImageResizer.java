@@ -0,0 +1,105 @@
+package org.mindera.fur.code.service.file;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Downscales images with the JDK image codecs.
+ * <p>
+ * The JDK reads PNG and JPEG but not WebP, so WebP images are left as they are.
+ * Opaque images are written as JPEG, images with transparency as PNG.
+ * </p>
+ * <p>
+ * The dimensions are read from the image header before decoding, so an image that declares more pixels
+ * than allowed is never decoded. A small file can declare a huge image and allocate gigabytes when decoded.
+ * </p>
+ */
+public final class ImageResizer {
+
+    private ImageResizer() {
+    }
+
+    /**
+     * An encoded image.
+     *
+     * @param data        The encoded bytes.
+     * @param contentType The content type of the bytes.
+     * @param width       The width in pixels.
+     * @param height      The height in pixels.
+     */
+    public record EncodedImage(byte[] data, String contentType, int width, int height) {
+    }
+
+    /**
+     * Decodes an image, unless it has more pixels than allowed.
+     *
+     * @param data      The encoded image.
+     * @param maxPixels The maximum number of pixels (width times height) of the image.
+     * @return The decoded image, or empty if the image cannot be decoded or is too large.
+     * @throws IOException if the image is corrupt.
+     */
+    public static Optional<BufferedImage> decode(byte[] data, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            if (input == null) {
+                return Optional.empty();
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return Optional.empty();
+                }
+                return Optional.ofNullable(reader.read(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down so that its longest side is at most {@code maxDimension} pixels.
+     *
+     * @param source       The decoded image.
+     * @param maxDimension The maximum width and height of the result.
+     * @return The scaled image, or empty if the image is already small enough.
+     * @throws IOException if the image cannot be encoded.
+     */
+    public static Optional<EncodedImage> downscale(BufferedImage source, int maxDimension) throws IOException {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        if (longest <= maxDimension) {
+            return Optional.empty();
+        }
+
+        double scale = (double) maxDimension / longest;
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(target, alpha ? "png" : "jpg", output);
+        return Optional.of(new EncodedImage(output.toByteArray(), alpha ? "image/png" : "image/jpeg", width, height));
+    }
+}
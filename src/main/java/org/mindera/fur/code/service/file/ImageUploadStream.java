@@ -0,0 +1,126 @@
+package org.mindera.fur.code.service.file;
+
+import org.mindera.fur.code.exceptions.file.FileException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * An upload body that is checked while it is streamed, so the file is never held in memory or on disk.
+ * <p>
+ * The image type is sniffed from the first bytes before anything is read by the caller. The SHA-256
+ * checksum and the size are computed as the bytes go through, and reading fails as soon as the size
+ * goes over the limit.
+ * </p>
+ */
+public class ImageUploadStream extends FilterInputStream {
+
+    private final long maxSize;
+    private final ImageType imageType;
+    private final MessageDigest digest;
+    private long size;
+    private boolean tooLarge;
+    private String sha256;
+
+    /**
+     * Wraps an upload body and sniffs its image type.
+     *
+     * @param in      The upload body.
+     * @param maxSize The maximum number of bytes accepted.
+     * @throws FileException if the body is not a supported image.
+     */
+    public ImageUploadStream(InputStream in, long maxSize) {
+        super(new PushbackInputStream(in, ImageType.SIGNATURE_LENGTH));
+        this.maxSize = maxSize;
+        this.imageType = sniff((PushbackInputStream) this.in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    private static ImageType sniff(PushbackInputStream in) {
+        try {
+            byte[] header = in.readNBytes(ImageType.SIGNATURE_LENGTH);
+            in.unread(header);
+            return ImageType.sniff(header, header.length)
+                    .orElseThrow(() -> new FileException("File type must be an image. Images allowed are png, jpg, and webp."));
+        } catch (IOException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            digest.update((byte) b);
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            digest.update(b, off, read);
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("Skipping is not supported on an upload body");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(int read) throws IOException {
+        size += read;
+        if (size > maxSize) {
+            tooLarge = true;
+            throw new IOException("File size must be less than " + maxSize + " bytes");
+        }
+    }
+
+    public ImageType getImageType() {
+        return imageType;
+    }
+
+    /**
+     * @return The number of bytes read so far.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Whether reading stopped because the body went over the size limit.
+     */
+    public boolean isTooLarge() {
+        return tooLarge;
+    }
+
+    /**
+     * Returns the SHA-256 checksum of the bytes read. Call it once the body has been fully read.
+     *
+     * @return The checksum, as lowercase hex.
+     */
+    public String getSha256() {
+        if (sha256 == null) {
+            sha256 = HexFormat.of().formatHex(digest.digest());
+        }
+        return sha256;
+    }
+}
@@ -0,0 +1,14 @@
+package org.mindera.fur.code.service.file;
+
+import org.mindera.fur.code.model.enums.file.ImageVariant;
+
+import java.io.Serializable;
+
+/**
+ * A stored derivative of an image.
+ *
+ * @param variant The variant.
+ * @param file    The stored derivative.
+ */
+public record ImageVariantFile(ImageVariant variant, StoredFile file) implements Serializable {
+}
@@ -0,0 +1,117 @@
+package org.mindera.fur.code.service.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.service.FileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for presigned image downloads.
+ * <p>
+ * When {@code file.download.presigned} is enabled, clients are sent presigned Minio URLs instead of the image bytes,
+ * so image traffic no longer goes through the backend. A URL is reused for half of its validity: the same image
+ * keeps the same URL, which the client can cache, and the URL handed out is always valid for at least the other half.
+ * </p>
+ */
+@Service
+public class PresignedUrlService {
+
+    private final FileService fileService;
+    private final ImageMetadataService imageMetadataService;
+    private final boolean enabled;
+    private final Duration expiry;
+    private final Cache<String, PresignedUrl> urls;
+
+    @Autowired
+    public PresignedUrlService(FileService fileService,
+                               ImageMetadataService imageMetadataService,
+                               @Value("${file.download.presigned:false}") boolean enabled,
+                               @Value("${file.download.presigned-expiry:PT1H}") Duration expiry,
+                               @Value("${file.download.presigned-cache-size:10000}") long cacheSize) {
+        this.fileService = fileService;
+        this.imageMetadataService = imageMetadataService;
+        this.enabled = enabled;
+        this.expiry = expiry;
+        this.urls = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(expiry.dividedBy(2))
+                .build();
+    }
+
+    /**
+     * Returns whether downloads are served with presigned URLs.
+     *
+     * @return True if downloads are presigned.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Signs a download URL for an image, after checking that it belongs to the owner.
+     *
+     * @param ownerType The type of the owner.
+     * @param ownerId   The ID of the owner.
+     * @param file      The image, or one of its derivatives.
+     * @return The presigned URL.
+     * @throws FileException if the image does not belong to the owner.
+     */
+    public PresignedUrl sign(ImageOwnerType ownerType, Long ownerId, StoredFile file) {
+        // The owner is part of the key: a URL reused from the cache has passed the ownership check of that owner
+        return urls.get(ownerType.getPrefix() + "/" + ownerId + "#" + file.objectName() + "#" + file.etag(), key -> {
+            if (!imageMetadataService.isOwnedBy(ownerType, ownerId, file.objectName())) {
+                throw new FileException("File does not belong to " + ownerType.getPrefix() + " " + ownerId);
+            }
+            return new PresignedUrl(fileService.presignFile(file, expiry), Instant.now().plus(expiry));
+        });
+    }
+
+    /**
+     * Signs the download URLs of all the images of an owner.
+     *
+     * @param ownerType The type of the owner.
+     * @param ownerId   The ID of the owner.
+     * @return List of {@code {id, name, url}} maps, oldest image first.
+     */
+    public List<Map<String, String>> signAll(ImageOwnerType ownerType, Long ownerId) {
+        List<Map<String, String>> images = new ArrayList<>();
+        for (ImageReference reference : imageMetadataService.findAllByOwner(ownerType, ownerId)) {
+            Map<String, String> image = new HashMap<>();
+            image.put("id", reference.key());
+            image.put("name", reference.key());
+            image.put("url", sign(ownerType, ownerId, reference.file()).url());
+            images.add(image);
+        }
+        return images;
+    }
+
+    /**
+     * A presigned download URL.
+     *
+     * @param url       The URL.
+     * @param expiresAt When the URL stops being valid.
+     */
+    public record PresignedUrl(String url, Instant expiresAt) {
+
+        /**
+         * Returns how long the URL stays valid.
+         *
+         * @return The remaining validity, never negative.
+         */
+        public Duration remaining() {
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            return remaining.isNegative() ? Duration.ZERO : remaining;
+        }
+    }
+}
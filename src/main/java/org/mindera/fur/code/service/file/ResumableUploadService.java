@@ -0,0 +1,341 @@
+package org.mindera.fur.code.service.file;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.mindera.fur.code.aspect.roleauth.RequiresRole;
+import org.mindera.fur.code.dto.file.FileUploadResultDTO;
+import org.mindera.fur.code.dto.file.UploadPartDTO;
+import org.mindera.fur.code.dto.file.UploadSessionCreateDTO;
+import org.mindera.fur.code.dto.file.UploadSessionDTO;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.enums.file.UploadSessionStatus;
+import org.mindera.fur.code.model.file.UploadPart;
+import org.mindera.fur.code.model.file.UploadSession;
+import org.mindera.fur.code.repository.file.UploadPartRepository;
+import org.mindera.fur.code.repository.file.UploadSessionRepository;
+import org.mindera.fur.code.service.FileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service class for resumable uploads.
+ * <p>
+ * A client starts a session for a file, uploads its parts in any order, in parallel and again if a request failed,
+ * then completes the session. The parts are stored in a Minio multipart upload, so a dropped connection only costs
+ * the part being sent. The SHA-256 of every part is computed while it is stored and listed with the session,
+ * so a client resuming an upload knows which parts it still has to send.
+ * </p>
+ * <p>
+ * The ID of a session is only known to the client that started it, after its access to the owner was checked.
+ * Sessions not completed before they expire are aborted by {@link #sweepExpiredSessions}.
+ * </p>
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+    // Every part but the last one must be at least this large for Minio
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    // Time left to a completing session before the sweep may abort it
+    private static final Duration COMPLETION_TIMEOUT = Duration.ofMinutes(10);
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final FileService fileService;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final long partSize;
+    private final Duration sessionTtl;
+
+    @Autowired
+    public ResumableUploadService(FileService fileService,
+                                  UploadSessionRepository uploadSessionRepository,
+                                  UploadPartRepository uploadPartRepository,
+                                  @Value("${file.upload.part-size:5MB}") DataSize partSize,
+                                  @Value("${file.upload.session-ttl:PT24H}") Duration sessionTtl) {
+        this.fileService = fileService;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadPartRepository = uploadPartRepository;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize.toBytes());
+        this.sessionTtl = sessionTtl;
+    }
+
+    /**
+     * Starts a resumable upload of a pet image.
+     *
+     * @param id     The ID of the pet.
+     * @param create The file to upload.
+     * @return The session, with no parts received.
+     */
+    @RequiresRole(value = Role.ADMIN, isPetOperation = true, petIdParam = 0)
+    public UploadSessionDTO createPetSession(Long id, UploadSessionCreateDTO create) {
+        if (id == null) {
+            throw new IllegalArgumentException("Pet ID must be provided");
+        }
+        return createSession(ImageOwnerType.PET, id, create);
+    }
+
+    /**
+     * Starts a resumable upload of a shelter image.
+     *
+     * @param id     The ID of the shelter.
+     * @param create The file to upload.
+     * @return The session, with no parts received.
+     */
+    @RequiresRole(value = Role.ADMIN, shelterIdParam = 0)
+    public UploadSessionDTO createShelterSession(Long id, UploadSessionCreateDTO create) {
+        if (id == null) {
+            throw new IllegalArgumentException("Shelter ID must be provided");
+        }
+        return createSession(ImageOwnerType.SHELTER, id, create);
+    }
+
+    /**
+     * Retrieves a session and the parts it has received, to resume it.
+     *
+     * @param ownerType The type of the owner of the image.
+     * @param ownerId   The ID of the owner of the image.
+     * @param sessionId The ID of the session.
+     * @return The session.
+     */
+    public UploadSessionDTO getSession(ImageOwnerType ownerType, Long ownerId, String sessionId) {
+        return toDTO(findSession(ownerType, ownerId, sessionId));
+    }
+
+    /**
+     * Stores a part of a session. A part sent again replaces the previous one.
+     * The first part must start like a supported image, so a wrong file is refused before it is fully sent.
+     *
+     * @param ownerType     The type of the owner of the image.
+     * @param ownerId       The ID of the owner of the image.
+     * @param sessionId     The ID of the session.
+     * @param partNumber    The number of the part, from 1.
+     * @param content       The content of the part.
+     * @param contentLength The length of the content, or -1 if unknown.
+     * @param sha256        The expected SHA-256 checksum of the part as hex, or null to skip the check.
+     * @return The stored part.
+     */
+    public UploadPartDTO uploadPart(ImageOwnerType ownerType, Long ownerId, String sessionId, int partNumber,
+                                    InputStream content, long contentLength, String sha256) {
+        UploadSession session = findSession(ownerType, ownerId, sessionId);
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new FileException("Upload session is being completed");
+        }
+        if (partNumber < 1 || partNumber > session.getPartCount()) {
+            throw new FileException("Part number must be between 1 and " + session.getPartCount());
+        }
+        long expectedSize = session.getPartSize(partNumber);
+        if (contentLength >= 0 && contentLength != expectedSize) {
+            throw new FileException("Part " + partNumber + " must be " + expectedSize + " bytes. Current part size: " + contentLength + " bytes");
+        }
+
+        MessageDigest digest = sha256Digest();
+        String etag;
+        try (InputStream part = new DigestInputStream(partNumber == 1 ? checkImageHeader(content) : content, digest)) {
+            etag = fileService.uploadPart(session.getStagingKey(), session.getUploadId(), partNumber, part, expectedSize);
+            if (part.read() >= 0) {
+                throw new FileException("Part " + partNumber + " must be " + expectedSize + " bytes");
+            }
+        } catch (IOException e) {
+            throw new FileException(e.getMessage());
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (sha256 != null && !sha256.equalsIgnoreCase(actual)) {
+            // Not recorded: the session cannot complete until the part is sent again
+            uploadPartRepository.findBySessionIdAndPartNumber(sessionId, partNumber).ifPresent(uploadPartRepository::delete);
+            throw new FileException("Checksum does not match: " + sha256 + " vs " + actual);
+        }
+
+        UploadPart part = uploadPartRepository.findBySessionIdAndPartNumber(sessionId, partNumber).orElseGet(UploadPart::new);
+        part.setSessionId(sessionId);
+        part.setPartNumber(partNumber);
+        part.setSize(expectedSize);
+        part.setSha256(actual);
+        part.setEtag(etag);
+        part.setUploadedAt(LocalDateTime.now());
+        try {
+            uploadPartRepository.save(part);
+        } catch (DataIntegrityViolationException e) {
+            throw new FileException("Part " + partNumber + " was uploaded twice at the same time, send it again");
+        }
+        uploadSessionRepository.transition(sessionId, UploadSessionStatus.ACTIVE, UploadSessionStatus.ACTIVE,
+                LocalDateTime.now().plus(sessionTtl));
+        return toDTO(part);
+    }
+
+    /**
+     * Completes a session once all its parts are received: the parts are assembled and the image is stored.
+     * If assembling fails, the session can be completed again. If the assembled file is not a valid image
+     * or does not match the checksum given when starting the session, the session is aborted.
+     *
+     * @param ownerType The type of the owner of the image.
+     * @param ownerId   The ID of the owner of the image.
+     * @param sessionId The ID of the session.
+     * @return The stored file.
+     */
+    public FileUploadResultDTO complete(ImageOwnerType ownerType, Long ownerId, String sessionId) {
+        UploadSession session = findSession(ownerType, ownerId, sessionId);
+        List<UploadPart> parts = uploadPartRepository.findAllBySessionIdOrderByPartNumberAsc(sessionId);
+        if (parts.size() != session.getPartCount()) {
+            throw new FileException("Upload is missing " + (session.getPartCount() - parts.size()) + " of " + session.getPartCount() + " parts");
+        }
+        if (uploadSessionRepository.transition(sessionId, UploadSessionStatus.ACTIVE, UploadSessionStatus.COMPLETING,
+                LocalDateTime.now().plus(COMPLETION_TIMEOUT)) == 0) {
+            throw new FileException("Upload session is already being completed");
+        }
+
+        try {
+            fileService.completeMultipartUpload(session.getStagingKey(), session.getUploadId(), parts);
+        } catch (FileException e) {
+            uploadSessionRepository.transition(sessionId, UploadSessionStatus.COMPLETING, UploadSessionStatus.ACTIVE,
+                    LocalDateTime.now().plus(sessionTtl));
+            throw e;
+        }
+        try {
+            return fileService.storeStagedUpload(session.getStagingKey(), session.getObjectKey(), session.getSha256(),
+                    ownerType, ownerId);
+        } finally {
+            delete(session);
+        }
+    }
+
+    /**
+     * Aborts a session and frees the parts received so far.
+     *
+     * @param ownerType The type of the owner of the image.
+     * @param ownerId   The ID of the owner of the image.
+     * @param sessionId The ID of the session.
+     */
+    public void abort(ImageOwnerType ownerType, Long ownerId, String sessionId) {
+        UploadSession session = findSession(ownerType, ownerId, sessionId);
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new FileException("Upload session is being completed");
+        }
+        fileService.abortMultipartUpload(session.getStagingKey(), session.getUploadId());
+        delete(session);
+    }
+
+    /**
+     * Aborts the sessions that expired, abandoned by their clients, and frees their parts in Minio.
+     */
+    @Scheduled(fixedDelayString = "${file.upload.sweep-interval:PT15M}",
+            initialDelayString = "${file.upload.sweep-interval:PT15M}")
+    public void sweepExpiredSessions() {
+        try {
+            List<UploadSession> expired = uploadSessionRepository.findExpired(LocalDateTime.now(), Limit.of(SWEEP_BATCH_SIZE));
+            for (UploadSession session : expired) {
+                try {
+                    fileService.abortMultipartUpload(session.getStagingKey(), session.getUploadId());
+                } catch (FileException e) {
+                    // Already completed or aborted in Minio: a staged object left behind is swept with the blobs
+                    logger.debug("Could not abort upload session {}: {}", session.getId(), e.getMessage());
+                }
+                delete(session);
+            }
+            if (!expired.isEmpty()) {
+                logger.info("Aborted {} expired upload sessions", expired.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not sweep the expired upload sessions: {}", e.getMessage());
+        }
+    }
+
+    private UploadSessionDTO createSession(ImageOwnerType ownerType, Long ownerId, UploadSessionCreateDTO create) {
+        if (create.getFileName() == null || create.getFileName().isBlank()) {
+            throw new FileException("File name must be provided");
+        }
+        if (create.getSize() == null || create.getSize() <= 0) {
+            throw new FileException("File size must be provided");
+        }
+        if (create.getSize() > FileService.MAX_FILE_UPLOAD_SIZE) {
+            throw new FileException("File size must be less than " + FileService.MAX_FILE_UPLOAD_SIZE + " bytes. Current file size: " + create.getSize() + " bytes");
+        }
+
+        String stagingKey = fileService.newStagingKey();
+        String contentType = fileService.getFileMimeTypeFromFileName(create.getFileName());
+        String uploadId = fileService.createMultipartUpload(stagingKey,
+                contentType != null ? contentType : "application/octet-stream");
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setOwnerType(ownerType);
+        session.setOwnerId(ownerId);
+        session.setObjectKey(ImageMetadataService.normalize(
+                String.format("/%s/%s/image/%s", ownerType.getPrefix(), ownerId, create.getFileName())));
+        session.setStagingKey(stagingKey);
+        session.setUploadId(uploadId);
+        session.setSize(create.getSize());
+        session.setPartSize(partSize);
+        session.setSha256(create.getSha256() != null ? create.getSha256().toLowerCase() : null);
+        session.setStatus(UploadSessionStatus.ACTIVE);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+        try {
+            uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            fileService.abortMultipartUpload(stagingKey, uploadId);
+            throw e;
+        }
+        return toDTO(session);
+    }
+
+    private UploadSession findSession(ImageOwnerType ownerType, Long ownerId, String sessionId) {
+        return uploadSessionRepository.findById(sessionId)
+                .filter(session -> session.getOwnerType() == ownerType && session.getOwnerId().equals(ownerId))
+                .orElseThrow(() -> new EntityNotFoundException("Upload session not found: " + sessionId));
+    }
+
+    private void delete(UploadSession session) {
+        uploadPartRepository.deleteAllBySessionId(session.getId());
+        uploadSessionRepository.deleteById(session.getId());
+    }
+
+    private static InputStream checkImageHeader(InputStream content) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(content, ImageType.SIGNATURE_LENGTH);
+        byte[] header = in.readNBytes(ImageType.SIGNATURE_LENGTH);
+        in.unread(header);
+        if (ImageType.sniff(header, header.length).isEmpty()) {
+            throw new FileException("File type must be an image. Images allowed are png, jpg, and webp.");
+        }
+        return in;
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new FileException(e.getMessage());
+        }
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        List<UploadPartDTO> parts = uploadPartRepository.findAllBySessionIdOrderByPartNumberAsc(session.getId()).stream()
+                .map(ResumableUploadService::toDTO)
+                .toList();
+        return new UploadSessionDTO(session.getId(), session.getObjectKey(), session.getSize(), session.getPartSize(),
+                session.getPartCount(), session.getExpiresAt(), parts);
+    }
+
+    private static UploadPartDTO toDTO(UploadPart part) {
+        return new UploadPartDTO(part.getPartNumber(), part.getSize(), part.getSha256());
+    }
+}
@@ -0,0 +1,16 @@
+package org.mindera.fur.code.service.file;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+
+/**
+ * The metadata of a file stored in the bucket, enough to serve it without reading it.
+ *
+ * @param objectName   The key of the object in the bucket.
+ * @param contentType  The content type of the file.
+ * @param size         The size of the file, in bytes.
+ * @param etag         The entity tag of the object, without quotes.
+ * @param lastModified The time the object was last written.
+ */
+public record StoredFile(String objectName, String contentType, long size, String etag, ZonedDateTime lastModified) implements Serializable {
+}
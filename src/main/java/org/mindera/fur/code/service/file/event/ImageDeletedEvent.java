@@ -0,0 +1,9 @@
+package org.mindera.fur.code.service.file.event;
+
+/**
+ * Published when an image is deleted from the bucket.
+ *
+ * @param objectKey The normalized key of the image.
+ */
+public record ImageDeletedEvent(String objectKey) {
+}
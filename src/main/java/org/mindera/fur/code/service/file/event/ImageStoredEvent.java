@@ -0,0 +1,9 @@
+package org.mindera.fur.code.service.file.event;
+
+/**
+ * Published when an image is stored in the bucket, by upload or because an existing object was indexed.
+ *
+ * @param objectKey The normalized key of the image.
+ */
+public record ImageStoredEvent(String objectKey) {
+}
@@ -0,0 +1,267 @@
+package org.mindera.fur.code.service.pet;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.mindera.fur.code.repository.pet.PetRepository;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetReplicatedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resolves the shelter that owns a pet, without loading the pet.
+ * <p>
+ * The shelter of every active pet is kept in memory in a {@link LongLongHashMap}, built from a single projection
+ * query when the application is ready and updated from the pet changes committed on this node and relayed from
+ * the other nodes. The committing node also writes the change to a Redis hash, which a node reads while it starts,
+ * until its own index is built. Each build replaces the whole hash, so it never keeps the pets of a previous
+ * database. Once built, the memory is the only source besides the database: a pet missing from it, such as
+ * a soft-deleted pet, is read from the database.
+ * </p>
+ * <p>
+ * Reads share a read lock; changes and the build take the write lock.
+ * </p>
+ */
+@Schema(description = "Pet ownership index")
+@Service
+public class PetOwnershipIndex {
+
+    static final String KEY = "furcode:pet-ownership";
+
+    private static final Logger logger = LoggerFactory.getLogger(PetOwnershipIndex.class);
+
+    private static final long NO_SHELTER = -1;
+    private static final int REDIS_BATCH_SIZE = 1000;
+    private static final Duration BUILD_KEY_TTL = Duration.ofMinutes(10);
+
+    private final PetRepository petRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private LongLongHashMap shelters = new LongLongHashMap(16, NO_SHELTER);
+    private boolean ready;
+    private List<PetChangedEvent> changesDuringBuild;
+
+    @Autowired
+    public PetOwnershipIndex(PetRepository petRepository, StringRedisTemplate redisTemplate) {
+        this.petRepository = petRepository;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Returns the ID of the shelter that owns a pet, including soft-deleted pets.
+     *
+     * @param petId The ID of the pet.
+     * @return The ID of the shelter, or null if the pet does not exist or has no shelter.
+     */
+    public Long shelterIdOf(Long petId) {
+        Long shelterId = activeShelterIdOf(petId);
+        if (shelterId != null) {
+            return shelterId;
+        }
+        return petRepository.findShelterIdById(petId).orElse(null);
+    }
+
+    /**
+     * Returns the ID of the shelter that owns an active pet, from memory, or from Redis until the index is built.
+     * A value read from Redis is not kept in memory.
+     *
+     * @param petId The ID of the pet.
+     * @return The ID of the shelter, or null if the pet is not indexed.
+     */
+    public Long activeShelterIdOf(Long petId) {
+        lock.readLock().lock();
+        try {
+            long shelterId = shelters.get(petId);
+            if (shelterId != NO_SHELTER) {
+                return shelterId;
+            }
+            if (ready) {
+                return null;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return readShared(petId);
+    }
+
+    /**
+     * Returns the number of indexed pets.
+     *
+     * @return The number of indexed pets.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return shelters.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the index once the application is ready, and shares it through Redis, replacing the whole hash.
+     * Changes committed while the pets are read are replayed before the swap, and the pets they changed
+     * are written to Redis again once the whole index is, so the index never overwrites a newer change.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changesDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<PetRepository.PetOwnership> ownerships = petRepository.findAllActiveOwnerships();
+        LongLongHashMap built = new LongLongHashMap(ownerships.size(), NO_SHELTER);
+        ownerships.forEach(ownership -> built.put(ownership.getPetId(), ownership.getShelterId()));
+
+        lock.writeLock().lock();
+        try {
+            changesDuringBuild.forEach(change -> apply(built, change));
+            shelters = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Pet ownership index built with {} pets in {} ms", built.size(), System.currentTimeMillis() - start);
+
+        writeShared(ownerships);
+
+        Map<Long, Long> changed = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            changesDuringBuild.forEach(change -> changed.put(change.petId(), shelters.get(change.petId())));
+            changesDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changed.forEach(this::writeShared);
+    }
+
+    /**
+     * Applies a pet change committed on this node, and writes it to Redis for the other nodes.
+     *
+     * @param event The pet change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        applyLocal(event);
+        PetSnapshot after = event.after();
+        writeShared(event.petId(), after != null && after.shelterId() != null ? after.shelterId() : NO_SHELTER);
+    }
+
+    /**
+     * Applies a pet change committed on another node, which already wrote it to Redis.
+     *
+     * @param event The relayed pet change.
+     */
+    @EventListener
+    public void onPetReplicated(PetReplicatedEvent event) {
+        applyLocal(event.change());
+    }
+
+    private void applyLocal(PetChangedEvent change) {
+        lock.writeLock().lock();
+        try {
+            apply(shelters, change);
+            if (changesDuringBuild != null) {
+                changesDuringBuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(LongLongHashMap shelters, PetChangedEvent change) {
+        PetSnapshot after = change.after();
+        if (after != null && after.shelterId() != null) {
+            shelters.put(after.id(), after.shelterId());
+        } else {
+            shelters.remove(change.petId());
+        }
+    }
+
+    private Long readShared(Long petId) {
+        try {
+            Object shelterId = redisTemplate.opsForHash().get(KEY, petId.toString());
+            return shelterId != null ? Long.valueOf(shelterId.toString()) : null;
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the shared ownership of pet {}", petId, e);
+            return null;
+        }
+    }
+
+    private void writeShared(Long petId, long shelterId) {
+        try {
+            if (shelterId != NO_SHELTER) {
+                redisTemplate.opsForHash().put(KEY, petId.toString(), Long.toString(shelterId));
+            } else {
+                redisTemplate.opsForHash().delete(KEY, petId.toString());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not share the ownership of pet {}", petId, e);
+        }
+    }
+
+    /**
+     * Writes the built index to a key of its own, then renames it over the shared hash, so pets that no longer
+     * exist, such as those of a dropped database whose IDs are reused, do not outlive the build.
+     *
+     * @param ownerships The ownerships the index was built from.
+     */
+    private void writeShared(List<PetRepository.PetOwnership> ownerships) {
+        String buildKey = KEY + ":building:" + UUID.randomUUID();
+        try {
+            if (ownerships.isEmpty()) {
+                redisTemplate.delete(KEY);
+                return;
+            }
+            Map<String, String> batch = new HashMap<>();
+            for (PetRepository.PetOwnership ownership : ownerships) {
+                batch.put(ownership.getPetId().toString(), ownership.getShelterId().toString());
+                if (batch.size() == REDIS_BATCH_SIZE) {
+                    writeBatch(buildKey, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(buildKey, batch);
+            }
+            redisTemplate.rename(buildKey, KEY);
+            redisTemplate.persist(KEY);
+        } catch (RuntimeException e) {
+            logger.warn("Could not share the pet ownership index", e);
+            try {
+                redisTemplate.delete(buildKey);
+            } catch (RuntimeException ignored) {
+                // Expires on its own
+            }
+        }
+    }
+
+    private void writeBatch(String buildKey, Map<String, String> batch) {
+        redisTemplate.opsForHash().putAll(buildKey, batch);
+        // Expires if this node stops before the rename; the shared hash is persisted once renamed
+        redisTemplate.expire(buildKey, BUILD_KEY_TTL);
+    }
+}
@@ -20,11 +20,14 @@ import org.mindera.fur.code.repository.person_preferences.FavoriteRepository;
 import org.mindera.fur.code.repository.pet.PetRecordRepository;
 import org.mindera.fur.code.repository.pet.PetRepository;
 import org.mindera.fur.code.repository.pet.PetTypeRepository;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
@@ -42,6 +45,7 @@ public class PetService {
     private final PetRecordRepository petRecordRepository;
     private final ShelterRepository shelterRepository;
     private final FavoriteRepository favoriteRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public PetService(
@@ -49,26 +53,74 @@ public class PetService {
             PetRecordRepository petRecordRepository,
             PetTypeRepository petTypeRepository,
             ShelterRepository shelterRepository,
-            FavoriteRepository favoriteRepository
+            FavoriteRepository favoriteRepository,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.petRepository = petRepository;
         this.petRecordRepository = petRecordRepository;
         this.petTypeRepository = petTypeRepository;
         this.favoriteRepository = favoriteRepository;
         this.shelterRepository = shelterRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Find all active pets.
+     * The list lives under the "all" generation, see {@link org.mindera.fur.code.infra.cache.PetCacheGenerations}.
      *
      * @return a list of all active pets
      */
-    @Cacheable(cacheNames = "pets")
+    @Cacheable(cacheNames = "pets", key = "@petCacheGenerations.allPetsKey()", sync = true)
     public List<PetDTO> findAllPets() {
-        List<Pet> pets = petRepository.findAllActive();
+        List<Pet> pets = petRepository.findAllActiveWithRecords();
         return pets.stream().map(PetMapper.INSTANCE::toDTO).toList();
     }
 
+    /**
+     * Find all active pets of a shelter.
+     *
+     * @param shelterId The ID of the shelter.
+     * @return a list of all active pets in the shelter
+     */
+    @Cacheable(cacheNames = "shelterPets", key = "@petCacheGenerations.shelterPetsKey(#shelterId)", sync = true)
+    public List<PetDTO> findAllPetsByShelterId(@NotNull @Positive Long shelterId) {
+        List<Pet> pets = petRepository.findAllActiveWithRecordsByShelterId(shelterId);
+        return pets.stream().map(PetMapper.INSTANCE::toDTO).toList();
+    }
+
+    /**
+     * Find a page of active pets matching the given filters.
+     * Uses keyset pagination on the pet ID, so the cost of a page does not depend on how deep it is.
+     * Pets are returned as summaries, without their records.
+     *
+     * @param filter The filters, cursor and limit of the page.
+     * @return The page of pets.
+     */
+    @Cacheable(cacheNames = "petPages", key = "@petCacheGenerations.pageKey(#filter)", sync = true)
+    public PetPageDTO findPetPage(@Valid PetFilterDTO filter) {
+        int limit = filter.getLimit() != null ? filter.getLimit() : PetFilterDTO.DEFAULT_LIMIT;
+        long cursor = filter.getCursor() != null ? filter.getCursor() : 0L;
+
+        // Fetch one extra row to know if there is a next page
+        List<Pet> pets = petRepository.findActivePage(
+                cursor,
+                filter.getSpecies(),
+                filter.getSize(),
+                filter.getShelterId(),
+                filter.getIsAdopted(),
+                filter.getIsVaccinated(),
+                Limit.of(limit + 1));
+
+        boolean hasNext = pets.size() > limit;
+        List<PetSummaryDTO> content = pets.stream()
+                .limit(limit)
+                .map(PetMapper.INSTANCE::toSummaryDTO)
+                .toList();
+        Long nextCursor = hasNext ? content.get(content.size() - 1).getId() : null;
+
+        return new PetPageDTO(content, nextCursor, hasNext);
+    }
+
     /**
      * Find an active pet by ID.
      *
@@ -76,9 +128,10 @@ public class PetService {
      * @return The pet.
      * @throws EntityNotFoundException if the pet with the specified ID is not found.
      */
-    @Cacheable(cacheNames = "pet", key = "#id")
+    @Cacheable(cacheNames = "pet", key = "#id", sync = true)
     public PetDTO findPetById(@NotNull @Positive Long id) {
-        Pet pet = findActivePetEntityById(id);
+        Pet pet = petRepository.findActiveWithRecordsById(id)
+                .orElseThrow(() -> new EntityNotFoundException(PetMessages.PET_NOT_FOUND + id));
         return PetMapper.INSTANCE.toDTO(pet);
     }
 
@@ -89,7 +142,6 @@ public class PetService {
      * @return The created pet.
      */
     @CachePut(cacheNames = "pet", key = "#result.id")
-    @CacheEvict(cacheNames = "pets", allEntries = true)
     @Transactional
     public PetDTO addPet(@Valid PetCreateDTO petCreateDTO) {
         Pet pet = PetMapper.INSTANCE.toModel(petCreateDTO);
@@ -98,6 +150,7 @@ public class PetService {
         pet.setShelter(findAndAssignShelter(petCreateDTO.getShelterId()));
 
         pet = petRepository.save(pet);
+        eventPublisher.publishEvent(new PetChangedEvent(null, PetSnapshot.of(pet)));
         return PetMapper.INSTANCE.toDTO(pet);
     }
 
@@ -113,10 +166,10 @@ public class PetService {
      * @throws EntityNotFoundException if the pet with the specified ID is not found.
      */
     @CachePut(cacheNames = "pet", key = "#id")
-    @CacheEvict(cacheNames = "pets", allEntries = true)
     @Transactional
     public PetDTO updatePet(@NotNull @Positive Long id, @Valid PetUpdateDTO petUpdateDTO) {
         Pet pet = findActivePetEntityById(id);
+        PetSnapshot before = PetSnapshot.of(pet);
 
         removeFavoritesIfAdopted(petUpdateDTO, pet);
 
@@ -124,6 +177,7 @@ public class PetService {
 
         pet.setId(id);
         pet = petRepository.save(pet);
+        eventPublisher.publishEvent(new PetChangedEvent(before, PetSnapshot.of(pet)));
         return PetMapper.INSTANCE.toDTO(pet);
     }
 
@@ -133,10 +187,7 @@ public class PetService {
      * @param id the ID of the pet to be soft deleted
      * @throws EntityNotFoundException if the pet with the specified ID is not found
      */
-    @Caching(evict = {
-            @CacheEvict(cacheNames = "pet", key = "#id"),
-            @CacheEvict(cacheNames = "pets", allEntries = true)
-    })
+    @CacheEvict(cacheNames = "pet", key = "#id")
     @Transactional
     public void softDeletePet(@NotNull @Positive Long id) {
         Pet pet = findActivePetEntityById(id);
@@ -147,6 +198,7 @@ public class PetService {
             pet.getPetRecords().forEach(petRecord -> petRecord.setDeletedAt(deletedAt));
         }
         petRepository.save(pet);
+        eventPublisher.publishEvent(new PetChangedEvent(PetSnapshot.of(pet), null));
     }
 
     /**
@@ -165,6 +217,7 @@ public class PetService {
         }
         pet.setDeletedAt(null);
         petRepository.save(pet);
+        eventPublisher.publishEvent(new PetChangedEvent(null, PetSnapshot.of(pet)));
     }
 
     /**
@@ -175,7 +228,8 @@ public class PetService {
      */
     @Cacheable(cacheNames = "record", key = "#id")
     public List<PetRecordDTO> getAllPetRecordsByPetId(@NotNull @Positive Long id) {
-        Pet pet = findActivePetEntityById(id);
+        Pet pet = petRepository.findActiveWithRecordsById(id)
+                .orElseThrow(() -> new EntityNotFoundException(PetMessages.PET_NOT_FOUND + id));
         return pet.getPetRecords().stream().map(PetRecordMapper.INSTANCE::toDTO).toList();
     }
 
@@ -207,7 +261,7 @@ public class PetService {
      * @return a list of soft-deleted pet DTOs
      */
     public List<PetDTO> findAllDeletedPets() {
-        List<Pet> pets = petRepository.findAllDeleted();
+        List<Pet> pets = petRepository.findAllDeletedWithRecords();
         return pets.stream().map(PetMapper.INSTANCE::toDTO).toList();
     }
 
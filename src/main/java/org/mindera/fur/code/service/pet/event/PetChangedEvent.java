@@ -0,0 +1,25 @@
+package org.mindera.fur.code.service.pet.event;
+
+import java.io.Serializable;
+
+/**
+ * Published whenever an active pet is created, updated, moved, soft-deleted or restored.
+ * <p>
+ * {@code before} is null when the pet became active (created or restored) and
+ * {@code after} is null when the pet stopped being active (soft-deleted).
+ * </p>
+ *
+ * @param before The state of the pet before the change.
+ * @param after  The state of the pet after the change.
+ */
+public record PetChangedEvent(PetSnapshot before, PetSnapshot after) implements Serializable {
+
+    /**
+     * Returns the ID of the changed pet.
+     *
+     * @return The ID of the pet.
+     */
+    public Long petId() {
+        return after != null ? after.id() : before.id();
+    }
+}
@@ -0,0 +1,11 @@
+package org.mindera.fur.code.service.pet.event;
+
+/**
+ * Published on this node when another node committed a pet change.
+ * Only listeners that keep node-local state derived from pets need it;
+ * state shared through Redis or the database was already updated by the node that made the change.
+ *
+ * @param change The pet change made by the other node.
+ */
+public record PetReplicatedEvent(PetChangedEvent change) {
+}
@@ -0,0 +1,51 @@
+package org.mindera.fur.code.service.pet.event;
+
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+import org.mindera.fur.code.model.pet.Pet;
+
+import java.io.Serializable;
+
+/**
+ * An immutable copy of the searchable attributes of a pet at a given moment.
+ * Taken inside the writing transaction, so it can be used safely after commit.
+ *
+ * @param id           The ID of the pet.
+ * @param shelterId    The ID of the shelter of the pet.
+ * @param species      The species of the pet.
+ * @param size         The size of the pet.
+ * @param color        The color of the pet.
+ * @param age          The age of the pet.
+ * @param isAdopted    The adopted status of the pet.
+ * @param isVaccinated The vaccination status of the pet.
+ */
+public record PetSnapshot(
+        Long id,
+        Long shelterId,
+        PetSpeciesEnum species,
+        PetSizeEnum size,
+        String color,
+        Integer age,
+        Boolean isAdopted,
+        Boolean isVaccinated
+) implements Serializable {
+
+    /**
+     * Creates a snapshot of a pet.
+     *
+     * @param pet The pet.
+     * @return The snapshot of the pet.
+     */
+    public static PetSnapshot of(Pet pet) {
+        return new PetSnapshot(
+                pet.getId(),
+                pet.getShelter() != null ? pet.getShelter().getId() : null,
+                pet.getPetType() != null ? pet.getPetType().getSpecies() : null,
+                pet.getSize(),
+                pet.getColor(),
+                pet.getAge(),
+                pet.getIsAdopted(),
+                pet.getIsVaccinated()
+        );
+    }
+}
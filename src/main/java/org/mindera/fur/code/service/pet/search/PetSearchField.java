@@ -0,0 +1,14 @@
+package org.mindera.fur.code.service.pet.search;
+
+/**
+ * The fields of the in-memory pet search index.
+ */
+public enum PetSearchField {
+    SPECIES,
+    SIZE,
+    COLOR,
+    AGE,
+    SHELTER,
+    VACCINATED,
+    ADOPTED
+}
@@ -0,0 +1,366 @@
+package org.mindera.fur.code.service.pet.search;
+
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory inverted index over the active pets.
+ * <p>
+ * Every pet gets a document number, and every (field, value) pair has a {@link BitSet} posting list
+ * of the documents that have it. A query ORs the posting lists of the values requested for a field
+ * and ANDs the fields together, so it never looks at a pet that does not match.
+ * </p>
+ * <p>
+ * Facet counts are disjunctive: the counts of a field ignore the filter on that same field,
+ * so a client can show how many results each other value of the field would give.
+ * </p>
+ * <p>
+ * Reads share a read lock; changes and rebuild swaps take the write lock.
+ * </p>
+ */
+public class PetSearchIndex {
+
+    private static final Set<String> COLOR_STOP_WORDS = Set.of("and", "with", "or", "de", "e");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Postings postings = new Postings();
+    private List<PetChangedEvent> changesDuringRebuild;
+
+    /**
+     * Replaces the whole index with the given pets.
+     * Changes applied while the pets were being read are replayed on top of them before the swap.
+     *
+     * @param pets The active pets.
+     */
+    public void rebuild(Collection<PetSnapshot> pets) {
+        Postings rebuilt = new Postings();
+        pets.forEach(rebuilt::upsert);
+
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.forEach(rebuilt::apply);
+                changesDuringRebuild = null;
+            }
+            postings = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts recording changes, so that a rebuild started now does not lose them.
+     * Must be called before the pets of the rebuild are read.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops recording changes for a rebuild that failed, so they do not pile up until the next one.
+     * Does nothing if the rebuild already completed.
+     */
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed pet change.
+     *
+     * @param change The pet change.
+     */
+    public void apply(PetChangedEvent change) {
+        lock.writeLock().lock();
+        try {
+            postings.apply(change);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed pets.
+     *
+     * @return The number of indexed pets.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a query.
+     *
+     * @param filters The accepted values per field; values of a field are ORed, fields are ANDed.
+     * @param offset  The number of matching pets to skip.
+     * @param limit   The maximum number of pet IDs to return.
+     * @return The matching pet IDs, the total number of matches and the facet counts.
+     */
+    public Result search(Map<PetSearchField, Set<String>> filters, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return postings.search(filters, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the terms a pet is indexed under.
+     *
+     * @param pet      The pet.
+     * @param consumer Receives every (field, term) pair of the pet.
+     */
+    static void forEachTerm(PetSnapshot pet, BiConsumer<PetSearchField, String> consumer) {
+        if (pet.species() != null) {
+            consumer.accept(PetSearchField.SPECIES, pet.species().name());
+        }
+        if (pet.size() != null) {
+            consumer.accept(PetSearchField.SIZE, pet.size().name());
+        }
+        if (pet.color() != null) {
+            colorTokens(pet.color()).forEach(token -> consumer.accept(PetSearchField.COLOR, token));
+        }
+        if (pet.age() != null) {
+            consumer.accept(PetSearchField.AGE, ageBucket(pet.age()));
+        }
+        if (pet.shelterId() != null) {
+            consumer.accept(PetSearchField.SHELTER, pet.shelterId().toString());
+        }
+        if (pet.isVaccinated() != null) {
+            consumer.accept(PetSearchField.VACCINATED, pet.isVaccinated().toString());
+        }
+        if (pet.isAdopted() != null) {
+            consumer.accept(PetSearchField.ADOPTED, pet.isAdopted().toString());
+        }
+    }
+
+    /**
+     * Splits a color into lower-case word tokens, e.g. "Brown and White" into "brown" and "white".
+     *
+     * @param color The color.
+     * @return The tokens of the color.
+     */
+    static List<String> colorTokens(String color) {
+        return Arrays.stream(color.toLowerCase(Locale.ROOT).split("[^\\p{L}]+"))
+                .filter(token -> !token.isEmpty() && !COLOR_STOP_WORDS.contains(token))
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Returns the age bucket of an age in years.
+     *
+     * @param age The age.
+     * @return The age bucket: "0-1", "2-3", "4-7", "8-12" or "13+".
+     */
+    public static String ageBucket(int age) {
+        if (age <= 1) {
+            return "0-1";
+        }
+        if (age <= 3) {
+            return "2-3";
+        }
+        if (age <= 7) {
+            return "4-7";
+        }
+        if (age <= 12) {
+            return "8-12";
+        }
+        return "13+";
+    }
+
+    /**
+     * The result of a query.
+     *
+     * @param total  The number of matching pets.
+     * @param petIds The IDs of the requested window of matching pets, in index order.
+     * @param facets The number of matching pets per field and value.
+     */
+    public record Result(int total, List<Long> petIds, Map<PetSearchField, Map<String, Integer>> facets) {
+    }
+
+    /**
+     * The posting lists themselves. Not thread-safe; guarded by the lock of the index.
+     */
+    private static final class Postings {
+
+        private final Map<Long, Integer> docByPetId = new HashMap<>();
+        private final EnumMap<PetSearchField, Map<String, BitSet>> terms = new EnumMap<>(PetSearchField.class);
+        private final BitSet live = new BitSet();
+        private final BitSet free = new BitSet();
+        private long[] petIds = new long[256];
+        private PetSnapshot[] docs = new PetSnapshot[256];
+        private int nextDoc;
+
+        private Postings() {
+            for (PetSearchField field : PetSearchField.values()) {
+                terms.put(field, new HashMap<>());
+            }
+        }
+
+        private void apply(PetChangedEvent change) {
+            if (change.after() == null) {
+                remove(change.before().id());
+            } else {
+                upsert(change.after());
+            }
+        }
+
+        private void upsert(PetSnapshot pet) {
+            Integer existing = docByPetId.get(pet.id());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                forEachTerm(docs[doc], (field, term) -> clearTerm(field, term, doc));
+            } else {
+                doc = allocateDoc();
+                docByPetId.put(pet.id(), doc);
+                petIds[doc] = pet.id();
+                live.set(doc);
+            }
+            docs[doc] = pet;
+            forEachTerm(pet, (field, term) -> terms.get(field).computeIfAbsent(term, t -> new BitSet()).set(doc));
+        }
+
+        private void remove(Long petId) {
+            Integer doc = docByPetId.remove(petId);
+            if (doc == null) {
+                return;
+            }
+            forEachTerm(docs[doc], (field, term) -> clearTerm(field, term, doc));
+            docs[doc] = null;
+            live.clear(doc);
+            free.set(doc);
+        }
+
+        private void clearTerm(PetSearchField field, String term, int doc) {
+            BitSet posting = terms.get(field).get(term);
+            if (posting != null) {
+                posting.clear(doc);
+                if (posting.isEmpty()) {
+                    terms.get(field).remove(term);
+                }
+            }
+        }
+
+        private int allocateDoc() {
+            int doc = free.nextSetBit(0);
+            if (doc >= 0) {
+                free.clear(doc);
+                return doc;
+            }
+            doc = nextDoc++;
+            if (doc == petIds.length) {
+                petIds = Arrays.copyOf(petIds, doc * 2);
+                docs = Arrays.copyOf(docs, doc * 2);
+            }
+            return doc;
+        }
+
+        private Result search(Map<PetSearchField, Set<String>> filters, long offset, int limit) {
+            EnumMap<PetSearchField, BitSet> fieldMatches = new EnumMap<>(PetSearchField.class);
+            filters.forEach((field, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    fieldMatches.put(field, union(field, values));
+                }
+            });
+
+            BitSet matches = intersect(fieldMatches, null);
+
+            List<Long> window = new ArrayList<>(Math.min(limit, 64));
+            // An offset past the matches returns an empty window without walking them
+            if (offset < matches.cardinality()) {
+                long skipped = 0;
+                for (int doc = matches.nextSetBit(0); doc >= 0 && window.size() < limit; doc = matches.nextSetBit(doc + 1)) {
+                    if (skipped++ >= offset) {
+                        window.add(petIds[doc]);
+                    }
+                }
+            }
+
+            Map<PetSearchField, Map<String, Integer>> facets = new LinkedHashMap<>();
+            // One scratch set per query, so counting a facet value neither allocates nor walks the set bits
+            BitSet scratch = new BitSet(live.length());
+            for (PetSearchField field : PetSearchField.values()) {
+                BitSet base = fieldMatches.containsKey(field) ? intersect(fieldMatches, field) : matches;
+                Map<String, Integer> counts = new TreeMap<>();
+                terms.get(field).forEach((term, posting) -> {
+                    scratch.clear();
+                    scratch.or(posting);
+                    scratch.and(base);
+                    int count = scratch.cardinality();
+                    if (count > 0) {
+                        counts.put(term, count);
+                    }
+                });
+                facets.put(field, counts);
+            }
+
+            return new Result(matches.cardinality(), window, facets);
+        }
+
+        private BitSet union(PetSearchField field, Set<String> values) {
+            BitSet union = new BitSet();
+            for (String value : values) {
+                BitSet posting = terms.get(field).get(normalize(field, value));
+                if (posting != null) {
+                    union.or(posting);
+                }
+            }
+            return union;
+        }
+
+        private BitSet intersect(EnumMap<PetSearchField, BitSet> fieldMatches, PetSearchField excluded) {
+            BitSet result = (BitSet) live.clone();
+            fieldMatches.forEach((field, match) -> {
+                if (field != excluded) {
+                    result.and(match);
+                }
+            });
+            return result;
+        }
+
+        private static String normalize(PetSearchField field, String value) {
+            return switch (field) {
+                case COLOR -> value.toLowerCase(Locale.ROOT);
+                case SPECIES, SIZE -> value.toUpperCase(Locale.ROOT);
+                default -> value;
+            };
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.mindera.fur.code.service.pet.search;
+
+import jakarta.validation.Valid;
+import org.mindera.fur.code.dto.pet.PetSearchRequestDTO;
+import org.mindera.fur.code.dto.pet.PetSearchResultDTO;
+import org.mindera.fur.code.dto.pet.PetSummaryDTO;
+import org.mindera.fur.code.dto.pet.PetTextSearchHitDTO;
+import org.mindera.fur.code.dto.pet.PetTextSearchResultDTO;
+import org.mindera.fur.code.mapper.pet.PetMapper;
+import org.mindera.fur.code.model.pet.Pet;
+import org.mindera.fur.code.repository.pet.PetRepository;
+import org.mindera.fur.code.repository.pet.PetTextSearchHit;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetReplicatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the pet searches.
+ * <p>
+ * The structured search is answered from an in-memory {@link PetSearchIndex}, the full-text search
+ * from the GIN-indexed {@code search_vector} column of the pet table.
+ * </p>
+ * <p>
+ * The index is built when the application is ready, kept up to date from the pet changes committed
+ * on this node and relayed from the other nodes, and rebuilt periodically to recover from lost relays.
+ * </p>
+ */
+@Validated
+@Service
+public class PetSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PetSearchService.class);
+
+    private final PetRepository petRepository;
+    private final PetSearchIndex index = new PetSearchIndex();
+
+    @Autowired
+    public PetSearchService(PetRepository petRepository) {
+        this.petRepository = petRepository;
+    }
+
+    /**
+     * Searches active pets by species, size, color, age bucket, shelter, vaccination and adoption status.
+     *
+     * @param request The filters and page.
+     * @return The matching pets of the page, the total and the facet counts.
+     */
+    public PetSearchResultDTO search(@Valid PetSearchRequestDTO request) {
+        Map<PetSearchField, Set<String>> filters = new EnumMap<>(PetSearchField.class);
+        putFilter(filters, PetSearchField.SPECIES, request.getSpecies(), Enum::name);
+        putFilter(filters, PetSearchField.SIZE, request.getSize(), Enum::name);
+        putFilter(filters, PetSearchField.COLOR, request.getColor(), Function.identity());
+        putFilter(filters, PetSearchField.AGE, request.getAge(), Function.identity());
+        putFilter(filters, PetSearchField.SHELTER, request.getShelterId(), Object::toString);
+        putFilter(filters, PetSearchField.VACCINATED, asList(request.getIsVaccinated()), Object::toString);
+        putFilter(filters, PetSearchField.ADOPTED, asList(request.getIsAdopted()), Object::toString);
+
+        int pageSize = request.getPageSize() != null ? request.getPageSize() : PetSearchRequestDTO.DEFAULT_SIZE;
+        int page = request.getPage() != null ? request.getPage() : 0;
+        PetSearchIndex.Result result = index.search(filters, (long) page * pageSize, pageSize);
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        result.facets().forEach((field, counts) -> facets.put(field.name(), counts));
+
+        return new PetSearchResultDTO(result.total(), loadSummaries(result.petIds()), facets);
+    }
+
+    /**
+     * Full-text search of active pets by name, color and observations, best match first.
+     *
+     * @param query The search text, in web search syntax.
+     * @param page  The page number, starting at 0.
+     * @param size  The number of pets per page.
+     * @return The matching pets of the page, with their rank and highlighted snippet.
+     */
+    public PetTextSearchResultDTO textSearch(String query, int page, int size) {
+        List<PetTextSearchHit> hits = petRepository.searchByText(query, size + 1, page * size);
+        boolean hasNext = hits.size() > size;
+        if (hasNext) {
+            hits = hits.subList(0, size);
+        }
+
+        Map<Long, PetSummaryDTO> summaries = loadSummaries(hits.stream().map(PetTextSearchHit::getId).toList()).stream()
+                .collect(Collectors.toMap(PetSummaryDTO::getId, Function.identity()));
+        List<PetTextSearchHitDTO> content = hits.stream()
+                .filter(hit -> summaries.containsKey(hit.getId()))
+                .map(hit -> new PetTextSearchHitDTO(summaries.get(hit.getId()), hit.getRank(), toHtml(hit.getSnippet())))
+                .toList();
+
+        return new PetTextSearchResultDTO(content, page, size, hasNext);
+    }
+
+    /**
+     * Builds the index once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        rebuildIndex();
+    }
+
+    /**
+     * Rebuilds the index from the database.
+     * Changes committed during the rebuild are replayed on the new index.
+     * If the pets cannot be read, the current index is kept and the recorded changes are dropped.
+     */
+    @Scheduled(fixedDelayString = "${search.index.rebuild-interval:PT15M}",
+            initialDelayString = "${search.index.rebuild-interval:PT15M}")
+    public synchronized void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        index.beginRebuild();
+        try {
+            index.rebuild(petRepository.findAllActiveSnapshots());
+        } finally {
+            // A no-op after a successful rebuild, which already consumed the recorded changes
+            index.abortRebuild();
+        }
+        logger.info("Pet search index built with {} pets in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Applies a pet change committed on this node.
+     *
+     * @param event The pet change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPetChanged(PetChangedEvent event) {
+        index.apply(event);
+    }
+
+    /**
+     * Applies a pet change committed on another node.
+     *
+     * @param event The relayed pet change.
+     */
+    @EventListener
+    public void onPetReplicated(PetReplicatedEvent event) {
+        index.apply(event.change());
+    }
+
+    /**
+     * Turns a highlighted snippet into HTML: the pet text is escaped, and only the highlight markers
+     * become {@code <mark>} tags.
+     *
+     * @param snippet The snippet, with {@link PetTextSearchHit} markers.
+     * @return The snippet as HTML, or null if there is none.
+     */
+    static String toHtml(String snippet) {
+        if (snippet == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(snippet, "UTF-8")
+                .replace(String.valueOf(PetTextSearchHit.HIGHLIGHT_START), "<mark>")
+                .replace(String.valueOf(PetTextSearchHit.HIGHLIGHT_STOP), "</mark>");
+    }
+
+    /**
+     * Loads the summaries of the pets of a page in a single query, keeping the order of the index.
+     */
+    private List<PetSummaryDTO> loadSummaries(List<Long> petIds) {
+        if (petIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Pet> pets = petRepository.findAllActiveByIdIn(petIds).stream()
+                .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        return petIds.stream()
+                .map(pets::get)
+                .filter(Objects::nonNull)
+                .map(PetMapper.INSTANCE::toSummaryDTO)
+                .toList();
+    }
+
+    private static <T> void putFilter(Map<PetSearchField, Set<String>> filters, PetSearchField field,
+                                      Collection<T> values, Function<T, String> toTerm) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        values.stream().filter(Objects::nonNull).map(toTerm).forEach(terms::add);
+        filters.put(field, terms);
+    }
+
+    private static List<Boolean> asList(Boolean value) {
+        return value != null ? List.of(value) : List.of();
+    }
+}
@@ -0,0 +1,4 @@
+-- Run by Hibernate after it creates the schema. Each statement must fit on a single line.
+-- Full-text search vector over the pet name, color and observations, kept up to date by PostgreSQL on every write.
+ALTER TABLE pet ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(name, '')), 'A') || setweight(to_tsvector('english', coalesce(color, '')), 'B') || setweight(to_tsvector('english', coalesce(observations, '')), 'C')) STORED;
+CREATE INDEX idx_pet_search_vector ON pet USING GIN (search_vector);
@@ -0,0 +1,82 @@
+package org.mindera.fur.code.aspect.roleauth;
+
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.dto.pet.PetCreateDTO;
+import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.service.FileService;
+
+import java.io.InputStream;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequiresRoleRegistryTest {
+
+    @Test
+    void givenShelterIdParam_whenExtract_thenParameterIsRead() throws Exception {
+        RequiresRoleRegistry.Entry entry = RequiresRoleRegistry.compile(method("byParam", String.class, Long.class));
+
+        assertEquals(7L, entry.idExtractor().extract(new Object[]{"name", 7L}));
+    }
+
+    @Test
+    void givenShelterIdField_whenExtract_thenFieldOfRequestBodyIsRead() throws Exception {
+        PetCreateDTO pet = new PetCreateDTO();
+        pet.setShelterId(3L);
+
+        RequiresRoleRegistry.Entry entry = RequiresRoleRegistry.compile(method("byField", String.class, PetCreateDTO.class));
+
+        assertEquals(3L, entry.idExtractor().extract(new Object[]{"name", pet}));
+    }
+
+    @Test
+    void givenShelterImageStream_whenCompile_thenItIsAuthorizedAgainstTheShelterId() throws Exception {
+        Method streamImageShelter = FileService.class.getMethod("streamImageShelter",
+                String.class, String.class, InputStream.class, long.class, String.class, Long.class);
+
+        RequiresRoleRegistry.Entry entry = RequiresRoleRegistry.compile(streamImageShelter);
+
+        assertEquals(Role.ADMIN, entry.requiresRole().value());
+        assertFalse(entry.requiresRole().isPetOperation());
+        assertEquals(9L, entry.idExtractor().extract(new Object[]{"/shelter/9/image/a.png", "a.png", null, 10L, null, 9L}));
+    }
+
+    @Test
+    void givenParamIndexOutOfRange_whenCompile_thenFailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> RequiresRoleRegistry.compile(method("outOfRange", Long.class)));
+    }
+
+    @Test
+    void givenUnknownField_whenCompile_thenFailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> RequiresRoleRegistry.compile(method("unknownField", PetCreateDTO.class)));
+    }
+
+    private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return Annotated.class.getDeclaredMethod(name, parameterTypes);
+    }
+
+    @SuppressWarnings("unused")
+    private static class Annotated {
+
+        @RequiresRole(value = Role.ADMIN, shelterIdParam = 1)
+        void byParam(String name, Long shelterId) {
+        }
+
+        @RequiresRole(value = Role.ADMIN, shelterIdField = "shelterId")
+        void byField(String name, PetCreateDTO pet) {
+        }
+
+        @RequiresRole(value = Role.ADMIN, isPetOperation = true, petIdParam = 1)
+        void outOfRange(Long petId) {
+        }
+
+        @RequiresRole(value = Role.ADMIN, shelterIdField = "shelter")
+        void unknownField(PetCreateDTO pet) {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.mindera.fur.code.aspect.roleauth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.dto.file.UploadSessionCreateDTO;
+import org.mindera.fur.code.exceptions.person.PersonException;
+import org.mindera.fur.code.infra.security.AuthenticatedPrincipal;
+import org.mindera.fur.code.infra.security.PrincipalService;
+import org.mindera.fur.code.infra.security.TokenClaims;
+import org.mindera.fur.code.infra.security.TokenService;
+import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.repository.file.UploadPartRepository;
+import org.mindera.fur.code.repository.file.UploadSessionRepository;
+import org.mindera.fur.code.service.FileService;
+import org.mindera.fur.code.service.file.ResumableUploadService;
+import org.mindera.fur.code.service.pet.PetOwnershipIndex;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RoleAuthAspectTest {
+
+    private static final long SHELTER_ID = 9L;
+
+    private PrincipalService principalService;
+    private UploadSessionRepository uploadSessionRepository;
+    private ResumableUploadService resumableUploadService;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        principalService = mock(PrincipalService.class);
+        RequiresRoleRegistry requiresRoleRegistry = mock(RequiresRoleRegistry.class);
+        when(requiresRoleRegistry.get(any(Method.class)))
+                .thenAnswer(invocation -> RequiresRoleRegistry.compile(invocation.getArgument(0)));
+
+        uploadSessionRepository = mock(UploadSessionRepository.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ResumableUploadService(mock(FileService.class),
+                uploadSessionRepository, mock(UploadPartRepository.class), DataSize.ofMegabytes(5), Duration.ofHours(1)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RoleAuthAspect(mock(TokenService.class), principalService,
+                mock(PetOwnershipIndex.class), requiresRoleRegistry));
+        resumableUploadService = factory.getProxy();
+
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void givenCallerNotInShelter_whenCreateShelterSession_thenRejectedBeforeAnySessionIsStored() {
+        authenticate(Map.of(SHELTER_ID + 1, Role.MASTER));
+
+        PersonException exception = assertThrows(PersonException.class,
+                () -> resumableUploadService.createShelterSession(SHELTER_ID, new UploadSessionCreateDTO()));
+
+        assertEquals("PERSON_NOT_ASSOCIATED_WITH_SHELTER", exception.getMessage());
+        verifyNoInteractions(uploadSessionRepository);
+    }
+
+    @Test
+    void givenShelterUser_whenCreateShelterSession_thenRejectedBeforeAnySessionIsStored() {
+        authenticate(Map.of(SHELTER_ID, Role.USER));
+
+        PersonException exception = assertThrows(PersonException.class,
+                () -> resumableUploadService.createShelterSession(SHELTER_ID, new UploadSessionCreateDTO()));
+
+        assertEquals("INSUFFICIENT_PERMISSIONS", exception.getMessage());
+        verifyNoInteractions(uploadSessionRepository);
+    }
+
+    private void authenticate(Map<Long, Role> shelterRoles) {
+        request.setAttribute(TokenClaims.REQUEST_ATTRIBUTE,
+                new TokenClaims("user@furcode.org", 0, shelterRoles, Instant.now().plusSeconds(60)));
+        when(principalService.current()).thenReturn(Optional.of(
+                new AuthenticatedPrincipal(1L, "user@furcode.org", Role.USER, 0, List.of(), shelterRoles)));
+    }
+}
@@ -5,15 +5,28 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mindera.fur.code.dto.file.FileUploadDTO;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
 import org.mindera.fur.code.service.FileService;
+import org.mindera.fur.code.service.file.GalleryService;
+import org.mindera.fur.code.service.file.ImageDerivativeService;
+import org.mindera.fur.code.service.file.PresignedUrlService;
+import org.mindera.fur.code.service.file.PresignedUrlService.PresignedUrl;
+import org.mindera.fur.code.service.file.StoredFile;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -21,12 +34,16 @@ import static org.mockito.Mockito.*;
 public class FileControllerUnitTest {
 
     private FileService fileService;
+    private PresignedUrlService presignedUrlService;
     private FileController fileController;
 
     @BeforeEach
     void setUp() {
         fileService = mock(FileService.class);
-        fileController = new FileController(fileService);
+        ImageDerivativeService imageDerivativeService = mock(ImageDerivativeService.class);
+        lenient().when(imageDerivativeService.selectVariant(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+        presignedUrlService = mock(PresignedUrlService.class);
+        fileController = new FileController(fileService, mock(GalleryService.class), imageDerivativeService, presignedUrlService);
     }
 
     @Nested
@@ -44,18 +61,92 @@ public class FileControllerUnitTest {
         }
 
         @Test
-        void fileDownloadImagePetController_givenInput_shouldSuccess() {
+        void fileDownloadImagePetController_givenInput_shouldSuccess() throws IOException {
             byte[] fileData = "fileData".getBytes();
             String fileName = "image.jpg";
-            when(fileService.downloadImagePet(anyString(), anyLong())).thenReturn(fileData);
-            when(fileService.getFileMimeTypeFromFileName(fileName)).thenReturn("image/jpeg");
+            StoredFile storedFile = new StoredFile("/pet/1/image/image.jpg", "image/jpeg", fileData.length, "etag", ZonedDateTime.now());
+            when(fileService.statImagePet(anyString(), anyLong())).thenReturn(storedFile);
+            doAnswer(invocation -> {
+                invocation.<OutputStream>getArgument(3).write(fileData);
+                return null;
+            }).when(fileService).transferFile(eq(storedFile), eq(0L), eq((long) fileData.length), any());
+
+            ResponseEntity<StreamingResponseBody> response = fileController.downloadImagePet(1L, fileName, null, null, null);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(MediaType.IMAGE_JPEG, response.getHeaders().getContentType());
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            response.getBody().writeTo(output);
+            assertArrayEquals(fileData, output.toByteArray());
+            verify(fileService, times(1)).statImagePet(anyString(), anyLong());
+        }
+
+        @Test
+        void fileDownloadImagePetController_givenRange_shouldReturnPartialContent() throws IOException {
+            byte[] fileData = "fileData".getBytes();
+            StoredFile storedFile = new StoredFile("/pet/1/image/image.jpg", "image/jpeg", fileData.length, "etag", ZonedDateTime.now());
+            when(fileService.statImagePet(anyString(), anyLong())).thenReturn(storedFile);
+            doAnswer(invocation -> {
+                invocation.<OutputStream>getArgument(3).write(fileData, 4, 4);
+                return null;
+            }).when(fileService).transferFile(eq(storedFile), eq(4L), eq(4L), any());
+
+            ResponseEntity<StreamingResponseBody> response = fileController.downloadImagePet(1L, "image.jpg", null, "bytes=4-", "\"etag\"");
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+            assertEquals("bytes 4-7/8", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            response.getBody().writeTo(output);
+            assertEquals("Data", output.toString());
+        }
+
+        @Test
+        void fileDownloadImagePetController_givenStaleIfRange_shouldReturnWholeFile() {
+            StoredFile storedFile = new StoredFile("/pet/1/image/image.jpg", "image/jpeg", 8, "etag", ZonedDateTime.now());
+            when(fileService.statImagePet(anyString(), anyLong())).thenReturn(storedFile);
+
+            ResponseEntity<StreamingResponseBody> response = fileController.downloadImagePet(1L, "image.jpg", null, "bytes=4-", "\"other\"");
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(8, response.getHeaders().getContentLength());
+        }
+
+        @Test
+        void fileDownloadImagePetController_givenUnsatisfiableRange_shouldReturn416() {
+            StoredFile storedFile = new StoredFile("/pet/1/image/image.jpg", "image/jpeg", 8, "etag", ZonedDateTime.now());
+            when(fileService.statImagePet(anyString(), anyLong())).thenReturn(storedFile);
+
+            ResponseEntity<StreamingResponseBody> response = fileController.downloadImagePet(1L, "image.jpg", null, "bytes=8-", null);
+
+            assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+            assertEquals("bytes */8", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        }
+
+        @Test
+        void fileDownloadImagePetController_givenPresignedMode_shouldRedirectWithoutReadingFile() throws IOException {
+            StoredFile storedFile = new StoredFile("pet/1/image/image.jpg", "image/jpeg", 8, "etag", ZonedDateTime.now());
+            when(fileService.statImagePet(anyString(), anyLong())).thenReturn(storedFile);
+            when(presignedUrlService.isEnabled()).thenReturn(true);
+            when(presignedUrlService.sign(ImageOwnerType.PET, 1L, storedFile))
+                    .thenReturn(new PresignedUrl("http://minio/furcode/pet/1/image/image.jpg?X-Amz-Signature=abc", Instant.now().plusSeconds(3600)));
+
+            ResponseEntity<StreamingResponseBody> response = fileController.downloadImagePet(1L, "image.jpg", null, null, null);
+
+            assertEquals(HttpStatus.FOUND, response.getStatusCode());
+            assertEquals("http://minio/furcode/pet/1/image/image.jpg?X-Amz-Signature=abc", response.getHeaders().getLocation().toString());
+            verify(fileService, never()).transferFile(any(), anyLong(), anyLong(), any());
+        }
+    
+        @Test
+        void fileDownloadImageShelterAsBase64Controller_givenInput_shouldReadFromShelterFolder() {
+            byte[] fileData = "fileData".getBytes();
+            when(fileService.downloadImageShelter("/shelter/2/image/image.jpg", 2L)).thenReturn(fileData);
+            when(fileService.getMimeTypeFromBytes(fileData)).thenReturn("image/jpeg");
 
-            ResponseEntity<Resource> response = fileController.downloadImagePet(1L, fileName);
+            ResponseEntity<String> response = fileController.downloadImageShelterAsBase64(2L, "image.jpg");
 
             assertEquals(HttpStatus.OK, response.getStatusCode());
-            assertTrue(response.getBody() instanceof ByteArrayResource);
-            verify(fileService, times(1)).downloadImagePet(anyString(), anyLong());
-            verify(fileService, times(1)).getFileMimeTypeFromFileName(fileName);
+            assertEquals("data:image/jpeg;base64,ZmlsZURhdGE=", response.getBody());
         }
     }
 }
@@ -12,6 +12,7 @@ import org.mindera.fur.code.dto.person.PersonCreationDTO;
 import org.mindera.fur.code.dto.person.PersonDTO;
 import org.mindera.fur.code.dto.pet.PetDTO;
 import org.mindera.fur.code.dto.pet.PetRecordDTO;
+import org.mindera.fur.code.infra.cache.PetCacheGenerations;
 import org.mindera.fur.code.model.Role;
 import org.mindera.fur.code.model.Shelter;
 import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
@@ -28,7 +29,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
@@ -96,6 +96,9 @@ class PetControllerTest {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private PetCacheGenerations petCacheGenerations;
+
 
     @BeforeEach
     void setUp() {
@@ -1118,7 +1121,7 @@ class PetControllerTest {
 
         // Verify caches are populated
         assertNotNull(petCache.get(id, PetDTO.class), "Pet should be cached");
-        assertNotNull(petsCache.get(SimpleKey.EMPTY), "Pets list should be cached");
+        assertNotNull(petsCache.get(petCacheGenerations.allPetsKey()), "Pets list should be cached");
 
         // Prepare update data
         String updateJson = """
@@ -1145,7 +1148,7 @@ class PetControllerTest {
         assertTrue(cachedPetAfterUpdate.getIsAdopted(), "Cached pet adoption status should be updated");
 
         // Verify that caches are evicted
-        assertNull(petsCache.get(SimpleKey.EMPTY), "Pets list cache should be evicted after update");
+        assertNull(petsCache.get(petCacheGenerations.allPetsKey()), "Pets list cache should be evicted after update");
 
         // Make GET request again to repopulate cache
         given()
@@ -1178,7 +1181,7 @@ class PetControllerTest {
                 .body("size()", greaterThan(0));
 
         // Verify cache contains the pets list
-        List<PetDTO> cachedPets = petsCache.get(SimpleKey.EMPTY, List.class);
+        List<PetDTO> cachedPets = petsCache.get(petCacheGenerations.allPetsKey(), List.class);
         assertNotNull(cachedPets, "Pets list should be cached after first call");
         assertFalse(cachedPets.isEmpty(), "Cached pets list should not be empty");
 
@@ -1191,7 +1194,7 @@ class PetControllerTest {
                 .body("size()", greaterThan(0));
 
         // Verify that the cache still contains the same data
-        List<PetDTO> cachedPetsAfterSecondCall = petsCache.get(SimpleKey.EMPTY, List.class);
+        List<PetDTO> cachedPetsAfterSecondCall = petsCache.get(petCacheGenerations.allPetsKey(), List.class);
         assertEquals(cachedPets, cachedPetsAfterSecondCall, "Cached pets list should remain the same");
     }
 
@@ -1316,7 +1319,7 @@ class PetControllerTest {
 
         // Verify caches are populated
         assertNotNull(petCache.get(id), "Pet should be cached");
-        assertNotNull(petsCache.get(SimpleKey.EMPTY), "Pets list should be cached");
+        assertNotNull(petsCache.get(petCacheGenerations.allPetsKey()), "Pets list should be cached");
 
         // Act
         // Soft delete the pet
@@ -1329,6 +1332,178 @@ class PetControllerTest {
 
         // Verify that caches are evicted
         assertNull(petCache.get(id), "Pet cache should be evicted after deletion");
-        assertNull(petsCache.get(SimpleKey.EMPTY), "Pets list cache should be evicted after deletion");
+        assertNull(petsCache.get(petCacheGenerations.allPetsKey()), "Pets list cache should be evicted after deletion");
+    }
+
+    @Test
+    void givenPetsWithSameData_whenPagingWithCursor_thenEveryPetIsReturnedOnceInIdOrder() {
+        // Arrange: four more pets identical to the first one, so only the ID tells them apart
+        for (int i = 0; i < 4; i++) {
+            createPetAndGetId();
+        }
+
+        // Act & Assert: first page, without a cursor
+        Integer firstCursor = given()
+                .queryParam("limit", 2)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(200)
+                .body("content.id", contains(1, 2))
+                .body("hasNext", equalTo(true))
+                .body("nextCursor", equalTo(2))
+                .extract().path("nextCursor");
+
+        // Second page continues right after the cursor
+        Integer secondCursor = given()
+                .queryParam("limit", 2)
+                .queryParam("cursor", firstCursor)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(200)
+                .body("content.id", contains(3, 4))
+                .body("hasNext", equalTo(true))
+                .extract().path("nextCursor");
+
+        // Last page is partial and has no cursor
+        given()
+                .queryParam("limit", 2)
+                .queryParam("cursor", secondCursor)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(200)
+                .body("content.id", contains(5))
+                .body("hasNext", equalTo(false))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void givenLimitEqualToRemainingPets_whenGetPage_thenLastPageHasNoNext() {
+        // Arrange
+        createPetAndGetId();
+
+        // Act & Assert
+        given()
+                .queryParam("limit", 2)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(200)
+                .body("content.id", contains(1, 2))
+                .body("hasNext", equalTo(false))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void givenCursorPastLastPet_whenGetPage_thenPageIsEmpty() {
+        given()
+                .queryParam("cursor", petId)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(200)
+                .body("content", empty())
+                .body("hasNext", equalTo(false))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void givenSoftDeletedPet_whenPagingPastIt_thenItIsSkippedWithoutBreakingTheCursor() {
+        // Arrange
+        Long deletedId = createPetAndGetId();
+        Long lastId = createPetAndGetId();
+        given()
+                .header("Authorization", "Bearer " + managerToken)
+                .when()
+                .delete("/api/v1/pet/delete/{id}", deletedId)
+                .then()
+                .statusCode(204);
+
+        // Act & Assert
+        given()
+                .queryParam("limit", 1)
+                .queryParam("cursor", petId)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(200)
+                .body("content.id", contains(lastId.intValue()))
+                .body("hasNext", equalTo(false));
+    }
+
+    @Test
+    void givenNegativeCursor_whenGetPage_thenReturns400() {
+        given()
+                .queryParam("cursor", -1)
+                .when()
+                .get("/api/v1/pet")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void givenNameAndObservationMatches_whenTextSearch_thenNameMatchRanksFirst() {
+        // Arrange: name is weighted above observations
+        Long observationMatch = createPetAndGetId("Max", "Loves biscuit treats");
+        Long nameMatch = createPetAndGetId("Biscuit", "Calm and friendly");
+
+        // Act & Assert
+        given()
+                .queryParam("q", "biscuit")
+                .when()
+                .get("/api/v1/pet/search")
+                .then()
+                .statusCode(200)
+                .body("content.pet.id", contains(nameMatch.intValue(), observationMatch.intValue()))
+                .body("content[0].rank", greaterThan(0f))
+                .body("hasNext", equalTo(false));
+    }
+
+    @Test
+    void givenNoMatch_whenTextSearch_thenPageIsEmpty() {
+        given()
+                .queryParam("q", "unicorn")
+                .when()
+                .get("/api/v1/pet/search")
+                .then()
+                .statusCode(200)
+                .body("content", empty())
+                .body("hasNext", equalTo(false));
+    }
+
+    @Test
+    void givenPetTextWithMarkup_whenTextSearch_thenSnippetIsEscapedAndMatchIsMarked() {
+        // Arrange
+        createPetAndGetId("<img src=x onerror=alert(1)>", "Rex is a good boy");
+
+        // Act & Assert
+        given()
+                .queryParam("q", "rex")
+                .when()
+                .get("/api/v1/pet/search")
+                .then()
+                .statusCode(200)
+                .body("content[0].snippet", containsString("<mark>Rex</mark>"))
+                .body("content[0].snippet", containsString("&lt;img"))
+                .body("content[0].snippet", not(containsString("<img")));
+    }
+
+    private Long createPetAndGetId(String name, String observations) {
+        String petJson = VALID_PET_JSON
+                .replace("\"name\": \"Max\"", "\"name\": \"" + name + "\"")
+                .replace("\"observations\": \"Healthy and active\"", "\"observations\": \"" + observations + "\"");
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + adminToken)
+                .body(petJson)
+                .when()
+                .post("/api/v1/pet")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+        return id.longValue();
     }
 }
@@ -0,0 +1,159 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.dto.external_apis.dog_api.DogBreedsNamesDTO;
+import org.mindera.fur.code.dto.pet.PetDTO;
+import org.mindera.fur.code.dto.pet.PetPageDTO;
+import org.mindera.fur.code.dto.pet.PetRecordDTO;
+import org.mindera.fur.code.dto.pet.PetSummaryDTO;
+import org.mindera.fur.code.infra.security.AuthenticatedPrincipal;
+import org.mindera.fur.code.model.Role;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(1024);
+
+    @Test
+    void givenPetDTO_whenRoundTrip_thenValueIsEqual() {
+        PetDTO pet = createPet(1L);
+
+        Object result = serializer.deserialize(serializer.serialize(pet));
+
+        assertEquals(pet, result);
+    }
+
+    @Test
+    void givenImmutableList_whenRoundTrip_thenListIsEqual() {
+        List<PetDTO> pets = List.of(createPet(1L), createPet(2L));
+
+        Object result = serializer.deserialize(serializer.serialize(pets));
+
+        assertEquals(pets, result);
+    }
+
+    @Test
+    void givenPetPage_whenRoundTrip_thenPageIsEqual() {
+        PetPageDTO page = new PetPageDTO(IntStream.rangeClosed(1, 3).mapToObj(i -> createPetSummary((long) i)).toList(), 3L, true);
+
+        Object result = serializer.deserialize(serializer.serialize(page));
+
+        assertEquals(page, result);
+    }
+
+    @Test
+    void givenPrincipal_whenRoundTrip_thenShelterRolesKeepTheirTypes() {
+        AuthenticatedPrincipal principal = new AuthenticatedPrincipal(1L, "john.doe@example.com", Role.ADMIN, 3L,
+                List.of("ADMIN", "USER"), Map.of(7L, Role.MANAGER));
+
+        Object result = serializer.deserialize(serializer.serialize(principal));
+
+        assertEquals(principal, result);
+        assertEquals(Role.MANAGER, ((AuthenticatedPrincipal) result).shelterRole(7L));
+    }
+
+    @Test
+    void givenBreedNames_whenRoundTrip_thenValueIsEqual() {
+        DogBreedsNamesDTO names = new DogBreedsNamesDTO(List.of("Hokkaido", "Akita"));
+
+        Object result = serializer.deserialize(serializer.serialize(names));
+
+        assertEquals(names, result);
+    }
+
+    @Test
+    void givenLongValue_whenRoundTrip_thenTypeIsKept() {
+        Object result = serializer.deserialize(serializer.serialize(42L));
+
+        assertEquals(42L, result);
+    }
+
+    @Test
+    void givenNullValue_whenRoundTrip_thenNullValueIsReturned() {
+        Object result = serializer.deserialize(serializer.serialize(NullValue.INSTANCE));
+
+        assertSame(NullValue.INSTANCE, result);
+    }
+
+    @Test
+    void givenLargeList_whenSerialize_thenPayloadIsCompressedAndSmallerThanJdk() {
+        List<PetDTO> pets = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            pets.add(createPet(i));
+        }
+
+        byte[] bytes = serializer.serialize(pets);
+        byte[] jdkBytes = new JdkSerializationRedisSerializer().serialize(pets);
+
+        assertEquals(CompactRedisSerializer.FLAG_DEFLATED, bytes[3] & CompactRedisSerializer.FLAG_DEFLATED);
+        assertTrue(bytes.length < jdkBytes.length / 4, "Compact payload should be much smaller than JDK serialization");
+        assertEquals(pets, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void givenLegacyJdkEntry_whenDeserialize_thenValueIsRead() {
+        PetDTO pet = createPet(1L);
+        byte[] legacyBytes = new JdkSerializationRedisSerializer().serialize(pet);
+
+        Object result = serializer.deserialize(legacyBytes);
+
+        assertEquals(pet, result);
+    }
+
+    @Test
+    void givenUnknownVersion_whenDeserialize_thenEntryIsTreatedAsMiss() {
+        byte[] bytes = serializer.serialize(createPet(1L));
+        bytes[2] = (byte) (CompactRedisSerializer.VERSION + 1);
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    private static PetSummaryDTO createPetSummary(Long id) {
+        PetSummaryDTO pet = new PetSummaryDTO();
+        pet.setId(id);
+        pet.setName("Pet " + id);
+        pet.setPetTypeId(1L);
+        pet.setSpecies(PetSpeciesEnum.DOG);
+        pet.setShelterId(1L);
+        pet.setIsAdopted(false);
+        pet.setIsVaccinated(true);
+        pet.setSize(PetSizeEnum.MEDIUM);
+        pet.setColor("Brown");
+        pet.setAge(3);
+        return pet;
+    }
+
+    private static PetDTO createPet(Long id) {
+        PetRecordDTO record = new PetRecordDTO();
+        record.setId(id);
+        record.setIntervention("Vaccination");
+        record.setPetId(id);
+        record.setCreatedAt(LocalDateTime.of(2024, 9, 1, 10, 30));
+
+        PetDTO pet = new PetDTO();
+        pet.setId(id);
+        pet.setName("Pet " + id);
+        pet.setPetTypeId(1L);
+        pet.setShelterId(1L);
+        pet.setIsAdopted(false);
+        pet.setIsVaccinated(true);
+        pet.setSize(PetSizeEnum.MEDIUM);
+        pet.setWeight(25.5);
+        pet.setColor("Brown");
+        pet.setAge(3);
+        pet.setObservations("Healthy and active");
+        pet.setPetRecords(List.of(record));
+        return pet;
+    }
+}
@@ -0,0 +1,94 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mindera.fur.code.dto.cache.ObjectCacheStatsDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalObjectCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private LocalObjectCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new LocalObjectCache(directory, 10, 6);
+    }
+
+    @Test
+    void givenCacheOverLimit_whenPut_thenLeastRecentlyUsedObjectIsEvicted() throws IOException {
+        cache.put("a", "1", content("aaaa"));
+        cache.put("b", "1", content("bbbb"));
+        assertTrue(cache.get("a", "1").isPresent());
+
+        cache.put("c", "1", content("cccc"));
+
+        assertTrue(cache.get("a", "1").isPresent());
+        assertTrue(cache.get("b", "1").isEmpty());
+        assertTrue(cache.get("c", "1").isPresent());
+        ObjectCacheStatsDTO stats = cache.getStats();
+        assertEquals(2, stats.getEntries());
+        assertEquals(8, stats.getBytes());
+        assertEquals(1, stats.getEvictions());
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void givenOtherVersion_whenGet_thenMissAndStaleFileIsRemoved() throws IOException {
+        Path stale = cache.put("a", "1", content("aaaa"));
+
+        assertTrue(cache.get("a", "2").isEmpty());
+
+        assertFalse(Files.exists(stale));
+        assertEquals(0, cache.getStats().getBytes());
+    }
+
+    @Test
+    void givenCachedObject_whenInvalidate_thenMiss() throws IOException {
+        cache.put("a", "1", content("aaaa"));
+
+        cache.invalidate("a");
+
+        assertTrue(cache.get("a", "1").isEmpty());
+        assertEquals(0, cache.getStats().getEntries());
+    }
+
+    @Test
+    void givenCachedObject_whenTransferRange_thenRangeIsWrittenAndCounted() throws IOException {
+        cache.put("a", "1", content("fileData"));
+        Optional<Path> file = cache.get("a", "1");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        cache.transfer(file.orElseThrow(), 4, 4, Channels.newChannel(output));
+
+        assertEquals("Data", output.toString());
+        ObjectCacheStatsDTO stats = cache.getStats();
+        assertEquals(4, stats.getBytesServed());
+        assertEquals(1, stats.getHits());
+        assertEquals(1.0, stats.getHitRatio());
+    }
+
+    @Test
+    void givenObjectLargerThanEntryLimit_whenAccepts_thenFalse() {
+        assertTrue(cache.accepts(6));
+        assertFalse(cache.accepts(7));
+    }
+
+    private static ByteArrayInputStream content(String data) {
+        return new ByteArrayInputStream(data.getBytes());
+    }
+}
@@ -0,0 +1,107 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.dto.pet.PetFilterDTO;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PetCacheGenerationsTest {
+
+    private ValueOperations<String, String> valueOperations;
+    private PetCacheGenerations petCacheGenerations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        petCacheGenerations = new PetCacheGenerations(redisTemplate, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void givenPetMovedBetweenShelters_whenSegmentsOf_thenBothSheltersAndAllAreBumped() {
+        PetChangedEvent moved = new PetChangedEvent(pet(1L, PetSpeciesEnum.DOG, false), pet(2L, PetSpeciesEnum.DOG, false));
+
+        assertEquals(Set.of("all", "shelter:1", "shelter:2", "species:DOG", "adopted:false"),
+                PetCacheGenerations.segmentsOf(moved));
+    }
+
+    @Test
+    void givenPetAdopted_whenSegmentsOf_thenBothAdoptedStatusesAreBumped() {
+        PetChangedEvent adopted = new PetChangedEvent(pet(1L, PetSpeciesEnum.CAT, false), pet(1L, PetSpeciesEnum.CAT, true));
+
+        assertEquals(Set.of("all", "shelter:1", "species:CAT", "adopted:false", "adopted:true"),
+                PetCacheGenerations.segmentsOf(adopted));
+    }
+
+    @Test
+    void givenPetCreatedOrDeleted_whenSegmentsOf_thenOnlyItsOwnSegmentsAreBumped() {
+        Set<String> expected = Set.of("all", "shelter:3", "species:DOG", "adopted:false");
+
+        assertEquals(expected, PetCacheGenerations.segmentsOf(new PetChangedEvent(null, pet(3L, PetSpeciesEnum.DOG, false))));
+        assertEquals(expected, PetCacheGenerations.segmentsOf(new PetChangedEvent(pet(3L, PetSpeciesEnum.DOG, false), null)));
+    }
+
+    @Test
+    void givenFilters_whenSegmentOf_thenMostSelectiveSegmentedFilterIsUsed() {
+        PetFilterDTO filter = new PetFilterDTO();
+        assertEquals("all", PetCacheGenerations.segmentOf(filter));
+
+        // Size and vaccination have no segment of their own
+        filter.setSize(PetSizeEnum.SMALL);
+        filter.setIsVaccinated(true);
+        assertEquals("all", PetCacheGenerations.segmentOf(filter));
+
+        filter.setIsAdopted(false);
+        assertEquals("adopted:false", PetCacheGenerations.segmentOf(filter));
+
+        filter.setSpecies(PetSpeciesEnum.CAT);
+        assertEquals("species:CAT", PetCacheGenerations.segmentOf(filter));
+
+        filter.setShelterId(7L);
+        assertEquals("shelter:7", PetCacheGenerations.segmentOf(filter));
+    }
+
+    @Test
+    void givenBumpFromAnotherNode_whenPageKey_thenOnlyPagesOfThatSegmentChange() {
+        PetFilterDTO shelterPage = new PetFilterDTO();
+        shelterPage.setShelterId(7L);
+        PetFilterDTO speciesPage = new PetFilterDTO();
+        speciesPage.setSpecies(PetSpeciesEnum.DOG);
+        String shelterKey = petCacheGenerations.pageKey(shelterPage);
+        String speciesKey = petCacheGenerations.pageKey(speciesPage);
+        assertTrue(shelterKey.startsWith("shelter:7@0|"));
+
+        when(valueOperations.get(PetCacheGenerations.KEY_PREFIX + "shelter:7")).thenReturn("1");
+        when(valueOperations.get(PetCacheGenerations.KEY_PREFIX + "species:DOG")).thenReturn("1");
+        // Still served from memory until the segment is invalidated
+        assertEquals(shelterKey, petCacheGenerations.pageKey(shelterPage));
+
+        petCacheGenerations.onMessage(new DefaultMessage(
+                TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                new CacheInvalidationMessage("other-node", PetCacheGenerations.INVALIDATION_NAME, "shelter:7")
+                        .encode().getBytes(StandardCharsets.UTF_8)), null);
+
+        assertTrue(petCacheGenerations.pageKey(shelterPage).startsWith("shelter:7@1|"));
+        assertEquals(speciesKey, petCacheGenerations.pageKey(speciesPage));
+    }
+
+    private static PetSnapshot pet(Long shelterId, PetSpeciesEnum species, boolean isAdopted) {
+        return new PetSnapshot(10L, shelterId, species, PetSizeEnum.MEDIUM, "Brown", 3, isAdopted, true);
+    }
+}
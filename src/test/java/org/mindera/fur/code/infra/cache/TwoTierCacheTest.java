@@ -0,0 +1,199 @@
+package org.mindera.fur.code.infra.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        cacheManager = new TwoTierCacheManager(remoteCacheManager, redisTemplate, 100, Duration.ofMinutes(5),
+                Map.of("pets", Duration.ofMinutes(10)), 1.0, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void givenMiss_whenGet_thenValueIsPromotedFromRemoteToLocal() {
+        remoteCacheManager.getCache("pet").put(1L, "Rex");
+        Cache cache = cacheManager.getCache("pet");
+
+        assertEquals("Rex", cache.get(1L, String.class));
+        assertEquals("Rex", cache.get(1L, String.class));
+
+        TwoTierCache twoTierCache = (TwoTierCache) cache;
+        assertEquals(1, twoTierCache.stats().getL1Hits());
+        assertEquals(1, twoTierCache.stats().getL2Hits());
+    }
+
+    @Test
+    void givenConcurrentMisses_whenGetWithLoader_thenValueIsLoadedOnce() throws Exception {
+        Cache cache = cacheManager.getCache("pet");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(1L, () -> {
+                        calls.incrementAndGet();
+                        Thread.sleep(100);
+                        return "Rex";
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("Rex", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void givenLoaderFailure_whenGetWithLoader_thenExceptionIsPropagatedAndNothingIsCached() {
+        Cache cache = cacheManager.getCache("pet");
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("Database down");
+        }));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void givenCacheWithTtl_whenPut_thenValueIsWrappedInRemoteAndUnwrappedOnRead() {
+        Cache cache = cacheManager.getCache("pets");
+
+        cache.put("all@0", List.of("Rex"));
+
+        assertInstanceOf(CacheEnvelope.class, remoteCacheManager.getCache("pets").get("all@0").get());
+        assertEquals(List.of("Rex"), cache.get("all@0").get());
+    }
+
+    @Test
+    void givenEntryCloseToExpiry_whenShouldRefreshEarly_thenTrue() {
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache("pets");
+        long now = System.currentTimeMillis();
+
+        assertTrue(cache.shouldRefreshEarly(new CacheEnvelope("Rex", 1_000, now)));
+        assertFalse(cache.shouldRefreshEarly(new CacheEnvelope("Rex", 0, now + 60_000)));
+    }
+
+    @Test
+    void givenInvalidationFromAnotherNode_whenOnMessage_thenOnlyTheLocalEntryIsDropped() {
+        Cache cache = cacheManager.getCache("pet");
+        cache.put(1L, "Rex");
+        remoteCacheManager.getCache("pet").put(1L, "Max");
+
+        cacheManager.onMessage(message(new CacheInvalidationMessage("other-node", "pet", 1L)), null);
+
+        assertEquals("Max", cache.get(1L, String.class));
+    }
+
+    @Test
+    void givenOwnOrMalformedInvalidation_whenOnMessage_thenLocalEntryIsKept() {
+        Cache cache = cacheManager.getCache("pet");
+        cache.put(1L, "Rex");
+        remoteCacheManager.getCache("pet").put(1L, "Max");
+
+        cacheManager.onMessage(message(publishedMessage()), null);
+        cacheManager.onMessage(new DefaultMessage(new byte[0], "not a message".getBytes(StandardCharsets.UTF_8)), null);
+        cacheManager.onMessage(new DefaultMessage(new byte[0], "node\npet\nL\nnot-a-number".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals("Rex", cache.get(1L, String.class));
+    }
+
+    @Test
+    void givenKeysOfEveryType_whenEncodeAndDecode_thenKeysKeepTheirTypes() {
+        assertEquals(42L, roundTrip(42L).key());
+        assertEquals(42, roundTrip(42).key());
+        assertEquals("all@3\nwith newline", roundTrip("all@3\nwith newline").key());
+        assertNull(roundTrip(null).key());
+        // Other key types are sent as a clear of the whole cache
+        assertNull(roundTrip(List.of(1L, 2L)).key());
+    }
+
+    @Test
+    void givenClear_whenOtherNodeReceivesIt_thenItsWholeLocalCacheIsDropped() {
+        Cache cache = cacheManager.getCache("pet");
+        cache.put(1L, "Rex");
+        cache.put(2L, "Bolt");
+        remoteCacheManager.getCache("pet").clear();
+
+        cacheManager.onMessage(message(new CacheInvalidationMessage("other-node", "pet", null)), null);
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    private static CacheInvalidationMessage roundTrip(Object key) {
+        CacheInvalidationMessage decoded = CacheInvalidationMessage.decode(
+                new CacheInvalidationMessage("node", "pet", key).encode());
+        assertEquals("node", decoded.nodeId());
+        assertEquals("pet", decoded.cacheName());
+        return decoded;
+    }
+
+    private static DefaultMessage message(CacheInvalidationMessage invalidation) {
+        return new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                invalidation.encode().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Captures the message this node published for its last write.
+     */
+    @SuppressWarnings("unchecked")
+    private CacheInvalidationMessage publishedMessage() {
+        ArgumentCaptor<RedisCallback<Long>> callback = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redisTemplate, atLeastOnce()).execute(callback.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        callback.getValue().doInRedis(connection);
+        ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).publish(eq(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8)), body.capture());
+        return CacheInvalidationMessage.decode(new String(body.getValue(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package org.mindera.fur.code.infra.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimiterTest {
+
+    private static final RateLimitProperties.Rule RULE = new RateLimitProperties.Rule(
+            "search", "POST", "/api/v1/pet/search/nl/*", 3, Duration.ofSeconds(3), RateLimitProperties.KeyType.PRINCIPAL);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private StringRedisTemplate redisTemplate;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        RateLimitProperties properties = new RateLimitProperties(true, 100, Duration.ofSeconds(5), List.of(RULE));
+        rateLimiter = new RateLimiter(redisTemplate, properties, now::get);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenRedisResult_whenTryAcquire_thenDecisionIsReadFromTheScript() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(0L, 0L, 2_000_000L, 500_000L));
+
+        RateLimitDecision decision = rateLimiter.tryAcquire(RULE, "person:1");
+
+        assertFalse(decision.allowed());
+        assertEquals(3, decision.limit());
+        assertEquals(Duration.ofSeconds(2), decision.reset());
+        assertEquals(Duration.ofMillis(500), decision.retryAfter());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenRedisDown_whenTryAcquire_thenBucketIsKeptLocallyAndRedisIsSkipped() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            RateLimitDecision decision = rateLimiter.tryAcquire(RULE, "person:1");
+            assertTrue(decision.allowed());
+            assertEquals(remaining, decision.remaining());
+        }
+        RateLimitDecision rejected = rateLimiter.tryAcquire(RULE, "person:1");
+        assertFalse(rejected.allowed());
+        assertEquals(Duration.ofSeconds(1), rejected.retryAfter());
+        assertTrue(rateLimiter.tryAcquire(RULE, "person:2").allowed());
+
+        now.addAndGet(1_000_000L);
+        assertTrue(rateLimiter.tryAcquire(RULE, "person:1").allowed());
+        assertFalse(rateLimiter.tryAcquire(RULE, "person:1").allowed());
+
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
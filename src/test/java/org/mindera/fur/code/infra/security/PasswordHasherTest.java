@@ -0,0 +1,79 @@
+package org.mindera.fur.code.infra.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.exceptions.throttle.TooManyRequestsException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private static final int STRENGTH = 4;
+
+    private ThreadPoolTaskExecutor executor;
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(STRENGTH), executor, STRENGTH);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void givenEncodedPassword_whenMatches_thenOnlyTheSamePasswordMatchesAndNoRehashIsNeeded() {
+        String hash = passwordHasher.encode("password123");
+
+        assertTrue(passwordHasher.matches("password123", hash));
+        assertFalse(passwordHasher.matches("password124", hash));
+        assertTrue(passwordHasher.rehash("password123", hash).isEmpty());
+    }
+
+    @Test
+    void givenHashWithAnotherCost_whenRehash_thenHashUsesTheConfiguredCost() {
+        String oldHash = new BCryptPasswordEncoder(5).encode("password123");
+
+        assertTrue(passwordHasher.needsRehash(oldHash));
+        String newHash = passwordHasher.rehash("password123", oldHash).orElseThrow();
+        assertTrue(newHash.startsWith("$2a$04$"));
+        assertTrue(passwordHasher.matches("password123", newHash));
+    }
+
+    @Test
+    void givenSaturatedExecutor_whenEncode_thenTooManyRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        executor.execute(() -> {
+        });
+
+        try {
+            assertThrows(TooManyRequestsException.class, () -> passwordHasher.encode("password123"));
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.mindera.fur.code.infra.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.exceptions.token.TokenException;
+import org.mindera.fur.code.messages.token.TokenMessage;
+import org.mindera.fur.code.model.Role;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenServiceTest {
+
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenService(100);
+    }
+
+    @Test
+    void givenGeneratedToken_whenValidateTwice_thenSubjectIsReturnedBothTimes() {
+        String token = tokenService.generateToken(principal());
+
+        assertEquals("john.doe@example.com", tokenService.validateToken(token));
+        assertEquals("john.doe@example.com", tokenService.validateToken(token));
+    }
+
+    @Test
+    void givenGeneratedToken_whenVerify_thenVersionAndShelterRolesAreClaimed() {
+        TokenClaims claims = tokenService.verify(tokenService.generateToken(principal()));
+
+        assertEquals(4L, claims.tokenVersion());
+        assertEquals(Role.MANAGER, claims.shelterRole(7L));
+        assertNull(claims.shelterRole(8L));
+    }
+
+    @Test
+    void givenTokenSignedWithOtherSecret_whenValidate_thenInvalidSignature() {
+        String token = JWT.create()
+                .withIssuer("fur-code")
+                .withSubject("john.doe@example.com")
+                .withExpiresAt(Instant.now().plusSeconds(60))
+                .sign(Algorithm.HMAC256("other-secret"));
+
+        TokenException exception = assertThrows(TokenException.class, () -> tokenService.validateToken(token));
+        assertEquals(new TokenException(TokenMessage.INVALID_TOKEN_SIGNATURE).getMessage(), exception.getMessage());
+    }
+
+    @Test
+    void givenExpiredToken_whenValidate_thenTokenExpired() {
+        String token = JWT.create()
+                .withIssuer("fur-code")
+                .withSubject("john.doe@example.com")
+                .withExpiresAt(Instant.now().minusSeconds(60))
+                .sign(Algorithm.HMAC256("my-secret-key"));
+
+        TokenException exception = assertThrows(TokenException.class, () -> tokenService.validateToken(token));
+        assertEquals(new TokenException(TokenMessage.TOKEN_EXPIRED).getMessage(), exception.getMessage());
+    }
+
+    private static AuthenticatedPrincipal principal() {
+        return new AuthenticatedPrincipal(1L, "john.doe@example.com", Role.USER, 4L, List.of("USER"),
+                Map.of(7L, Role.MANAGER));
+    }
+}
@@ -1,21 +1,50 @@
 package org.mindera.fur.code.service;
 
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
 import io.minio.MinioClient;
+import jakarta.persistence.EntityNotFoundException;
+import okhttp3.Headers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mindera.fur.code.dto.file.FileUploadDTO;
 import org.mindera.fur.code.dto.pet.PetDTO;
 import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.infra.cache.LocalObjectCache;
+import org.mindera.fur.code.infra.minio.MultipartMinioClient;
+import org.mindera.fur.code.service.file.ImageBlobService;
+import org.mindera.fur.code.service.file.ImageMetadataService;
+import org.mindera.fur.code.service.file.StoredFile;
+import org.mindera.fur.code.service.pet.PetOwnershipIndex;
 import org.mindera.fur.code.service.pet.PetService;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,12 +54,20 @@ public class FileServiceUnitTest {
     private MinioClient minioClient;
     private PetService petService;
     private ShelterService shelterService;
+    private ImageMetadataService imageMetadataService;
+    private LocalObjectCache localObjectCache;
 
     @BeforeEach
     void setUp() {
         minioClient = mock(MinioClient.class);
         petService = mock(PetService.class);
-        fileService = new FileService(minioClient, petService, shelterService);
+        imageMetadataService = mock(ImageMetadataService.class);
+        localObjectCache = mock(LocalObjectCache.class);
+        PetOwnershipIndex petOwnershipIndex = mock(PetOwnershipIndex.class);
+        lenient().when(petOwnershipIndex.shelterIdOf(1L)).thenReturn(1L);
+        fileService = new FileService(minioClient, petService, shelterService, imageMetadataService,
+                mock(ImageBlobService.class), mock(ApplicationEventPublisher.class), localObjectCache,
+                mock(MultipartMinioClient.class), petOwnershipIndex);
     }
 
     @Nested
@@ -193,4 +230,53 @@ public class FileServiceUnitTest {
         }
 
     }
+
+    @Nested
+    class StatUnitTests {
+        @Test
+        void statImagePet_givenNonExistentPetId_shouldFail() {
+            assertThrows(EntityNotFoundException.class, () -> {
+                fileService.statImagePet("pet/2/image/tareco.jpg", 2L);
+            });
+        }
+    }
+
+    @Nested
+    class TransferUnitTests {
+        @Test
+        void transferFile_givenCachedFileEvictedBeforeItIsOpened_shouldStreamFromMinio() throws Exception {
+            StoredFile file = new StoredFile("pet/1/image/a.jpg", "image/jpeg", 10, "etag", ZonedDateTime.now());
+            Path evicted = Path.of("evicted.obj");
+            when(localObjectCache.accepts(10)).thenReturn(true);
+            when(localObjectCache.get(file.objectName(), "etag")).thenReturn(Optional.of(evicted));
+            doThrow(new NoSuchFileException(evicted.toString()))
+                    .when(localObjectCache).transfer(eq(evicted), eq(2L), eq(3L), any());
+            when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(new GetObjectResponse(
+                    Headers.of(), "furcode", null, file.objectName(), new ByteArrayInputStream("abc".getBytes())));
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            fileService.transferFile(file, 2, 3, output);
+
+            assertEquals("abc", output.toString());
+        }
+
+        @Test
+        void readFile_givenBlobReadTwice_shouldFetchItFromMinioOnceWithoutEntityTag(@TempDir Path directory) throws Exception {
+            String sha256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+            StoredFile blob = new StoredFile(ImageBlobService.keyOf(sha256), "image/jpeg", 3, sha256, ZonedDateTime.now());
+            FileService cachingFileService = new FileService(minioClient, petService, shelterService, imageMetadataService,
+                    mock(ImageBlobService.class), mock(ApplicationEventPublisher.class),
+                    new LocalObjectCache(directory, 1024, 1024), mock(MultipartMinioClient.class),
+                    mock(PetOwnershipIndex.class));
+            when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(new GetObjectResponse(
+                    Headers.of(), "furcode", null, blob.objectName(), new ByteArrayInputStream("abc".getBytes())));
+
+            assertArrayEquals("abc".getBytes(), cachingFileService.readFile(blob));
+            assertArrayEquals("abc".getBytes(), cachingFileService.readFile(blob));
+
+            ArgumentCaptor<GetObjectArgs> args = ArgumentCaptor.forClass(GetObjectArgs.class);
+            verify(minioClient, times(1)).getObject(args.capture());
+            assertNull(args.getValue().matchETag());
+        }
+    }
 }
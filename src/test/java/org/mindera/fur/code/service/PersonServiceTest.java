@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mindera.fur.code.dto.person.PersonCreationDTO;
 import org.mindera.fur.code.dto.person.PersonDTO;
+import org.mindera.fur.code.infra.security.PrincipalService;
 import org.mindera.fur.code.mapper.PersonMapper;
 import org.mindera.fur.code.model.Person;
 import org.mindera.fur.code.repository.PersonRepository;
@@ -27,6 +28,9 @@ class PersonServiceTest {
     @Mock
     private PersonRepository personRepository;
 
+    @Mock
+    private PrincipalService principalService;
+
 
     @Nested
     class getPerson {
@@ -85,9 +89,11 @@ class PersonServiceTest {
             person.setId(1L);
             when(personRepository.findById(1L)).thenReturn(Optional.of(person));
 
+            person.setEmail("john.doe@example.com");
             personService.deletePerson(1L);
 
             verify(personRepository, times(1)).delete(person);
+            verify(principalService, times(1)).evict("john.doe@example.com");
         }
     }
 
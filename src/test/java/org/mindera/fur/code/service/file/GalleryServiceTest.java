@@ -0,0 +1,89 @@
+package org.mindera.fur.code.service.file;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.service.FileService;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GalleryServiceTest {
+
+    private ImageMetadataService imageMetadataService;
+    private FileService fileService;
+    private ThreadPoolTaskExecutor executor;
+    private GalleryService galleryService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        imageMetadataService = mock(ImageMetadataService.class);
+        fileService = mock(FileService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(3);
+        executor.initialize();
+        galleryService = new GalleryService(imageMetadataService, fileService, mock(ImageDerivativeService.class), executor,
+                objectMapper, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void givenGalleryLargerThanWindow_whenWriteGallery_thenEveryImageIsWrittenOnce() throws Exception {
+        List<ImageReference> files = IntStream.range(0, 7)
+                .mapToObj(i -> new ImageReference("pet/1/image/" + i + ".jpg",
+                        new StoredFile("pet/1/image/" + i + ".jpg", "image/jpeg", 1, "etag", ZonedDateTime.now())))
+                .toList();
+        when(imageMetadataService.findAllByOwner(ImageOwnerType.PET, 1L)).thenReturn(files);
+        when(fileService.readFile(any())).thenAnswer(invocation ->
+                ((StoredFile) invocation.getArgument(0)).objectName().getBytes());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        galleryService.writeGallery(ImageOwnerType.PET, 1L, false, output);
+
+        JsonNode gallery = objectMapper.readTree(output.toByteArray());
+        assertEquals(7, gallery.size());
+        Set<String> ids = new HashSet<>();
+        for (JsonNode image : gallery) {
+            ids.add(image.get("id").asText());
+            assertEquals(image.get("id").asText(), new String(image.get("data").binaryValue()));
+            assertEquals("image/jpeg", image.get("contentType").asText());
+        }
+        assertEquals(7, ids.size());
+    }
+
+    @Test
+    void givenImageThatCannotBeFetched_whenWriteGallery_thenItIsLeftOut() throws Exception {
+        StoredFile ok = new StoredFile("pet/1/image/ok.jpg", "image/jpeg", 1, "etag", ZonedDateTime.now());
+        StoredFile missing = new StoredFile("pet/1/image/missing.jpg", "image/jpeg", 1, "etag", ZonedDateTime.now());
+        when(imageMetadataService.findAllByOwner(ImageOwnerType.PET, 1L)).thenReturn(List.of(
+                new ImageReference(missing.objectName(), missing), new ImageReference(ok.objectName(), ok)));
+        when(fileService.readFile(ok)).thenReturn(new byte[]{1, 2, 3});
+        when(fileService.readFile(missing)).thenThrow(new FileException("Object does not exist"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        galleryService.writeGallery(ImageOwnerType.PET, 1L, false, output);
+
+        JsonNode gallery = objectMapper.readTree(output.toByteArray());
+        assertEquals(1, gallery.size());
+        assertEquals("pet/1/image/ok.jpg", gallery.get(0).get("id").asText());
+    }
+}
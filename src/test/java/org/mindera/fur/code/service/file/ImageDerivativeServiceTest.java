@@ -0,0 +1,105 @@
+package org.mindera.fur.code.service.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.enums.file.DerivativeJobStatus;
+import org.mindera.fur.code.model.enums.file.ImageVariant;
+import org.mindera.fur.code.model.file.ImageDerivative;
+import org.mindera.fur.code.model.file.ImageDerivativeJob;
+import org.mindera.fur.code.repository.file.ImageDerivativeJobRepository;
+import org.mindera.fur.code.repository.file.ImageDerivativeRepository;
+import org.mindera.fur.code.service.FileService;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageDerivativeServiceTest {
+
+    private static final String ORIGINAL_KEY = "pet/1/image/tareco.jpg";
+
+    private FileService fileService;
+    private ImageDerivativeRepository imageDerivativeRepository;
+    private ImageDerivativeJobRepository imageDerivativeJobRepository;
+    private ImageDerivativeService imageDerivativeService;
+    private final StoredFile original = new StoredFile(ORIGINAL_KEY, "image/jpeg", 100_000, "etag", ZonedDateTime.now());
+
+    @BeforeEach
+    void setUp() {
+        fileService = mock(FileService.class);
+        imageDerivativeRepository = mock(ImageDerivativeRepository.class);
+        imageDerivativeJobRepository = mock(ImageDerivativeJobRepository.class);
+        imageDerivativeService = new ImageDerivativeService(fileService, imageDerivativeRepository,
+                imageDerivativeJobRepository, mock(ThreadPoolTaskExecutor.class), new ConcurrentMapCacheManager());
+    }
+
+    @Test
+    void givenImageKey_whenKeyFor_thenDerivativeFolderIsNextToImageFolder() {
+        assertEquals("pet/1/derivative/tareco.jpg/thumbnail", ImageVariant.THUMBNAIL.keyFor(ORIGINAL_KEY));
+        assertEquals("shelter/2/derivative/a.png/full", ImageVariant.FULL.keyFor("shelter/2/image/a.png"));
+    }
+
+    @Test
+    void givenStoredVariants_whenSelectVariant_thenSmallestAdequateVariantIsSelected() {
+        when(imageDerivativeRepository.findAllByOriginalKey(ORIGINAL_KEY))
+                .thenReturn(List.of(derivative(ImageVariant.CARD), derivative(ImageVariant.THUMBNAIL)));
+
+        assertSame(original, imageDerivativeService.selectVariant(original, null));
+        assertEquals(ImageVariant.THUMBNAIL.keyFor(ORIGINAL_KEY), imageDerivativeService.selectVariant(original, 100).objectName());
+        assertEquals(ImageVariant.CARD.keyFor(ORIGINAL_KEY), imageDerivativeService.selectVariant(original, 300).objectName());
+        assertSame(original, imageDerivativeService.selectVariant(original, 1000));
+        // The variants are loaded once, then cached
+        verify(imageDerivativeRepository, times(1)).findAllByOriginalKey(ORIGINAL_KEY);
+    }
+
+    @Test
+    void givenFailingJob_whenProcess_thenJobIsRetriedLaterUntilAttemptsRunOut() {
+        ImageDerivativeJob job = new ImageDerivativeJob();
+        job.setId(1L);
+        job.setObjectKey(ORIGINAL_KEY);
+        job.setStatus(DerivativeJobStatus.RUNNING);
+        job.setAttempts(1);
+        when(imageDerivativeJobRepository.claim(eq(1L), any())).thenReturn(1);
+        when(imageDerivativeJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(fileService.findFile(anyString())).thenAnswer(invocation ->
+                ORIGINAL_KEY.equals(invocation.getArgument(0)) ? Optional.of(original) : Optional.empty());
+        when(fileService.readFile(original)).thenThrow(new FileException("Minio is down"));
+
+        imageDerivativeService.process(1L);
+
+        assertEquals(DerivativeJobStatus.PENDING, job.getStatus());
+        assertTrue(job.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("Minio is down", job.getLastError());
+
+        job.setAttempts(5);
+        imageDerivativeService.process(1L);
+
+        assertEquals(DerivativeJobStatus.FAILED, job.getStatus());
+    }
+
+    private ImageDerivative derivative(ImageVariant variant) {
+        ImageDerivative derivative = new ImageDerivative();
+        derivative.setOriginalKey(ORIGINAL_KEY);
+        derivative.setVariant(variant);
+        derivative.setObjectKey(variant.keyFor(ORIGINAL_KEY));
+        derivative.setContentType("image/jpeg");
+        derivative.setSize(1000L);
+        derivative.setCreatedAt(LocalDateTime.now());
+        return derivative;
+    }
+}
@@ -0,0 +1,99 @@
+package org.mindera.fur.code.service.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.file.ImageMetadata;
+import org.mindera.fur.code.repository.file.ImageMetadataRepository;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageMetadataServiceTest {
+
+    private static final String SHA_A = "a".repeat(64);
+    private static final String SHA_B = "b".repeat(64);
+    private static final String KEY = "pet/1/image/tareco.jpg";
+
+    private ImageMetadataRepository imageMetadataRepository;
+    private ImageBlobService imageBlobService;
+    private ImageMetadataService imageMetadataService;
+
+    @BeforeEach
+    void setUp() {
+        imageMetadataRepository = mock(ImageMetadataRepository.class);
+        imageBlobService = mock(ImageBlobService.class);
+        imageMetadataService = new ImageMetadataService(imageMetadataRepository, imageBlobService);
+    }
+
+    @Test
+    void givenBlobKey_whenSha256Of_thenBlobAndDerivativesMapToTheirContent() {
+        assertEquals("blob/aa/" + SHA_A, ImageBlobService.keyOf(SHA_A));
+        assertEquals(SHA_A, ImageBlobService.sha256Of(ImageBlobService.keyOf(SHA_A)));
+        assertEquals(SHA_A, ImageBlobService.sha256Of(ImageBlobService.keyOf(SHA_A) + "/thumbnail"));
+        assertNull(ImageBlobService.sha256Of(KEY));
+    }
+
+    @Test
+    void givenImageReplacedByOtherContent_whenRecord_thenPreviousBlobIsReleased() {
+        ImageMetadata previous = metadata(SHA_A);
+        when(imageMetadataRepository.findByObjectKey(KEY)).thenReturn(Optional.of(previous));
+
+        imageMetadataService.record(ImageOwnerType.PET, 1L, KEY, blob(SHA_B), SHA_B);
+
+        verify(imageBlobService).release(SHA_A);
+        assertEquals(ImageBlobService.keyOf(SHA_B), previous.getBlobKey());
+        assertEquals(SHA_B, previous.getSha256());
+    }
+
+    @Test
+    void givenNewImage_whenRecord_thenNothingIsReleased() {
+        when(imageMetadataRepository.findByObjectKey(KEY)).thenReturn(Optional.empty());
+
+        imageMetadataService.record(ImageOwnerType.PET, 1L, KEY, blob(SHA_A), SHA_A);
+
+        verify(imageBlobService, never()).release(anyString());
+    }
+
+    @Test
+    void givenImageInBlob_whenRemove_thenBlobIsReleased() {
+        when(imageMetadataRepository.findByObjectKey(KEY)).thenReturn(Optional.of(metadata(SHA_A)));
+
+        imageMetadataService.remove(KEY);
+
+        verify(imageBlobService).release(SHA_A);
+    }
+
+    @Test
+    void givenBlobOfAnotherOwner_whenIsOwnedBy_thenFalse() {
+        String blobKey = ImageBlobService.keyOf(SHA_A);
+        when(imageMetadataRepository.existsByOwnerTypeAndOwnerIdAndBlobKey(ImageOwnerType.PET, 1L, blobKey)).thenReturn(true);
+
+        assertTrue(imageMetadataService.isOwnedBy(ImageOwnerType.PET, 1L, blobKey + "/card"));
+        assertFalse(imageMetadataService.isOwnedBy(ImageOwnerType.PET, 2L, blobKey));
+        assertTrue(imageMetadataService.isOwnedBy(ImageOwnerType.PET, 2L, "pet/2/image/legacy.jpg"));
+        assertFalse(imageMetadataService.isOwnedBy(ImageOwnerType.PET, 2L, "pet/1/image/legacy.jpg"));
+    }
+
+    private ImageMetadata metadata(String sha256) {
+        ImageMetadata metadata = new ImageMetadata();
+        metadata.setObjectKey(KEY);
+        metadata.setBlobKey(ImageBlobService.keyOf(sha256));
+        metadata.setSha256(sha256);
+        return metadata;
+    }
+
+    private StoredFile blob(String sha256) {
+        return new StoredFile(ImageBlobService.keyOf(sha256), "image/jpeg", 10, sha256, ZonedDateTime.now());
+    }
+}
@@ -0,0 +1,45 @@
+package org.mindera.fur.code.service.file;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageResizerTest {
+
+    @Test
+    void givenImageOverPixelLimit_whenDecode_thenItIsNotDecoded() throws IOException {
+        byte[] png = png(100, 50);
+
+        assertTrue(ImageResizer.decode(png, 4_999).isEmpty());
+        assertEquals(100, ImageResizer.decode(png, 5_000).orElseThrow().getWidth());
+    }
+
+    @Test
+    void givenUnknownFormat_whenDecode_thenEmpty() throws IOException {
+        assertTrue(ImageResizer.decode("RIFF....WEBPVP8 ".getBytes(), Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void givenDecodedImage_whenDownscale_thenLongestSideIsBounded() throws IOException {
+        BufferedImage source = ImageResizer.decode(png(100, 50), Long.MAX_VALUE).orElseThrow();
+
+        Optional<ImageResizer.EncodedImage> resized = ImageResizer.downscale(source, 20);
+
+        assertEquals(20, resized.orElseThrow().width());
+        assertEquals(10, resized.get().height());
+        assertTrue(ImageResizer.downscale(source, 100).isEmpty());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+        return output.toByteArray();
+    }
+}
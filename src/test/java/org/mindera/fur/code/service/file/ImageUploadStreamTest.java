@@ -0,0 +1,96 @@
+package org.mindera.fur.code.service.file;
+
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.exceptions.file.FileException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUploadStreamTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+    private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+    private static final byte[] WEBP_HEADER = {'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'E', 'B', 'P'};
+
+    @Test
+    void givenImageHeaders_whenWrapped_thenTypeIsSniffedWithoutConsumingTheHeader() throws IOException {
+        assertSniffed(ImageType.PNG, PNG_HEADER);
+        assertSniffed(ImageType.JPEG, JPEG_HEADER);
+        assertSniffed(ImageType.WEBP, WEBP_HEADER);
+    }
+
+    @Test
+    void givenNonImageOrShortBody_whenWrapped_thenFileException() {
+        byte[] html = "<html><script>".getBytes();
+        byte[] riffNotWebp = {'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'A', 'V', 'E'};
+
+        assertThrows(FileException.class, () -> new ImageUploadStream(new ByteArrayInputStream(html), 1024));
+        assertThrows(FileException.class, () -> new ImageUploadStream(new ByteArrayInputStream(riffNotWebp), 1024));
+        assertThrows(FileException.class, () -> new ImageUploadStream(new ByteArrayInputStream(new byte[]{(byte) 0xFF}), 1024));
+    }
+
+    @Test
+    void givenFullyReadBody_whenGetResult_thenSizeAndSha256MatchTheBytes() throws Exception {
+        byte[] body = image(PNG_HEADER, 10_000);
+        ImageUploadStream upload = new ImageUploadStream(new ByteArrayInputStream(body), body.length);
+
+        // Mix single-byte and bulk reads
+        assertEquals(body[0] & 0xFF, upload.read());
+        byte[] rest = upload.readAllBytes();
+
+        assertEquals(body.length - 1, rest.length);
+        assertEquals(body.length, upload.getSize());
+        assertFalse(upload.isTooLarge());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body)), upload.getSha256());
+        assertEquals(upload.getSha256(), upload.getSha256());
+    }
+
+    @Test
+    void givenBodyOverTheLimit_whenRead_thenReadingFailsAsSoonAsTheLimitIsPassed() throws IOException {
+        byte[] body = image(JPEG_HEADER, 5_000);
+        ImageUploadStream upload = new ImageUploadStream(new ByteArrayInputStream(body), 4_096);
+
+        assertThrows(IOException.class, upload::readAllBytes);
+        assertTrue(upload.isTooLarge());
+        assertTrue(upload.getSize() > 4_096);
+    }
+
+    @Test
+    void givenBodyOfExactlyTheLimit_whenRead_thenItIsAccepted() throws IOException {
+        byte[] body = image(WEBP_HEADER, 4_096);
+        ImageUploadStream upload = new ImageUploadStream(new ByteArrayInputStream(body), 4_096);
+
+        assertEquals(4_096, upload.readAllBytes().length);
+        assertFalse(upload.isTooLarge());
+    }
+
+    @Test
+    void givenUploadBody_whenSkip_thenIOException() throws IOException {
+        ImageUploadStream upload = new ImageUploadStream(new ByteArrayInputStream(image(PNG_HEADER, 100)), 1024);
+
+        assertThrows(IOException.class, () -> upload.skip(10));
+        assertFalse(upload.markSupported());
+    }
+
+    private static void assertSniffed(ImageType expected, byte[] header) throws IOException {
+        byte[] body = image(header, 64);
+        try (InputStream upload = new ImageUploadStream(new ByteArrayInputStream(body), 1024)) {
+            assertEquals(expected, ((ImageUploadStream) upload).getImageType());
+            assertArrayEquals(body, upload.readAllBytes());
+        }
+    }
+
+    private static byte[] image(byte[] header, int length) {
+        byte[] body = Arrays.copyOf(header, length);
+        for (int i = header.length; i < length; i++) {
+            body[i] = (byte) (i * 31);
+        }
+        return body;
+    }
+}
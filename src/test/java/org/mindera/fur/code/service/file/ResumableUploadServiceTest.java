@@ -0,0 +1,113 @@
+package org.mindera.fur.code.service.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.dto.file.UploadPartDTO;
+import org.mindera.fur.code.exceptions.file.FileException;
+import org.mindera.fur.code.model.enums.file.ImageOwnerType;
+import org.mindera.fur.code.model.enums.file.UploadSessionStatus;
+import org.mindera.fur.code.model.file.UploadPart;
+import org.mindera.fur.code.model.file.UploadSession;
+import org.mindera.fur.code.repository.file.UploadPartRepository;
+import org.mindera.fur.code.repository.file.UploadSessionRepository;
+import org.mindera.fur.code.service.FileService;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResumableUploadServiceTest {
+
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+    private static final String SESSION_ID = "session";
+
+    private FileService fileService;
+    private UploadSessionRepository uploadSessionRepository;
+    private UploadPartRepository uploadPartRepository;
+    private ResumableUploadService resumableUploadService;
+    private UploadSession session;
+
+    @BeforeEach
+    void setUp() {
+        fileService = mock(FileService.class);
+        uploadSessionRepository = mock(UploadSessionRepository.class);
+        uploadPartRepository = mock(UploadPartRepository.class);
+        resumableUploadService = new ResumableUploadService(fileService, uploadSessionRepository, uploadPartRepository,
+                DataSize.ofBytes(PART_SIZE), Duration.ofHours(24));
+
+        session = new UploadSession();
+        session.setId(SESSION_ID);
+        session.setOwnerType(ImageOwnerType.PET);
+        session.setOwnerId(1L);
+        session.setStagingKey("staging/1");
+        session.setUploadId("upload");
+        session.setSize(PART_SIZE + 10);
+        session.setPartSize(PART_SIZE);
+        session.setStatus(UploadSessionStatus.ACTIVE);
+        session.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(uploadSessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+        when(uploadPartRepository.findBySessionIdAndPartNumber(anyString(), anyInt())).thenReturn(Optional.empty());
+        when(fileService.uploadPart(anyString(), anyString(), anyInt(), any(), anyLong())).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(3).readNBytes((int) (long) invocation.getArgument(4));
+            return "etag";
+        });
+    }
+
+    @Test
+    void givenFileSize_whenPartSize_thenOnlyLastPartIsShorter() {
+        assertEquals(2, session.getPartCount());
+        assertEquals(PART_SIZE, session.getPartSize(1));
+        assertEquals(10, session.getPartSize(2));
+    }
+
+    @Test
+    void givenLastPart_whenUploadPart_thenChecksumIsComputedAndRecorded() throws Exception {
+        byte[] data = "0123456789".getBytes();
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+
+        UploadPartDTO part = resumableUploadService.uploadPart(ImageOwnerType.PET, 1L, SESSION_ID, 2,
+                new ByteArrayInputStream(data), data.length, sha256);
+
+        assertEquals(2, part.getPartNumber());
+        assertEquals(sha256, part.getSha256());
+        verify(uploadPartRepository).save(any(UploadPart.class));
+    }
+
+    @Test
+    void givenWrongChecksum_whenUploadPart_thenPartIsNotRecorded() {
+        byte[] data = "0123456789".getBytes();
+
+        assertThrows(FileException.class, () -> resumableUploadService.uploadPart(ImageOwnerType.PET, 1L, SESSION_ID, 2,
+                new ByteArrayInputStream(data), data.length, "0".repeat(64)));
+
+        verify(uploadPartRepository, never()).save(any());
+    }
+
+    @Test
+    void givenMissingPart_whenComplete_thenSessionIsNotCompleted() {
+        UploadPart part = new UploadPart();
+        part.setPartNumber(1);
+        when(uploadPartRepository.findAllBySessionIdOrderByPartNumberAsc(SESSION_ID)).thenReturn(List.of(part));
+
+        assertThrows(FileException.class, () -> resumableUploadService.complete(ImageOwnerType.PET, 1L, SESSION_ID));
+
+        verify(fileService, never()).completeMultipartUpload(anyString(), anyString(), any());
+    }
+}
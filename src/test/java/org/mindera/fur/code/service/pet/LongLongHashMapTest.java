@@ -0,0 +1,57 @@
+package org.mindera.fur.code.service.pet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongLongHashMapTest {
+
+    private static final long MISSING = -1;
+
+    @Test
+    void givenEntries_whenPutGetAndRemove_thenValuesFollowTheLastWrite() {
+        LongLongHashMap map = new LongLongHashMap(4, MISSING);
+
+        assertEquals(MISSING, map.put(1, 10));
+        assertEquals(10, map.put(1, 11));
+        map.put(0, 5);
+
+        assertEquals(11, map.get(1));
+        assertEquals(5, map.get(0));
+        assertEquals(MISSING, map.get(2));
+        assertEquals(2, map.size());
+
+        assertEquals(11, map.remove(1));
+        assertEquals(MISSING, map.get(1));
+        assertEquals(MISSING, map.remove(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void givenRandomOperations_whenComparedWithHashMap_thenSameContent() {
+        LongLongHashMap map = new LongLongHashMap(2, MISSING);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, MISSING), map.remove(key));
+                expected.remove(key);
+            } else {
+                long value = random.nextInt(50);
+                assertEquals(expected.getOrDefault(key, MISSING), map.put(key, value));
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(expected.getOrDefault(key, MISSING), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.mindera.fur.code.service.pet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.repository.pet.PetRepository;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PetOwnershipIndexTest {
+
+    private PetRepository petRepository;
+    private StringRedisTemplate redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private PetOwnershipIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        petRepository = mock(PetRepository.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(petRepository.findAllActiveOwnerships()).thenReturn(List.of(ownership(1L, 10L), ownership(2L, 20L)));
+        when(petRepository.findShelterIdById(any())).thenReturn(Optional.empty());
+        index = new PetOwnershipIndex(petRepository, redisTemplate);
+        index.buildIndex();
+    }
+
+    @Test
+    void givenBuiltIndex_whenPetMovedAndDeleted_thenOwnershipFollowsWithoutDatabase() {
+        assertEquals(10L, index.shelterIdOf(1L));
+
+        index.onPetChanged(new PetChangedEvent(snapshot(1L, 10L), snapshot(1L, 30L)));
+        index.onPetChanged(new PetChangedEvent(snapshot(2L, 20L), null));
+
+        assertEquals(30L, index.shelterIdOf(1L));
+        assertNull(index.activeShelterIdOf(2L));
+        assertEquals(1, index.size());
+        verify(hashOperations).put(PetOwnershipIndex.KEY, "1", "30");
+        verify(hashOperations).delete(PetOwnershipIndex.KEY, "2");
+        verify(petRepository, never()).findShelterIdById(1L);
+    }
+
+    @Test
+    void givenBuild_whenShared_thenItReplacesTheWholeRedisHash() {
+        ArgumentCaptor<String> buildKey = ArgumentCaptor.forClass(String.class);
+        verify(hashOperations).putAll(buildKey.capture(), eq(Map.of("1", "10", "2", "20")));
+
+        assertNotEquals(PetOwnershipIndex.KEY, buildKey.getValue());
+        verify(redisTemplate).rename(buildKey.getValue(), PetOwnershipIndex.KEY);
+        verify(hashOperations, never()).putAll(eq(PetOwnershipIndex.KEY), any());
+    }
+
+    @Test
+    void givenIndexNotBuilt_whenPetNotInMemory_thenReadFromRedisWithoutKeepingIt() {
+        PetOwnershipIndex starting = new PetOwnershipIndex(petRepository, redisTemplate);
+        when(hashOperations.get(PetOwnershipIndex.KEY, "3")).thenReturn("40");
+
+        assertEquals(40L, starting.shelterIdOf(3L));
+        assertEquals(0, starting.size());
+        verify(petRepository, never()).findShelterIdById(3L);
+    }
+
+    @Test
+    void givenBuiltIndex_whenPetNotInMemory_thenRedisIsIgnoredAndTheDatabaseDecides() {
+        // Left over from a dropped database, under a reused ID
+        when(hashOperations.get(PetOwnershipIndex.KEY, "3")).thenReturn("40");
+        when(petRepository.findShelterIdById(3L)).thenReturn(Optional.of(50L));
+
+        assertNull(index.activeShelterIdOf(3L));
+        assertEquals(50L, index.shelterIdOf(3L));
+        assertEquals(2, index.size());
+        verify(hashOperations, never()).get(any(), any());
+    }
+
+    private static PetSnapshot snapshot(Long petId, Long shelterId) {
+        return new PetSnapshot(petId, shelterId, null, null, null, null, false, false);
+    }
+
+    private static PetRepository.PetOwnership ownership(Long petId, Long shelterId) {
+        return new PetRepository.PetOwnership() {
+            @Override
+            public Long getPetId() {
+                return petId;
+            }
+
+            @Override
+            public Long getShelterId() {
+                return shelterId;
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package org.mindera.fur.code.service.pet.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.model.enums.pet.PetSizeEnum;
+import org.mindera.fur.code.model.enums.pet.PetSpeciesEnum;
+import org.mindera.fur.code.service.pet.event.PetChangedEvent;
+import org.mindera.fur.code.service.pet.event.PetSnapshot;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PetSearchIndexTest {
+
+    private PetSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PetSearchIndex();
+        index.rebuild(List.of(
+                pet(1L, 1L, PetSpeciesEnum.DOG, PetSizeEnum.LARGE, "Brown and White", 3, false, true),
+                pet(2L, 1L, PetSpeciesEnum.CAT, PetSizeEnum.SMALL, "Black", 1, false, true),
+                pet(3L, 2L, PetSpeciesEnum.DOG, PetSizeEnum.SMALL, "white", 9, true, false),
+                pet(4L, 2L, PetSpeciesEnum.DOG, PetSizeEnum.MEDIUM, "Brown", 14, false, false)
+        ));
+    }
+
+    @Test
+    void givenNoFilters_whenSearch_thenAllPetsMatch() {
+        PetSearchIndex.Result result = index.search(Map.of(), 0, 10);
+
+        assertEquals(4, result.total());
+        assertEquals(List.of(1L, 2L, 3L, 4L), result.petIds());
+    }
+
+    @Test
+    void givenFiltersOnSeveralFields_whenSearch_thenFieldsAreAndedAndValuesAreOred() {
+        PetSearchIndex.Result result = index.search(Map.of(
+                PetSearchField.SPECIES, Set.of("DOG"),
+                PetSearchField.COLOR, Set.of("White", "black")
+        ), 0, 10);
+
+        assertEquals(List.of(1L, 3L), result.petIds());
+    }
+
+    @Test
+    void givenFilter_whenSearch_thenFacetsIgnoreTheirOwnField() {
+        PetSearchIndex.Result result = index.search(Map.of(PetSearchField.SPECIES, Set.of("DOG")), 0, 10);
+
+        assertEquals(Map.of("DOG", 3, "CAT", 1), result.facets().get(PetSearchField.SPECIES));
+        assertEquals(Map.of("LARGE", 1, "SMALL", 1, "MEDIUM", 1), result.facets().get(PetSearchField.SIZE));
+        assertEquals(Map.of("2-3", 1, "8-12", 1, "13+", 1), result.facets().get(PetSearchField.AGE));
+    }
+
+    @Test
+    void givenOffsetAndLimit_whenSearch_thenWindowIsReturnedWithTotal() {
+        PetSearchIndex.Result result = index.search(Map.of(), 1, 2);
+
+        assertEquals(4, result.total());
+        assertEquals(List.of(2L, 3L), result.petIds());
+    }
+
+    @Test
+    void givenOffsetPastTheMatches_whenSearch_thenWindowIsEmptyWithTotal() {
+        PetSearchIndex.Result result = index.search(Map.of(), (long) Integer.MAX_VALUE * 100, 2);
+
+        assertEquals(4, result.total());
+        assertEquals(List.of(), result.petIds());
+    }
+
+    @Test
+    void givenUpdatedPet_whenApply_thenOldTermsAreRemoved() {
+        PetSnapshot before = pet(2L, 1L, PetSpeciesEnum.CAT, PetSizeEnum.SMALL, "Black", 1, false, true);
+        PetSnapshot after = pet(2L, 1L, PetSpeciesEnum.CAT, PetSizeEnum.SMALL, "Black", 1, true, true);
+
+        index.apply(new PetChangedEvent(before, after));
+
+        assertEquals(List.of(2L, 3L), index.search(Map.of(PetSearchField.ADOPTED, Set.of("true")), 0, 10).petIds());
+        assertEquals(List.of(1L, 4L), index.search(Map.of(PetSearchField.ADOPTED, Set.of("false")), 0, 10).petIds());
+    }
+
+    @Test
+    void givenDeletedPet_whenApply_thenPetIsNoLongerFoundAndItsDocumentIsReused() {
+        PetSnapshot deleted = pet(1L, 1L, PetSpeciesEnum.DOG, PetSizeEnum.LARGE, "Brown and White", 3, false, true);
+
+        index.apply(new PetChangedEvent(deleted, null));
+        index.apply(new PetChangedEvent(null, pet(5L, 3L, PetSpeciesEnum.BIRD, PetSizeEnum.SMALL, "Yellow", 2, false, true)));
+
+        assertEquals(4, index.size());
+        assertEquals(List.of(4L), index.search(Map.of(PetSearchField.COLOR, Set.of("brown")), 0, 10).petIds());
+        assertEquals(List.of(5L), index.search(Map.of(PetSearchField.SHELTER, Set.of("3")), 0, 10).petIds());
+    }
+
+    @Test
+    void givenChangeDuringRebuild_whenRebuild_thenChangeIsReplayed() {
+        index.beginRebuild();
+        index.apply(new PetChangedEvent(null, pet(5L, 3L, PetSpeciesEnum.BIRD, PetSizeEnum.SMALL, "Yellow", 2, false, true)));
+
+        index.rebuild(List.of(pet(1L, 1L, PetSpeciesEnum.DOG, PetSizeEnum.LARGE, "Brown", 3, false, true)));
+
+        assertEquals(List.of(1L, 5L), index.search(Map.of(), 0, 10).petIds());
+    }
+
+    @Test
+    void givenColor_whenColorTokens_thenStopWordsAreDropped() {
+        assertEquals(List.of("brown", "white"), PetSearchIndex.colorTokens("Brown and White"));
+    }
+
+    private static PetSnapshot pet(Long id, Long shelterId, PetSpeciesEnum species, PetSizeEnum size,
+                                   String color, int age, boolean isAdopted, boolean isVaccinated) {
+        return new PetSnapshot(id, shelterId, species, size, color, age, isAdopted, isVaccinated);
+    }
+}
@@ -0,0 +1,105 @@
+package org.mindera.fur.code.service.pet.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindera.fur.code.dto.pet.PetTextSearchHitDTO;
+import org.mindera.fur.code.dto.pet.PetTextSearchResultDTO;
+import org.mindera.fur.code.model.pet.Pet;
+import org.mindera.fur.code.repository.pet.PetRepository;
+import org.mindera.fur.code.repository.pet.PetTextSearchHit;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PetSearchServiceTest {
+
+    private static final char START = PetTextSearchHit.HIGHLIGHT_START;
+    private static final char STOP = PetTextSearchHit.HIGHLIGHT_STOP;
+
+    private PetRepository petRepository;
+    private PetSearchService petSearchService;
+
+    @BeforeEach
+    void setUp() {
+        petRepository = mock(PetRepository.class);
+        petSearchService = new PetSearchService(petRepository);
+    }
+
+    @Test
+    void givenPetTextWithMarkup_whenTextSearch_thenSnippetIsEscapedAndOnlyMatchesAreMarked() {
+        String snippet = START + "Rex" + STOP + " <img src=x onerror=alert(1)> - \"Brown\" & white";
+        when(petRepository.searchByText("rex", 3, 0)).thenReturn(List.of(hit(1L, 0.5f, snippet)));
+        when(petRepository.findAllActiveByIdIn(anyCollection())).thenReturn(pets(1L));
+
+        PetTextSearchResultDTO result = petSearchService.textSearch("rex", 0, 2);
+
+        assertEquals("<mark>Rex</mark> &lt;img src=x onerror=alert(1)&gt; - &quot;Brown&quot; &amp; white",
+                result.getContent().get(0).getSnippet());
+    }
+
+    @Test
+    void givenMoreHitsThanSize_whenTextSearch_thenRankOrderIsKeptAndHasNextIsSet() {
+        when(petRepository.searchByText("brown", 3, 2)).thenReturn(List.of(
+                hit(7L, 0.9f, "a"), hit(3L, 0.5f, "b"), hit(5L, 0.1f, "c")));
+        // The summaries come back in ID order
+        when(petRepository.findAllActiveByIdIn(anyCollection())).thenReturn(pets(3L, 7L));
+
+        PetTextSearchResultDTO result = petSearchService.textSearch("brown", 1, 2);
+
+        assertEquals(List.of(7L, 3L), result.getContent().stream().map(hit -> hit.getPet().getId()).toList());
+        assertEquals(List.of(0.9f, 0.5f), result.getContent().stream().map(PetTextSearchHitDTO::getRank).toList());
+        assertTrue(result.isHasNext());
+        assertEquals(1, result.getPage());
+        verify(petRepository).findAllActiveByIdIn(List.of(7L, 3L));
+    }
+
+    @Test
+    void givenHitDeletedAfterRanking_whenTextSearch_thenItIsDropped() {
+        when(petRepository.searchByText("brown", 3, 0)).thenReturn(List.of(hit(1L, 0.9f, "a"), hit(2L, 0.5f, "b")));
+        when(petRepository.findAllActiveByIdIn(anyCollection())).thenReturn(pets(2L));
+
+        PetTextSearchResultDTO result = petSearchService.textSearch("brown", 0, 2);
+
+        assertEquals(List.of(2L), result.getContent().stream().map(hit -> hit.getPet().getId()).toList());
+        assertFalse(result.isHasNext());
+    }
+
+    @Test
+    void givenNoSnippet_whenToHtml_thenNull() {
+        assertNull(PetSearchService.toHtml(null));
+    }
+
+    private static List<Pet> pets(Long... ids) {
+        return Arrays.stream(ids).map(id -> {
+            Pet pet = new Pet();
+            pet.setId(id);
+            pet.setName("Pet " + id);
+            return pet;
+        }).toList();
+    }
+
+    private static PetTextSearchHit hit(Long id, float rank, String snippet) {
+        return new PetTextSearchHit() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Float getRank() {
+                return rank;
+            }
+
+            @Override
+            public String getSnippet() {
+                return snippet;
+            }
+        };
+    }
+}